@@ -0,0 +1,125 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Zwischenspeicher für die Logindaten der Bedienungen, damit nicht jeder Aufruf der REST-Schnittstelle
+ * die Datenbank für die Authentifizierung abfragen muss.
+ *
+ * Je Loginname werden Passwort-Hash, waiterID und Beschäftigungsstatus der Bedienung für die in den
+ * {@link DatabaseProperties} festgelegte Zeit gespeichert. Änderungen an Logindaten oder Bedienungen über den
+ * {@link DatabaseService} entfernen die betroffenen Einträge sofort.
+ *
+ * @author Marvin Mai
+ */
+final class AuthCache
+{
+	private final long ttlMillis;
+	private final Map<String, Credentials> credentials = new ConcurrentHashMap<>();
+	// Wird bei jedem Entfernen erhöht. Geladene Logindaten werden nur gespeichert, wenn während des Ladens nichts
+	// entfernt wurde, da sie sonst bereits veraltet sein können.
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param ttlMillis Zeit in Millisekunden, nach der ein Eintrag neu geladen wird.
+	 */
+	AuthCache(long ttlMillis)
+	{
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Liefert die Logindaten zu einem Loginnamen. Ist kein gültiger Eintrag vorhanden, werden sie geladen.
+	 * @param loginname Der Loginname.
+	 * @param loader Lädt die Logindaten aus der Datenbank, liefert null wenn der Loginname nicht existiert.
+	 * @return Die Logindaten, null wenn der Loginname nicht existiert.
+	 */
+	Credentials get(String loginname, Function<String, Credentials> loader)
+	{
+		Credentials cached = credentials.get(loginname);
+		if(cached != null && System.currentTimeMillis() < cached.expiresAt)
+		{
+			hits.incrementAndGet();
+			return cached;
+		}
+
+		misses.incrementAndGet();
+		long loadedGeneration = generation.get();
+		Credentials loaded = loader.apply(loginname);
+		if(loaded == null)
+		{
+			credentials.remove(loginname);
+			return null;
+		}
+		loaded.expiresAt = System.currentTimeMillis() + ttlMillis;
+		credentials.put(loginname, loaded);
+		// Wurde zwischen Laden und Speichern etwas entfernt, darf der Eintrag nicht bleiben
+		if(generation.get() != loadedGeneration)
+			credentials.remove(loginname, loaded);
+		return loaded;
+	}
+
+	/**
+	 * Entfernt alle Einträge einer Bedienung, z.B. nachdem deren Logindaten oder Beschäftigungsstatus
+	 * geändert wurden.
+	 * @param waiterID Die ID der Bedienung.
+	 */
+	void invalidateWaiter(int waiterID)
+	{
+		generation.incrementAndGet();
+		credentials.values().removeIf(c -> c.waiterID == waiterID);
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Caches.
+	 * @return Treffer, Fehlschläge, Trefferquote und Anzahl der gespeicherten Loginnamen.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		long hitCount = hits.get();
+		long missCount = misses.get();
+		long total = hitCount + missCount;
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("hits", hitCount);
+		statistics.put("misses", missCount);
+		statistics.put("hitRatio", total == 0 ? 0.0 : DatabaseService.round((double) hitCount / total));
+		statistics.put("size", credentials.size());
+		return statistics;
+	}
+
+	/**
+	 * Logindaten einer Bedienung zusammen mit deren Beschäftigungsstatus.
+	 */
+	static final class Credentials
+	{
+		final String passwordHash;
+		final int waiterID;
+		final boolean employed;
+		private volatile long expiresAt;
+
+		Credentials(String passwordHash, int waiterID, boolean employed)
+		{
+			this.passwordHash = passwordHash;
+			this.waiterID = waiterID;
+			this.employed = employed;
+		}
+
+		/**
+		 * Überprüft, ob ein Passwort-Hash zu diesen Logindaten passt und die Bedienung beschäftigt ist.
+		 * @param passwordHash Der übergebene Passwort-Hash.
+		 * @return Ob ein Login mit dem Passwort-Hash erlaubt ist.
+		 */
+		boolean matches(String passwordHash)
+		{
+			return employed && this.passwordHash != null && this.passwordHash.equals(passwordHash);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Das Ergebnis einer Änderung mehrerer Datensätze in einer Anfrage.
+ *
+ * Ein fehlerhafter Datensatz verhindert nicht die Änderung der übrigen. Er wird mit seiner Position in der Anfrage
+ * und dem Grund als fehlgeschlagen gemeldet, sodass der Client nur diese Datensätze erneut senden muss.
+ *
+ * @author Marvin Mai
+ */
+public final class BulkUpdateResult
+{
+	private final List<Integer> updated = new ArrayList<>();
+	private final List<Failure> failed = new ArrayList<>();
+
+	BulkUpdateResult()
+	{
+	}
+
+	void updated(int id)
+	{
+		updated.add(id);
+	}
+
+	void failed(int index, int id, String message)
+	{
+		failed.add(new Failure(index, id, message));
+	}
+
+	/**
+	 * @return Die IDs der geänderten Datensätze.
+	 */
+	public List<Integer> getUpdated()
+	{
+		return updated;
+	}
+
+	/**
+	 * @return Die nicht geänderten Datensätze in der Reihenfolge der Anfrage.
+	 */
+	public List<Failure> getFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Ein Datensatz, der nicht geändert wurde.
+	 */
+	public static final class Failure
+	{
+		private final int index;
+		private final int id;
+		private final String message;
+
+		private Failure(int index, int id, String message)
+		{
+			this.index = index;
+			this.id = id;
+			this.message = message;
+		}
+
+		/**
+		 * @return Die Position des Datensatzes in der Anfrage, beginnend bei 0.
+		 */
+		public int getIndex()
+		{
+			return index;
+		}
+
+		public int getId()
+		{
+			return id;
+		}
+
+		public String getMessage()
+		{
+			return message;
+		}
+	}
+}
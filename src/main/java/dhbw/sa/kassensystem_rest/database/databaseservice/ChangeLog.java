@@ -0,0 +1,160 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Protokolliert, welche Artikel, Tische und Bestellungen sich geändert haben, damit Tablets nur noch die
+ * Änderungen seit ihrer letzten Abfrage laden müssen.
+ *
+ * Jede Änderung erhält eine fortlaufende Version. Ein Tablet merkt sich die zuletzt erhaltene Version und fragt
+ * beim nächsten Mal nur die seitdem geänderten IDs ab. Es werden nur die IDs protokolliert, nicht die Daten, da z.B.
+ * der Preis einer Bestellung oder die Anzahl eines Artikels durch Änderungen an anderen Tabellen entstehen. Die
+ * Daten der geänderten IDs werden bei der Abfrage aktuell aus der Datenbank gelesen.
+ *
+ * Es werden nur die letzten Änderungen aufbewahrt. Liegt die Version eines Tablets davor, oder haben sich zu viele
+ * IDs geändert, muss es alle Daten neu laden. Die Anzahl der aufbewahrten Änderungen wird über die System-Property
+ * "kassensystem.changes.history" festgelegt. Die Versionen beginnen beim Start des Servers mit der aktuellen Zeit in
+ * Millisekunden, damit Versionen aus einem früheren Lauf nie als aktuell gelten.
+ *
+ * @author Marvin Mai
+ */
+public final class ChangeLog
+{
+	public enum Entity { ITEM, TABLE, ORDER }
+
+	// Anzahl der aufbewahrten Änderungen
+	private static final int historySize = Integer.getInteger("kassensystem.changes.history", 10000);
+	// Maximale Anzahl geänderter IDs, die als Änderungen statt als vollständige Liste geliefert werden
+	static final int MAX_CHANGED_IDS = 256;
+
+	// ID, mit der alle Datensätze einer Tabelle als geändert markiert werden
+	private static final int ALL = 0;
+
+	private final ArrayDeque<Change> history = new ArrayDeque<>();
+	private final long startVersion = System.currentTimeMillis();
+	private long version = startVersion;
+	// Version der ältesten Änderung, die nicht mehr aufbewahrt wird
+	private long truncatedVersion = startVersion;
+	// Version der letzten Änderung je Tabelle
+	private final long[] entityVersions = new long[Entity.values().length];
+
+	ChangeLog()
+	{
+		Arrays.fill(entityVersions, startVersion);
+	}
+
+	/**
+	 * @return Die Version der letzten Änderung.
+	 */
+	public synchronized long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * @return Die Version der letzten Änderung an einer Tabelle. Solange sie sich nicht ändert, liefert die
+	 * Datenbank für diese Tabelle dieselben Daten.
+	 */
+	public synchronized long getVersion(Entity entity)
+	{
+		return entityVersions[entity.ordinal()];
+	}
+
+	/**
+	 * Markiert einen Datensatz als geändert.
+	 */
+	synchronized void record(Entity entity, int id)
+	{
+		history.addLast(new Change(++version, entity, id));
+		entityVersions[entity.ordinal()] = version;
+		while(history.size() > historySize)
+			truncatedVersion = history.removeFirst().version;
+	}
+
+	/**
+	 * Markiert alle Datensätze einer Tabelle als geändert, z.B. die Preise aller Bestellungen, nachdem sich der
+	 * Preis eines Artikels geändert hat.
+	 */
+	void recordAll(Entity entity)
+	{
+		record(entity, ALL);
+	}
+
+	/**
+	 * Ermittelt die seit einer Version geänderten Datensätze einer Tabelle.
+	 * @param since Die zuletzt vom Tablet erhaltene Version.
+	 * @return Die geänderten IDs und die aktuelle Version, null wenn alle Daten neu geladen werden müssen.
+	 */
+	synchronized Changes getChangesSince(Entity entity, long since)
+	{
+		if(since < truncatedVersion || since > version)
+			return null;
+
+		Set<Integer> ids = new LinkedHashSet<>();
+		Iterator<Change> changes = history.descendingIterator();
+		while(changes.hasNext())
+		{
+			Change change = changes.next();
+			if(change.version <= since)
+				break;
+			if(change.entity != entity)
+				continue;
+			if(change.id == ALL)
+				return null;
+
+			ids.add(change.id);
+			if(ids.size() > MAX_CHANGED_IDS)
+				return null;
+		}
+		return new Changes(version, ids);
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Protokolls.
+	 * @return Aktuelle Version, Anzahl der aufbewahrten Änderungen und älteste Version, ab der Änderungen geliefert
+	 * werden können.
+	 */
+	public synchronized Map<String, Number> getStatistics()
+	{
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("version", version);
+		statistics.put("changes", history.size());
+		statistics.put("oldestVersion", truncatedVersion);
+		return statistics;
+	}
+
+	/**
+	 * Die geänderten IDs einer Tabelle und die Version, bis zu der sie ermittelt wurden.
+	 */
+	static final class Changes
+	{
+		final long version;
+		final Set<Integer> ids;
+
+		private Changes(long version, Set<Integer> ids)
+		{
+			this.version = version;
+			this.ids = ids;
+		}
+	}
+
+	private static final class Change
+	{
+		private final long version;
+		private final Entity entity;
+		private final int id;
+
+		private Change(long version, Entity entity, int id)
+		{
+			this.version = version;
+			this.entity = entity;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logInf;
+
+/**
+ * Begrenzter Pool von Verbindungen zur MySQL-Datenbank, der von allen Instanzen des {@link DatabaseService}
+ * gemeinsam verwendet wird. Jeder Aufruf leiht sich eine Verbindung und gibt sie anschließend zurück.
+ *
+ * Verbindungen werden beim Ausleihen validiert. Verbindungen, die länger als das in den
+ * {@link DatabaseProperties} festgelegte Leck-Timeout nicht zurückgegeben wurden, werden mit Stacktrace
+ * protokolliert und geschlossen. PreparedStatements werden je Verbindung im {@link CountingStatementCache}
+ * zwischengespeichert.
+ *
+ * @author Marvin Mai
+ */
+final class ConnectionPool
+{
+	private static DataSource dataSource;
+
+	private ConnectionPool() {}
+
+	/**
+	 * Liefert die gemeinsame DataSource. Der Pool wird beim ersten Aufruf angelegt, die Verbindungen
+	 * werden aber erst beim ersten Ausleihen aufgebaut.
+	 * @return Die DataSource des Connection-Pools.
+	 */
+	static synchronized javax.sql.DataSource getDataSource()
+	{
+		if(dataSource == null)
+			dataSource = new DataSource(createPoolProperties());
+		return dataSource;
+	}
+
+	private static PoolProperties createPoolProperties()
+	{
+		PoolProperties properties = new PoolProperties();
+		properties.setUrl(DatabaseProperties.getUrl());
+		properties.setDriverClassName("com.mysql.jdbc.Driver");
+		properties.setUsername(DatabaseProperties.getUsername());
+		properties.setPassword(DatabaseProperties.getPassword());
+
+		// Größe des Pools
+		properties.setInitialSize(DatabaseProperties.getPoolMinIdle());
+		properties.setMinIdle(DatabaseProperties.getPoolMinIdle());
+		properties.setMaxIdle(DatabaseProperties.getPoolMaxActive());
+		properties.setMaxActive(DatabaseProperties.getPoolMaxActive());
+		properties.setMaxWait(DatabaseProperties.getPoolMaxWait());
+
+		// Validierung beim Ausleihen
+		properties.setTestOnBorrow(true);
+		properties.setValidationQuery(DatabaseProperties.getPoolValidationQuery());
+		properties.setValidationInterval(30000);
+
+		// Erkennung von nicht zurückgegebenen Verbindungen
+		properties.setRemoveAbandoned(true);
+		properties.setRemoveAbandonedTimeout(DatabaseProperties.getPoolLeakTimeout());
+		properties.setLogAbandoned(true);
+
+		// Wiederverwendung von PreparedStatements je Verbindung, serverseitig vorbereitet.
+		// Batch-Inserts werden vom Treiber zu einem einzigen INSERT mit mehreren Zeilen zusammengefasst.
+		properties.setConnectionProperties("useServerPrepStmts=true;rewriteBatchedStatements=true");
+		properties.setJdbcInterceptors(CountingStatementCache.class.getName() +
+				"(prepared=true,callable=false,max=" + DatabaseProperties.getPoolStatementCacheSize() + ")");
+
+		properties.setJmxEnabled(false);
+		return properties;
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen eines Connection-Pools.
+	 * @param dataSource Die DataSource, deren Kennzahlen ermittelt werden sollen.
+	 * @return Die Kennzahlen des Pools, leer wenn die DataSource kein Connection-Pool ist.
+	 */
+	static Map<String, Number> getStatistics(javax.sql.DataSource dataSource)
+	{
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		if(!(dataSource instanceof DataSource))
+			return statistics;
+
+		DataSource pool = (DataSource) dataSource;
+		try
+		{
+			statistics.put("active", pool.getActive());
+			statistics.put("idle", pool.getIdle());
+			statistics.put("waiting", pool.getWaitCount());
+			statistics.put("size", pool.getSize());
+			statistics.put("maxActive", pool.getMaxActive());
+			statistics.put("borrowed", pool.getBorrowedCount());
+			statistics.put("returned", pool.getReturnedCount());
+			statistics.put("abandoned", pool.getRemoveAbandonedCount());
+		} catch (RuntimeException e)
+		{
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+		return statistics;
+	}
+
+	/**
+	 * Schließt einen Connection-Pool mit allen Verbindungen.
+	 * @param dataSource Die zu schließende DataSource.
+	 */
+	static synchronized void close(javax.sql.DataSource dataSource)
+	{
+		if(dataSource instanceof DataSource)
+		{
+			((DataSource) dataSource).close();
+			if(dataSource == ConnectionPool.dataSource)
+				ConnectionPool.dataSource = null;
+			logInf("Database disconnected!");
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import org.apache.tomcat.jdbc.pool.interceptor.StatementCache;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statement-Cache des Connection-Pools, der zusätzlich Treffer und Fehlschläge zählt.
+ *
+ * Der Pool legt für jede Verbindung eine eigene Instanz an. Je Verbindung werden die PreparedStatements
+ * anhand ihres SQL-Textes zwischengespeichert und beim nächsten prepareStatement-Aufruf mit demselben Text
+ * wiederverwendet, anstatt sie neu vom Server parsen zu lassen. Die Zähler gelten daher für den gesamten Pool.
+ *
+ * Die Klasse muss öffentlich sein, da sie vom Connection-Pool über Reflection instanziiert wird.
+ *
+ * @author Marvin Mai
+ */
+public class CountingStatementCache extends StatementCache
+{
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	@Override
+	public CachedStatement isCached(Method method, Object[] args)
+	{
+		CachedStatement cachedStatement = super.isCached(method, args);
+		if(cachedStatement != null)
+			hits.incrementAndGet();
+		else
+			misses.incrementAndGet();
+		return cachedStatement;
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Statement-Caches über alle Verbindungen des Pools.
+	 * @return Anzahl der Treffer und Fehlschläge sowie die Trefferquote.
+	 */
+	static Map<String, Number> getStatistics()
+	{
+		long hitCount = hits.get();
+		long missCount = misses.get();
+		long total = hitCount + missCount;
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("hits", hitCount);
+		statistics.put("misses", missCount);
+		statistics.put("hitRatio", total == 0 ? 0.0 : DatabaseService.round((double) hitCount / total));
+		return statistics;
+	}
+}
@@ -0,0 +1,57 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import java.util.List;
+
+/**
+ * Die IDs, die beim Anlegen einer {@link NewOrder} vergeben wurden.
+ *
+ * @author Marvin Mai
+ */
+public final class CreatedOrder
+{
+	private final int orderID;
+	private final boolean newOrder;
+	private final List<Integer> orderedItemIDs;
+	private final List<Long> printJobIDs;
+
+	CreatedOrder(int orderID, boolean newOrder, List<Integer> orderedItemIDs, List<Long> printJobIDs)
+	{
+		this.orderID = orderID;
+		this.newOrder = newOrder;
+		this.orderedItemIDs = orderedItemIDs;
+		this.printJobIDs = printJobIDs;
+	}
+
+	/**
+	 * @return Die ID der offenen Bestellung des Tisches, zu der die Artikel hinzugefügt wurden.
+	 */
+	public int getOrderID()
+	{
+		return orderID;
+	}
+
+	/**
+	 * @return Ob die Bestellung neu angelegt wurde, oder ob der Tisch bereits eine offene Bestellung hatte.
+	 */
+	public boolean isNewOrder()
+	{
+		return newOrder;
+	}
+
+	/**
+	 * @return Die orderedItemIDs in der Reihenfolge der übergebenen Artikel.
+	 */
+	public List<Integer> getOrderedItemIDs()
+	{
+		return orderedItemIDs;
+	}
+
+	/**
+	 * @return Die IDs der Druckaufträge der Küchenbelege, deren Status über ".../api/printJob/{jobID}" abgefragt
+	 * werden kann.
+	 */
+	public List<Long> getPrintJobIDs()
+	{
+		return printJobIDs;
+	}
+}
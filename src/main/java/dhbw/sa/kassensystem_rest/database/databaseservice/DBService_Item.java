@@ -8,7 +8,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Klasse mit Methoden zum Einsehen und Bearbeiten der Item-Tabelle.
@@ -17,18 +23,20 @@ import java.util.ArrayList;
  */
 class DBService_Item
 {
+	private static final String selectAllAttributs = "SELECT itemID, name, retailprice, available " +
+			"FROM " + DatabaseProperties.getDatabase() + ".items ";
+
 	static ArrayList<Item> getAllItems(Connection connection, boolean onlyAvailable)
 	{
 		ArrayList<Item> items = new ArrayList<>();
 
-		try {
-			String query = "SELECT itemID, name, retailprice, available " +
-					"FROM " + DatabaseProperties.getDatabase() + ".items";
-			if(onlyAvailable)
-				query += " WHERE available = TRUE";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs;
+		if(onlyAvailable)
+			query += "WHERE available = TRUE";
 
+		try(PreparedStatement pst = connection.prepareStatement(query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
 				//get each Item from DB
 				int itemID = rs.getInt("itemID");
@@ -44,124 +52,210 @@ class DBService_Item
 			return items;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static Item getItemByID(Connection connection, int itemID)
 	{
-		try {
-			String query = "SELECT itemID, name, retailprice, available " +
-					"FROM " + DatabaseProperties.getDatabase() + ".items " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			while(rs.next()) {
-				itemID = rs.getInt("itemID");
-				String name = rs.getString("name");
-				double retailprice = rs.getFloat("retailprice");
-				retailprice = DatabaseService.round(retailprice);
-
-				int quantity = getItemQuantity(connection, itemID);
+		String query = selectAllAttributs +
+				"WHERE itemID = ?";
 
-				boolean available = rs.getBoolean("available");
-				return new Item(itemID, name, retailprice, quantity, available);
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					itemID = rs.getInt("itemID");
+					String name = rs.getString("name");
+					double retailprice = rs.getFloat("retailprice");
+					retailprice = DatabaseService.round(retailprice);
+
+					int quantity = getItemQuantity(connection, itemID);
+
+					boolean available = rs.getBoolean("available");
+					return new Item(itemID, name, retailprice, quantity, available);
+				}
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return null;
 	}
 
-	static float getRetailprice(Connection connection, int itemID)
+	/**
+	 * Lädt mehrere Artikel mit einer einzigen Abfrage. Die Platzhalter werden mit der letzten itemID auf eine
+	 * Zweierpotenz aufgefüllt, damit nur wenige unterschiedliche SQL-Texte entstehen.
+	 * @param itemIDs Die IDs der Artikel, höchstens {@link ChangeLog#MAX_CHANGED_IDS}.
+	 * @return Die gefundenen Artikel, nicht existierende IDs fehlen.
+	 */
+	static ArrayList<Item> getItemsByIDs(Connection connection, List<Integer> itemIDs)
 	{
-		try
+		ArrayList<Item> items = new ArrayList<>();
+		if(itemIDs.isEmpty())
+			return items;
+
+		int placeholders = Math.max(1, Integer.highestOneBit(itemIDs.size() - 1) << 1);
+		String query = selectAllAttributs +
+				"WHERE itemID IN (" + DatabaseService.getPlaceholders(placeholders) + ")";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
 		{
-			String query = "SELECT retailprice " +
-					"FROM " + DatabaseProperties.getDatabase() + ".items " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+			for(int i = 0; i < placeholders; i++)
+				pst.setInt(i + 1, itemIDs.get(Math.min(i, itemIDs.size() - 1)));
+
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					int itemID = rs.getInt("itemID");
+					String name = rs.getString("name");
+					double retailprice = DatabaseService.round(rs.getFloat("retailprice"));
+					int quantity = getItemQuantity(connection, itemID);
+					boolean available = rs.getBoolean("available");
+					items.add(new Item(itemID, name, retailprice, quantity, available));
+				}
+			}
+			return items;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
 
+	/**
+	 * Lädt alle Artikel der Speisekarte ohne deren Anzahl mit einer einzigen Abfrage.
+	 * @return Die Artikel nach ihrer ID.
+	 */
+	static Map<Integer, Item> getItemCatalog(Connection connection)
+	{
+		Map<Integer, Item> items = new HashMap<>();
+
+		try(PreparedStatement pst = connection.prepareStatement(selectAllAttributs);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
-				return rs.getFloat("retailprice");
+				Item item = getCatalogItem(rs);
+				items.put(item.getItemID(), item);
 			}
-		} catch (SQLException e)
+			return items;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Lädt einen Artikel der Speisekarte ohne dessen Anzahl.
+	 * @param itemID ID des Artikels.
+	 * @return Den Artikel, null wenn kein Artikel mit der ID existiert.
+	 */
+	static Item getCatalogItemByID(Connection connection, int itemID)
+	{
+		String query = selectAllAttributs +
+				"WHERE itemID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
 		{
+			pst.setInt(1, itemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next())
+					return getCatalogItem(rs);
+			}
+		} catch (SQLException e) {
 			e.printStackTrace();
+			throw new MySQLServerConnectionException();
 		}
-		return 0;
+		return null;
 	}
 
-	static void addItem(Connection connection, Item item)
+	private static Item getCatalogItem(ResultSet rs) throws SQLException
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".items(itemID, name, retailprice, available) " +
-					"VALUES(DEFAULT, ?, ?, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		int itemID = rs.getInt("itemID");
+		String name = rs.getString("name");
+		double retailprice = DatabaseService.round(rs.getFloat("retailprice"));
+		boolean available = rs.getBoolean("available");
+		return new Item(itemID, name, retailprice, available);
+	}
+
+	/**
+	 * Fügt einen Artikel und seinen ersten Wareneingang hinzu.
+	 * @return Die von der Datenbank vergebene itemID.
+	 */
+	static int addItem(Connection connection, Item item)
+	{
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".items(itemID, name, retailprice, available) " +
+				"VALUES(DEFAULT, ?, ?, ?)";
 
+		int itemID = 0;
+		try(PreparedStatement pst = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+		{
 			pst.setString(1, item.getName());
 			pst.setDouble(2, item.getRetailprice());
 			pst.setBoolean(3, item.isAvailable());
 			pst.executeUpdate();
 
 			//ID des neu erzeugten Items ermitteln, um anschließend hierfuer einen neuen Wareneingang anzulegen
-			query = "SELECT * FROM " + DatabaseProperties.getDatabase() +
-					".items ORDER BY itemID DESC LIMIT 1";
-			pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			int itemID = 0;
-			while(rs.next()) {
-				itemID = rs.getInt("itemID");
+			try(ResultSet rs = pst.getGeneratedKeys())
+			{
+				while(rs.next()) {
+					itemID = rs.getInt(1);
+				}
 			}
-
-			DBService_Itemdelivery.addItemdelivery(connection, new Itemdelivery(itemID, item.getQuantity()));
-
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
+
+		DBService_Itemdelivery.addItemdelivery(connection, new Itemdelivery(itemID, item.getQuantity()));
+		return itemID;
 	}
 
 	static void updateItem(Connection connection, Item item, int itemID)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".items " +
-					"SET name = ?, retailprice = ?, available = ? " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".items " +
+				"SET name = ?, retailprice = ?, available = ? " +
+				"WHERE itemID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setString(1, item.getName());
 			pst.setDouble(2, item.getRetailprice());
 			pst.setBoolean(3, item.isAvailable());
+			pst.setInt(4, itemID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
-	static boolean existsItemWithID(Connection connection, int itemID)
+	/**
+	 * Ermittelt, welche von mehreren itemIDs existieren.
+	 * @return Die existierenden itemIDs.
+	 */
+	static Set<Integer> getExistingItemIDs(Connection connection, Collection<Integer> itemIDs)
 	{
-		try {
-			String query = "SELECT itemID from " + DatabaseProperties.getDatabase() + ".items " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		return DBService_OrderedItem.getExistingIDs(connection, "items", "itemID", itemIDs);
+	}
 
-			if(rs.next() && rs.getInt("itemID") != 0)
-				return true;
+	static boolean existsItemWithID(Connection connection, int itemID)
+	{
+		String query = "SELECT itemID from " + DatabaseProperties.getDatabase() + ".items " +
+				"WHERE itemID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("itemID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
@@ -177,40 +271,42 @@ class DBService_Item
 		//Ermitteln der Wareneingänge
 		int itemDeliveries = 0;
 
-		try {
-			String query = "SELECT quantity AS \"Quantity of Itemdeliveries\"" +
-					"FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = "SELECT quantity AS \"Quantity of Itemdeliveries\"" +
+				"FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
+				"WHERE itemID = ?";
 
-			while(rs.next()) {
-				itemDeliveries += rs.getInt("Quantity of Itemdeliveries");
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					itemDeliveries += rs.getInt("Quantity of Itemdeliveries");
+				}
 			}
-
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 
 		//Ermitteln der Warenausgänge
 		int itemOrders = 0;
 
-		try {
-			String query = "SELECT COUNT(*) AS \"Quantity of Orders\"" +
-					"FROM " + DatabaseProperties.getDatabase() + ".ordereditems " +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		query = "SELECT COUNT(*) AS \"Quantity of Orders\"" +
+				"FROM " + DatabaseProperties.getDatabase() + ".ordereditems " +
+				"WHERE itemID = ?";
 
-			while(rs.next()) {
-				itemOrders = rs.getInt("Quantity of Orders");
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					itemOrders = rs.getInt("Quantity of Orders");
+				}
 			}
-
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 
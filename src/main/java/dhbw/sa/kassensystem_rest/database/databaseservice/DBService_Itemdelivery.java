@@ -8,6 +8,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
 /**
  * Klasse mit Methoden zum Einsehen und Bearbeiten der Itemdelivery-Tabelle.
@@ -16,16 +17,16 @@ import java.util.ArrayList;
  */
 class DBService_Itemdelivery
 {
+	private static final String selectAllAttributs = "SELECT itemdeliveryID, itemID, quantity " +
+			"FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries ";
+
 	static ArrayList<Itemdelivery> getAllItemdeliveries(Connection connection)
 	{
 		ArrayList<Itemdelivery> itemdeliveries = new ArrayList<>();
 
-		try {
-			String query = "SELECT itemdeliveryID, itemID, quantity " +
-					"FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
+		try(PreparedStatement pst = connection.prepareStatement(selectAllAttributs);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
 				//get each Itemdelivery from DB
 				int itemdeliveryID = rs.getInt("itemdeliveryID");
@@ -36,101 +37,125 @@ class DBService_Itemdelivery
 			return itemdeliveries;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
-	static Itemdelivery getItemdeliveryByID(Connection connection, int itemdeliveryID)
+	/**
+	 * Liest alle Wareneingänge zeilenweise und übergibt jeden direkt nach dem Lesen, ohne sie zu sammeln.
+	 * @param consumer Verarbeitet die Wareneingänge in der Reihenfolge der itemdeliveryID.
+	 */
+	static void streamAllItemdeliveries(Connection connection, Consumer<Itemdelivery> consumer)
 	{
-		Itemdelivery itemdelivery = null;
-		try {
-			String query = "SELECT itemdeliveryID, itemID, quantity " +
-					"FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
-					"WHERE itemdeliveryID = " + itemdeliveryID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs + "ORDER BY itemdeliveryID";
 
+		try(PreparedStatement pst = DatabaseService.prepareStreamingStatement(connection, query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
-				//get each table from DB
-				itemdeliveryID = rs.getInt("itemdeliveryID");
+				int itemdeliveryID = rs.getInt("itemdeliveryID");
 				int itemID = rs.getInt("itemID");
-				int quantity = rs.getInt("quantit");
+				int quantity = rs.getInt("quantity");
+				consumer.accept(new Itemdelivery(itemdeliveryID, itemID, quantity));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
 
-				itemdelivery = new Itemdelivery(itemdeliveryID, itemID, quantity);
+	static Itemdelivery getItemdeliveryByID(Connection connection, int itemdeliveryID)
+	{
+		Itemdelivery itemdelivery = null;
+
+		String query = selectAllAttributs +
+				"WHERE itemdeliveryID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemdeliveryID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					//get each table from DB
+					itemdeliveryID = rs.getInt("itemdeliveryID");
+					int itemID = rs.getInt("itemID");
+					int quantity = rs.getInt("quantity");
+
+					itemdelivery = new Itemdelivery(itemdeliveryID, itemID, quantity);
+				}
 			}
 			return itemdelivery;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void addItemdelivery(Connection connection, Itemdelivery itemdelivery)
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".itemdeliveries(itemdeliveryID, itemID, quantity) " +
-					"VALUES(DEFAULT, ?, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".itemdeliveries(itemdeliveryID, itemID, quantity) " +
+				"VALUES(DEFAULT, ?, ?)";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setInt(1, itemdelivery.getItemID());
 			pst.setInt(2, itemdelivery.getQuantity());
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void deleteItemdelivery(Connection connection, int itemdeliveryID)
 	{
-		try {
-			String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
-					"WHERE itemdeliveryID = " + itemdeliveryID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
+				"WHERE itemdeliveryID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemdeliveryID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void updateItemdelivery(Connection connection, Itemdelivery itemdelivery, int itemdeliveryID)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
-					"SET itemID = ?, quantity = ? " +
-					"WHERE itemdeliveryID = " + itemdeliveryID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
+				"SET itemID = ?, quantity = ? " +
+				"WHERE itemdeliveryID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setInt(1, itemdelivery.getItemID());
 			pst.setInt(2, itemdelivery.getQuantity());
+			pst.setInt(3, itemdeliveryID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static boolean existsItemdeliveryWithID(Connection connection, int itemdeliveryID)
 	{
-		try {
-			String query = "SELECT itemdeliveryID from " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
-					"WHERE itemdeliveryID = " + itemdeliveryID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			if(rs.next() && rs.getInt("itemdeliveryID") != 0)
-				return true;
-
+		String query = "SELECT itemdeliveryID from " + DatabaseProperties.getDatabase() + ".itemdeliveries " +
+				"WHERE itemdeliveryID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemdeliveryID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("itemdeliveryID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
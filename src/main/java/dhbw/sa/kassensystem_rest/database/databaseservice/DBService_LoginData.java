@@ -1,9 +1,7 @@
 package dhbw.sa.kassensystem_rest.database.databaseservice;
 
 import dhbw.sa.kassensystem_rest.database.entity.Logindata;
-import dhbw.sa.kassensystem_rest.database.entity.Waiter;
 import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
-import dhbw.sa.kassensystem_rest.exceptions.NotAuthentificatedException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -22,12 +20,12 @@ public class DBService_LoginData
 	{
 		ArrayList<Logindata> logindata = new ArrayList<>();
 
-		try{
-			String query = "SELECT waiterID, loginname, passwordhash " +
-					"FROM " + DatabaseProperties.getDatabase() + ".logindata";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = "SELECT waiterID, loginname, passwordhash " +
+				"FROM " + DatabaseProperties.getDatabase() + ".logindata";
 
+		try(PreparedStatement pst = connection.prepareStatement(query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
 				int waiterID = rs.getInt("waiterID");
 				String loginname = rs.getString("loginname");
@@ -39,89 +37,96 @@ public class DBService_LoginData
 		} catch(SQLException e)
 		{
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
-	static boolean authentificate(Connection connection, String loginname, String passwordHash)
-			throws NotAuthentificatedException
+	/**
+	 * Lädt die Logindaten zu einem Loginnamen zusammen mit dem Beschäftigungsstatus der Bedienung
+	 * in einer einzigen Abfrage.
+	 * @param loginname Der Loginname.
+	 * @return Die Logindaten, null wenn der Loginname nicht existiert.
+	 */
+	static AuthCache.Credentials getCredentials(Connection connection, String loginname)
 	{
-		try
-		{
-			String query = "SELECT passwordhash,  waiterID " +
-					"FROM " + DatabaseProperties.getDatabase() + ".logindata " +
-					"WHERE loginname = '" + loginname + "'";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = "SELECT logindata.passwordhash, logindata.waiterID, waiters.employed " +
+				"FROM " + DatabaseProperties.getDatabase() + ".logindata " +
+				"LEFT JOIN " + DatabaseProperties.getDatabase() + ".waiters " +
+				"ON waiters.waiterID = logindata.waiterID " +
+				"WHERE logindata.loginname = ?";
 
-			while(rs.next())
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setString(1, loginname);
+			try(ResultSet rs = pst.executeQuery())
 			{
-				String dbPasswordHash = rs.getString("passwordhash");
-				int waiterID = rs.getInt("waiterID");
-				Waiter waiter = DBService_Waiter.getWaiterByID(connection, waiterID);
-				if(dbPasswordHash.equals(passwordHash) && (waiter != null && waiter.isEmployed()))
-					return true;
+				if(rs.next())
+				{
+					String passwordHash = rs.getString("passwordhash");
+					int waiterID = rs.getInt("waiterID");
+					boolean employed = rs.getBoolean("employed");
+					return new AuthCache.Credentials(passwordHash, waiterID, employed);
+				}
 			}
-		} catch (Exception e)
-		{
+		} catch(SQLException e) {
 			e.printStackTrace();
+			throw new MySQLServerConnectionException();
 		}
-		throw new NotAuthentificatedException("Login fehlgeschlagen!");
+		return null;
 	}
 
 	static void addLogindata(Connection connection, Logindata logindata)
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
-					".logindata(waiterID, loginname, passwordhash) " +
-					"VALUES(?, ?, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
+				".logindata(waiterID, loginname, passwordhash) " +
+				"VALUES(?, ?, ?)";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setInt(1, logindata.getWaiterID());
 			pst.setString(2, logindata.getLoginname());
 			pst.setString(3, logindata.getPasswordHash());
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void updateLogindata(Connection connection, Logindata logindata)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".logindata " +
-					"SET waiterID = ?, loginname = ?, passwordhash = ? " +
-					"WHERE waiterID = " + logindata.getWaiterID();
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".logindata " +
+				"SET waiterID = ?, loginname = ?, passwordhash = ? " +
+				"WHERE waiterID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setInt(1, logindata.getWaiterID());
 			pst.setString(2, logindata.getLoginname());
 			pst.setString(3, logindata.getPasswordHash());
+			pst.setInt(4, logindata.getWaiterID());
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static boolean existsLogindataWithWaiterID(Connection connection, int waiterID)
 	{
-		try {
-			String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".logindata " +
-					"WHERE waiterID = " + waiterID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			if(rs.next() && rs.getInt("waiterID") != 0)
-				return true;
+		String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".logindata " +
+				"WHERE waiterID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, waiterID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("waiterID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
@@ -129,19 +134,21 @@ public class DBService_LoginData
 
 	static boolean existsLogindataWithLoginname(Connection connection, String loginname)
 	{
-		try {
-			String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".logindata " +
-					"WHERE loginname = '" + loginname + "'";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".logindata " +
+				"WHERE loginname = ?";
 
-			if(rs.next())
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setString(1, loginname);
+			try(ResultSet rs = pst.executeQuery())
 			{
-				return true;
+				if(rs.next())
+				{
+					return true;
+				}
 			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
@@ -149,38 +156,16 @@ public class DBService_LoginData
 
 	static void deleteLogindata(Connection connection, int waiterID)
 	{
-		try {
-			String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".logindata " +
-					"WHERE waiterID = " + waiterID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".logindata " +
+				"WHERE waiterID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, waiterID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
-
-	static int getWaiterIdByLogindata(Connection connection, String loginname, String passwordhash)
-	{
-		try
-		{
-			String query = "SELECT waiterID " +
-					"FROM " + DatabaseProperties.getDatabase() + ".logindata " +
-					"WHERE loginname = '" + loginname + "' " +
-					"AND  passwordhash = '" + passwordhash + "'";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			while(rs.next())
-			{
-				return rs.getInt("waiterID");
-			}
-		} catch (Exception e)
-		{
-			e.printStackTrace();
-		}
-		throw new NotAuthentificatedException("Mit den Logindaten scheint keine Bedienung zu existieren!");
-	}
 }
@@ -8,7 +8,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService.convertJodaDateTimeToSqlTimestamp;
 
@@ -19,119 +27,278 @@ import static dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService
  */
 class DBService_Order
 {
+	// Maximale Anzahl von orderIDs in einer Preisabfrage. Kleinere Blöcke werden auf die nächste Zweierpotenz
+	// aufgefüllt, damit nur wenige unterschiedliche SQL-Texte entstehen, die im Statement-Cache wiederverwendet werden.
+	private static final int PRICE_BATCH_SIZE = 512;
+
+	/*
+	 * Ermittelt Bestellungen inklusive Preis und Bezahlstatus in einer einzigen Abfrage.
+	 * Eine Bestellung gilt als bezahlt, wenn alle bestellten Artikel bezahlt sind. Bestellungen ohne
+	 * bestellte Artikel haben den Preis 0 und gelten als bezahlt.
+	 */
+	private static final String selectOrdersWithPriceAndPaid =
+			"SELECT orders.orderID, orders.date, orders.tableID, orders.waiterID, " +
+			"COALESCE(SUM(items.retailprice), 0) AS price, " +
+			"COALESCE(MIN(orderedItems.itemPaid), TRUE) AS paid " +
+			"FROM " + DatabaseProperties.getDatabase() + ".orders " +
+			"LEFT JOIN " + DatabaseProperties.getDatabase() + ".orderedItems " +
+			"ON orderedItems.orderID = orders.orderID " +
+			"LEFT JOIN " + DatabaseProperties.getDatabase() + ".items " +
+			"ON items.itemID = orderedItems.itemID ";
+	private static final String groupByOrder =
+			"GROUP BY orders.orderID, orders.date, orders.tableID, orders.waiterID";
+
 	static ArrayList<Order> getAllOrders(Connection connection)
 	{
 		ArrayList<Order> orders = new ArrayList<>();
 
-		try {
-			String query = "SELECT orderID, date, tableID, waiterID " +
-					"FROM " + DatabaseProperties.getDatabase() + ".orders";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectOrdersWithPriceAndPaid + groupByOrder;
 
+		try(PreparedStatement pst = connection.prepareStatement(query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
-				int orderID = rs.getInt("orderID");
-				int tableID = rs.getInt("tableID");
-				int waiterID = rs.getInt("waiterID");
-				double price = DBService_Order.getPrice(connection, orderID);
-				price = DatabaseService.round(price);
-				DateTime dateTime = DatabaseService.convertSqlTimestampToJodaDateTime(rs.getTimestamp("date"));
-				boolean paid = isOrderPaid(connection, orderID);
-
-				orders.add(new Order(orderID, tableID, price, dateTime, paid, waiterID));
+				orders.add(getOrder(rs));
 			}
 			return orders;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
-	static Order getOrderByID(Connection connection, int orderID)
+	/**
+	 * Liest alle Bestellungen zeilenweise und übergibt jede direkt nach dem Lesen, ohne sie zu sammeln.
+	 * @param consumer Verarbeitet die Bestellungen in der Reihenfolge der orderID.
+	 */
+	static void streamAllOrders(Connection connection, Consumer<Order> consumer)
 	{
-		try {
-			String query = "SELECT orderID, date, tableID, waiterID " +
-					"FROM " + DatabaseProperties.getDatabase() + ".orders " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectOrdersWithPriceAndPaid + groupByOrder + " ORDER BY orders.orderID";
 
+		try(PreparedStatement pst = DatabaseService.prepareStreamingStatement(connection, query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
-				orderID = rs.getInt("orderID");
-				int tableID = rs.getInt("tableID");
-				int waiterID = rs.getInt("waiterID");
-				double price = DBService_Order.getPrice(connection, orderID);
-				price = DatabaseService.round(price);
-				DateTime dateTime = DatabaseService.convertSqlTimestampToJodaDateTime(rs.getTimestamp("date"));
-				boolean paid = isOrderPaid(connection, orderID);
-
-				return new Order(orderID, tableID, price, dateTime, paid, waiterID);
+				consumer.accept(getOrder(rs));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	static Order getOrderByID(Connection connection, int orderID)
+	{
+		String query = selectOrdersWithPriceAndPaid +
+				"WHERE orders.orderID = ? " +
+				groupByOrder;
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					return getOrder(rs);
+				}
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return null;
 	}
 
-	static int addOrder(Connection connection, Order order)
+	/**
+	 * Lädt eine Seite von Bestellungen inklusive Preis und Bezahlstatus, sortiert nach orderID.
+	 * Die Kriterien des Filters werden in die Abfrage übernommen, der Bezahlstatus über HAVING, da er erst durch
+	 * die Gruppierung entsteht.
+	 * @param afterOrderID Die letzte orderID der vorherigen Seite, 0 für die erste Seite.
+	 * @param limit Die maximale Anzahl der Bestellungen.
+	 */
+	static ArrayList<Order> getOrders(Connection connection, OrderFilter filter, int afterOrderID, int limit)
 	{
-		// Ermitteln ob für den Tisch der Order bereits eine order in der DB existiert
-		int orderID = getOrderWithTableID(connection, order.getTable());
+		ArrayList<Order> orders = new ArrayList<>();
 
-		if (orderID == 0)
+		StringBuilder query = new StringBuilder(selectOrdersWithPriceAndPaid)
+				.append("WHERE orders.orderID > ? ");
+		if(filter.getTableID() != null)
+			query.append("AND orders.tableID = ? ");
+		if(filter.getWaiterID() != null)
+			query.append("AND orders.waiterID = ? ");
+		if(filter.getFrom() != null)
+			query.append("AND orders.date >= ? ");
+		if(filter.getTo() != null)
+			query.append("AND orders.date < ? ");
+		query.append(groupByOrder).append(" ");
+		if(filter.getOpen() != null)
+			query.append("HAVING paid = ? ");
+		query.append("ORDER BY orders.orderID LIMIT ?");
+
+		try(PreparedStatement pst = connection.prepareStatement(query.toString()))
 		{
-			try {
-				String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
-						".orders(orderID, date, tableID, waiterID)" +
-						"VALUES(DEFAULT, ?, ?, ?)";
-				PreparedStatement pst = connection.prepareStatement(query);
+			int parameter = 1;
+			pst.setInt(parameter++, afterOrderID);
+			if(filter.getTableID() != null)
+				pst.setInt(parameter++, filter.getTableID());
+			if(filter.getWaiterID() != null)
+				pst.setInt(parameter++, filter.getWaiterID());
+			if(filter.getFrom() != null)
+				pst.setObject(parameter++, convertJodaDateTimeToSqlTimestamp(filter.getFrom()));
+			if(filter.getTo() != null)
+				pst.setObject(parameter++, convertJodaDateTimeToSqlTimestamp(filter.getTo()));
+			if(filter.getOpen() != null)
+				pst.setBoolean(parameter++, !filter.getOpen());
+			pst.setInt(parameter, limit);
+
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					orders.add(getOrder(rs));
+				}
+			}
+			return orders;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
 
-				pst.setObject(1, convertJodaDateTimeToSqlTimestamp(order.getDate()) );
-				pst.setInt(2, order.getTable());
-				pst.setInt(3, order.getWaiterID());
-				pst.executeUpdate();
+	/**
+	 * Lädt mehrere Bestellungen inklusive Preis und Bezahlstatus mit einer einzigen Abfrage. Die Platzhalter werden
+	 * mit der letzten orderID auf eine Zweierpotenz aufgefüllt, damit nur wenige unterschiedliche SQL-Texte
+	 * entstehen.
+	 * @param orderIDs Die IDs der Bestellungen, höchstens {@link ChangeLog#MAX_CHANGED_IDS}.
+	 * @return Die gefundenen Bestellungen, nicht existierende IDs fehlen.
+	 */
+	static ArrayList<Order> getOrdersByIDs(Connection connection, List<Integer> orderIDs)
+	{
+		ArrayList<Order> orders = new ArrayList<>();
+		if(orderIDs.isEmpty())
+			return orders;
 
-				//Ermitteln der nun belegten orderID
+		int placeholders = Math.max(1, Integer.highestOneBit(orderIDs.size() - 1) << 1);
+		String query = selectOrdersWithPriceAndPaid +
+				"WHERE orders.orderID IN (" + DatabaseService.getPlaceholders(placeholders) + ") " +
+				groupByOrder;
 
-				query = "SELECT * FROM " + DatabaseProperties.getDatabase() +
-						".orders ORDER BY orderID DESC LIMIT 1";
-				pst = connection.prepareStatement(query);
-				ResultSet rs = pst.executeQuery();
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			for(int i = 0; i < placeholders; i++)
+				pst.setInt(i + 1, orderIDs.get(Math.min(i, orderIDs.size() - 1)));
 
+			try(ResultSet rs = pst.executeQuery())
+			{
 				while(rs.next()) {
-					return rs.getInt("orderID");
+					orders.add(getOrder(rs));
 				}
-
-			} catch(SQLException e) {
-				e.printStackTrace();
-				DatabaseService_Interface.connect();
-				throw new MySQLServerConnectionException();
 			}
+			return orders;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
 		}
+	}
+
+	/**
+	 * Erzeugt eine {@link Order} aus der aktuellen Zeile einer Abfrage mit {@link #selectOrdersWithPriceAndPaid}.
+	 */
+	private static Order getOrder(ResultSet rs) throws SQLException
+	{
+		int orderID = rs.getInt("orderID");
+		int tableID = rs.getInt("tableID");
+		int waiterID = rs.getInt("waiterID");
+		double price = DatabaseService.round(rs.getFloat("price"));
+		DateTime dateTime = DatabaseService.convertSqlTimestampToJodaDateTime(rs.getTimestamp("date"));
+		boolean paid = rs.getBoolean("paid");
+
+		return new Order(orderID, tableID, price, dateTime, paid, waiterID);
+	}
+
+	static int addOrder(Connection connection, Order order)
+	{
+		// Ermitteln ob für den Tisch der Order bereits eine offene order in der DB existiert
+		Order openOrder = getOpenOrderOfTable(connection, order.getTable());
+
+		if (openOrder == null)
+			return insertOrder(connection, order);
 		else
-			return orderID;
+			return openOrder.getOrderID();
+	}
+
+	/**
+	 * Fügt eine Bestellung hinzu, ohne nach einer offenen Bestellung des Tisches zu suchen.
+	 * @return Die von der Datenbank vergebene orderID.
+	 */
+	static int insertOrder(Connection connection, Order order)
+	{
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
+				".orders(orderID, date, tableID, waiterID)" +
+				"VALUES(DEFAULT, ?, ?, ?)";
+
+		try(PreparedStatement pst = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+		{
+			pst.setObject(1, convertJodaDateTimeToSqlTimestamp(order.getDate()) );
+			pst.setInt(2, order.getTable());
+			pst.setInt(3, order.getWaiterID());
+			pst.executeUpdate();
 
+			//Ermitteln der nun belegten orderID
+			try(ResultSet rs = pst.getGeneratedKeys())
+			{
+				while(rs.next()) {
+					return rs.getInt(1);
+				}
+			}
+		} catch(SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
 		return 0;
 	}
 
+	/**
+	 * Ermittelt die offene Bestellung eines Tisches mit einer einzigen Abfrage, statt jede Bestellung des Tisches
+	 * einzeln auf unbezahlte Artikel zu prüfen.
+	 * @return Die neueste Bestellung des Tisches mit unbezahlten Artikeln, null wenn der Tisch frei ist.
+	 */
+	static Order getOpenOrderOfTable(Connection connection, int tableID)
+	{
+		String query = selectOrdersWithPriceAndPaid +
+				"WHERE orders.tableID = ? " +
+				groupByOrder + " HAVING paid = FALSE " +
+				"ORDER BY orders.orderID DESC LIMIT 1";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, tableID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next())
+					return getOrder(rs);
+			}
+			return null;
+		} catch(SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
 	static void updateOrder(Connection connection, Order order, int orderID)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".orders " +
-					"SET date = ?, tableID = ?, waiterID = ? " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".orders " +
+				"SET date = ?, tableID = ?, waiterID = ? " +
+				"WHERE orderID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setObject(1, convertJodaDateTimeToSqlTimestamp(order.getDate()) );
 			pst.setInt(2, order.getTable());
 			pst.setInt(3, order.getWaiterID());
+			pst.setInt(4, orderID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
@@ -141,109 +308,99 @@ class DBService_Order
 		/*
           Loeschen einer Order loescht diese unwiederruflich aus der Datenbank.
          */
-		try {
-			String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orders " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orders " +
+				"WHERE orderID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 
 		DBService_OrderedItem.deleteOrderedItemByOrderId(connection, orderID);
 	}
 
-	private static boolean isOrderPaid(Connection connection, int orderID)
+	static float getPrice(Connection connection, int orderID)
 	{
-		try {
-			String query = "SELECT itemPaid from " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			while(rs.next())
-			{
-				if(!rs.getBoolean("itemPaid"))
-					return false;
-			}
-			return true;
-		} catch(SQLException e) {
-			e.printStackTrace();
-			DatabaseService_Interface.connect();
-			throw new MySQLServerConnectionException();
-		}
+		return getPrices(connection, Collections.singletonList(orderID)).get(orderID);
 	}
 
-	static float getPrice(Connection connection, int orderID)
+	/**
+	 * Berechnet die Preise mehrerer Bestellungen. Für jede Bestellung werden die Verkaufspreise der
+	 * bestellten Artikel in der Datenbank aufsummiert, sodass für beliebig viele Bestellungen nur eine
+	 * Abfrage je Block von {@link #PRICE_BATCH_SIZE} orderIDs notwendig ist. Die Platzhalter eines Blocks werden
+	 * mit der letzten orderID auf eine Zweierpotenz aufgefüllt.
+	 * @param orderIDs Die IDs der Bestellungen, deren Preise ermittelt werden sollen.
+	 * @return Den Preis je orderID. Bestellungen ohne bestellte Artikel haben den Preis 0.
+	 */
+	static Map<Integer, Float> getPrices(Connection connection, Collection<Integer> orderIDs)
 	{
-		try {
-			// Ermitteln aller itemIDs die zu einer orderID gehören
-			String query = "SELECT itemID " +
-					"FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		Map<Integer, Float> prices = new HashMap<>();
+		for(int orderID: orderIDs)
+			prices.put(orderID, 0f);
 
-			float price = 0;
-			int itemID;
+		ArrayList<Integer> ids = new ArrayList<>(prices.keySet());
+		for(int from = 0; from < ids.size(); from += PRICE_BATCH_SIZE)
+		{
+			List<Integer> batch = ids.subList(from, Math.min(from + PRICE_BATCH_SIZE, ids.size()));
+			int placeholders = Math.max(1, Integer.highestOneBit(batch.size() - 1) << 1);
 
-			while(rs.next())
-			{
-				itemID = rs.getInt("itemID");
+			String query = "SELECT orderedItems.orderID, SUM(items.retailprice) AS price " +
+					"FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
+					"JOIN " + DatabaseProperties.getDatabase() + ".items " +
+					"ON items.itemID = orderedItems.itemID " +
+					"WHERE orderedItems.orderID IN (" + DatabaseService.getPlaceholders(placeholders) + ") " +
+					"GROUP BY orderedItems.orderID";
 
-				price += DBService_Item.getRetailprice(connection, itemID);
+			try(PreparedStatement pst = connection.prepareStatement(query))
+			{
+				for(int i = 0; i < placeholders; i++)
+					pst.setInt(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+
+				try(ResultSet rs = pst.executeQuery())
+				{
+					while(rs.next())
+					{
+						prices.put(rs.getInt("orderID"), rs.getFloat("price"));
+					}
+				}
+			} catch(SQLException e) {
+				e.printStackTrace();
+				throw new MySQLServerConnectionException();
 			}
-			return price;
-		} catch(SQLException e) {
-			e.printStackTrace();
-			DatabaseService_Interface.connect();
-			throw new MySQLServerConnectionException();
 		}
+		return prices;
 	}
 
-	public static boolean existsOrderWithID(Connection connection, int orderID)
+	/**
+	 * Ermittelt, welche von mehreren orderIDs existieren.
+	 * @return Die existierenden orderIDs.
+	 */
+	static Set<Integer> getExistingOrderIDs(Connection connection, Collection<Integer> orderIDs)
 	{
-		try {
-			String query = "SELECT orderID from " + DatabaseProperties.getDatabase() + ".orders " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			if(rs.next() && rs.getInt("orderID") != 0)
-				return true;
-
-		} catch(SQLException e) {
-			e.printStackTrace();
-			DatabaseService_Interface.connect();
-			throw new MySQLServerConnectionException();
-		}
-		return false;
+		return DBService_OrderedItem.getExistingIDs(connection, "orders", "orderID", orderIDs);
 	}
 
-	private static int getOrderWithTableID(Connection connection, int tableID)
+	public static boolean existsOrderWithID(Connection connection, int orderID)
 	{
-		try {
-			String query = "SELECT orderID from " + DatabaseProperties.getDatabase() + ".orders " +
-					"WHERE tableID = " + tableID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = "SELECT orderID from " + DatabaseProperties.getDatabase() + ".orders " +
+				"WHERE orderID = ?";
 
-			if(rs.next())
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderID);
+			try(ResultSet rs = pst.executeQuery())
 			{
-				int orderID = rs.getInt("orderID");
-
-				if(!DBService_Order.isOrderPaid(connection, orderID) && orderID != 0)
-					return rs.getInt("orderID");
+				if(rs.next() && rs.getInt("orderID") != 0)
+					return true;
 			}
-
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
-		return 0;
+		return false;
 	}
 }
\ No newline at end of file
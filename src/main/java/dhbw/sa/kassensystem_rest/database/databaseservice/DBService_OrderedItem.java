@@ -7,7 +7,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Klasse mit Methoden zum Einsehen und Bearbeiten der OrderedItem-Tabelle.
@@ -16,242 +25,518 @@ import java.util.ArrayList;
  */
 public class DBService_OrderedItem
 {
+	// Maximale Anzahl von orderedItemIDs in einer Abfrage. Kleinere Blöcke werden auf die nächste Zweierpotenz
+	// aufgefüllt, damit nur wenige unterschiedliche SQL-Texte entstehen.
+	private static final int ID_BATCH_SIZE = 512;
+
 	private static final String selectAllAttributs =
 			"SELECT orderedItemID, orderID, itemID, itemPaid, itemProduced, comment " +
 			"FROM " + DatabaseProperties.getDatabase() + ".ordereditems ";
 
 	static ArrayList<OrderedItem> getAllOrderedItems(Connection connection, boolean onlyUnproduced)
 	{
-		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		String query = selectAllAttributs;
+		if(onlyUnproduced)
+			query += "WHERE itemProduced = FALSE";
 
-		try {
-			String query = selectAllAttributs;
-			if(onlyUnproduced)
-				query += "WHERE itemProduced = FALSE";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			return getOrderedItems(pst);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
 
-			while(rs.next()) {
-				//get each orderedItem from DB
-				int orderedItemID = rs.getInt("orderedItemID");
-				int orderID = rs.getInt("orderID");
-				int itemID = rs.getInt("itemID");
-				boolean itemPaid = rs.getBoolean("itemPaid");
-				boolean itemProduced = rs.getBoolean("itemProduced");
-				String comment = rs.getString("comment");
-				orderedItems.add(
-						new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment)
-				);
-			}
-			return orderedItems;
+	/**
+	 * Lädt eine Seite von bestellten Artikeln, sortiert nach orderedItemID. Die Bestellung wird nur
+	 * hinzugenommen, wenn nach Tisch, Bedienung oder Zeitraum gefiltert wird.
+	 * @param afterOrderedItemID Die letzte orderedItemID der vorherigen Seite, 0 für die erste Seite.
+	 * @param limit Die maximale Anzahl der bestellten Artikel.
+	 */
+	static ArrayList<OrderedItem> getOrderedItems(Connection connection, OrderFilter filter, int afterOrderedItemID,
+												  int limit)
+	{
+		StringBuilder query = new StringBuilder(
+				"SELECT ordereditems.orderedItemID, ordereditems.orderID, ordereditems.itemID, " +
+				"ordereditems.itemPaid, ordereditems.itemProduced, ordereditems.comment " +
+				"FROM " + DatabaseProperties.getDatabase() + ".ordereditems ");
+		if(filter.filtersOrder())
+			query.append("JOIN ").append(DatabaseProperties.getDatabase()).append(".orders ")
+					.append("ON orders.orderID = ordereditems.orderID ");
+		query.append("WHERE ordereditems.orderedItemID > ? ");
+		if(filter.getOpen() != null)
+			query.append("AND ordereditems.itemPaid = ? ");
+		if(filter.getTableID() != null)
+			query.append("AND orders.tableID = ? ");
+		if(filter.getWaiterID() != null)
+			query.append("AND orders.waiterID = ? ");
+		if(filter.getFrom() != null)
+			query.append("AND orders.date >= ? ");
+		if(filter.getTo() != null)
+			query.append("AND orders.date < ? ");
+		query.append("ORDER BY ordereditems.orderedItemID LIMIT ?");
+
+		try(PreparedStatement pst = connection.prepareStatement(query.toString()))
+		{
+			int parameter = 1;
+			pst.setInt(parameter++, afterOrderedItemID);
+			if(filter.getOpen() != null)
+				pst.setBoolean(parameter++, !filter.getOpen());
+			if(filter.getTableID() != null)
+				pst.setInt(parameter++, filter.getTableID());
+			if(filter.getWaiterID() != null)
+				pst.setInt(parameter++, filter.getWaiterID());
+			if(filter.getFrom() != null)
+				pst.setObject(parameter++, DatabaseService.convertJodaDateTimeToSqlTimestamp(filter.getFrom()));
+			if(filter.getTo() != null)
+				pst.setObject(parameter++, DatabaseService.convertJodaDateTimeToSqlTimestamp(filter.getTo()));
+			pst.setInt(parameter, limit);
+
+			return getOrderedItems(pst);
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static ArrayList<OrderedItem> getAllUnproducedOrderedItemsByItemId(Connection connection, int itemID)
 	{
-		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
-
-		try {
-			String query = selectAllAttributs;
-			query += "WHERE itemID = " + itemID + " and itemProduced = FALSE";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs +
+				"WHERE itemID = ? and itemProduced = FALSE";
 
-			while(rs.next()) {
-				//get each orderedItem from DB
-				int orderedItemID = rs.getInt("orderedItemID");
-				int orderID = rs.getInt("orderID");
-				itemID = rs.getInt("itemID");
-				boolean itemPaid = rs.getBoolean("itemPaid");
-				boolean itemProduced = rs.getBoolean("itemProduced");
-				String comment = rs.getString("comment");
-				orderedItems.add(
-						new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment)
-				);
-			}
-			return orderedItems;
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			return getOrderedItems(pst);
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static ArrayList<OrderedItem> getOrderedItemsByOrderId(Connection connection, int orderID)
 	{
-		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		String query = selectAllAttributs +
+				"WHERE orderID = ?";
 
-		try {
-			String query = selectAllAttributs +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			while(rs.next()) {
-				//get each orderedItem from DB
-				int orderedItemID = rs.getInt("orderedItemID");
-				orderID = rs.getInt("orderID");
-				int itemID = rs.getInt("itemID");
-				boolean itemPaid = rs.getBoolean("itemPaid");
-				boolean itemProduced = rs.getBoolean("itemProduced");
-				String comment = rs.getString("comment");
-				orderedItems.add(
-						new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment)
-				);
-			}
-			return orderedItems;
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderID);
+			return getOrderedItems(pst);
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static ArrayList<OrderedItem> getOrderedItemsByItemId(Connection connection, int itemID)
 	{
-		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
-
-		try {
-			String query = selectAllAttributs +
-					"WHERE itemID = " + itemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs +
+				"WHERE itemID = ?";
 
-			while(rs.next()) {
-				//get each orderedItem from DB
-				int orderedItemID = rs.getInt("orderedItemID");
-				int orderID = rs.getInt("orderID");
-				itemID = rs.getInt("itemID");
-				boolean itemPaid = rs.getBoolean("itemPaid");
-				boolean itemProduced = rs.getBoolean("itemProduced");
-				String comment = rs.getString("comment");
-				orderedItems.add(
-						new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment)
-				);
-			}
-			return orderedItems;
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, itemID);
+			return getOrderedItems(pst);
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static OrderedItem getOrderedItemById(Connection connection, int orderedItemID)
 	{
-		try {
-			String query = selectAllAttributs +
-					"WHERE orderedItemID = " + orderedItemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs +
+				"WHERE orderedItemID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderedItemID);
+			ArrayList<OrderedItem> orderedItems = getOrderedItems(pst);
+			if(!orderedItems.isEmpty())
+				return orderedItems.get(0);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+		return null;
+	}
+
+	/**
+	 * Liest alle bestellten Artikel zeilenweise und übergibt jeden direkt nach dem Lesen, ohne sie zu sammeln.
+	 * @param consumer Verarbeitet die bestellten Artikel in der Reihenfolge der orderedItemID.
+	 */
+	static void streamAllOrderedItems(Connection connection, Consumer<OrderedItem> consumer)
+	{
+		String query = selectAllAttributs + "ORDER BY orderedItemID";
 
+		try(PreparedStatement pst = DatabaseService.prepareStreamingStatement(connection, query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
-				//get orderedItem from DB
-				orderedItemID = rs.getInt("orderedItemID");
-				int orderID = rs.getInt("orderID");
-				int itemID = rs.getInt("itemID");
-				boolean itemPaid = rs.getBoolean("itemPaid");
-				boolean itemProduced = rs.getBoolean("itemProduced");
-				String comment = rs.getString("comment");
-				return new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment);
+				consumer.accept(getOrderedItem(rs));
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
-		return null;
 	}
 
-	static void addOrderedItem(Connection connection, OrderedItem orderedItem)
+	/**
+	 * Führt eine Abfrage mit {@link #selectAllAttributs} aus und erzeugt aus jeder Zeile ein {@link OrderedItem}.
+	 * @param pst Das auszuführende Statement, dessen Parameter bereits gesetzt sind.
+	 * @return Die gelesenen bestellten Artikel.
+	 */
+	private static ArrayList<OrderedItem> getOrderedItems(PreparedStatement pst) throws SQLException
+	{
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+
+		try(ResultSet rs = pst.executeQuery())
+		{
+			while(rs.next()) {
+				//get each orderedItem from DB
+				orderedItems.add(getOrderedItem(rs));
+			}
+		}
+		return orderedItems;
+	}
+
+	/**
+	 * Erzeugt ein {@link OrderedItem} aus der aktuellen Zeile einer Abfrage mit {@link #selectAllAttributs}.
+	 */
+	private static OrderedItem getOrderedItem(ResultSet rs) throws SQLException
+	{
+		int orderedItemID = rs.getInt("orderedItemID");
+		int orderID = rs.getInt("orderID");
+		int itemID = rs.getInt("itemID");
+		boolean itemPaid = rs.getBoolean("itemPaid");
+		boolean itemProduced = rs.getBoolean("itemProduced");
+		String comment = rs.getString("comment");
+
+		return new OrderedItem(orderedItemID, orderID, itemID, itemPaid, itemProduced, comment);
+	}
+
+	/**
+	 * Fügt einen bestellten Artikel hinzu.
+	 * @return Die von der Datenbank vergebene orderedItemID.
+	 */
+	static int addOrderedItem(Connection connection, OrderedItem orderedItem)
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
-					".orderedItems(orderedItemId, orderID, itemID, itemPaid, itemProduced, comment) " +
-					"VALUES(DEFAULT, ?, ?, DEFAULT, DEFAULT, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
+				".orderedItems(orderedItemId, orderID, itemID, itemPaid, itemProduced, comment) " +
+				"VALUES(DEFAULT, ?, ?, DEFAULT, DEFAULT, ?)";
 
+		try(PreparedStatement pst = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+		{
 			pst.setInt(1, orderedItem.getOrderID());
 			pst.setInt(2, orderedItem.getItemID());
 			pst.setString(3, orderedItem.getComment());
 			pst.executeUpdate();
+
+			try(ResultSet rs = pst.getGeneratedKeys())
+			{
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		} catch(SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Fügt mehrere bestellte Artikel mit einem einzigen Batch-Insert hinzu, ohne selbst eine Transaktion zu
+	 * beginnen. Wird innerhalb einer Transaktion des Aufrufers verwendet.
+	 * @return Die von der Datenbank vergebenen orderedItemIDs in der Reihenfolge der übergebenen Artikel.
+	 */
+	static ArrayList<Integer> insertOrderedItems(Connection connection, List<OrderedItem> orderedItems)
+	{
+		ArrayList<Integer> orderedItemIDs = new ArrayList<>();
+
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
+				".orderedItems(orderedItemId, orderID, itemID, itemPaid, itemProduced, comment) " +
+				"VALUES(DEFAULT, ?, ?, DEFAULT, DEFAULT, ?)";
+
+		try(PreparedStatement pst = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+		{
+			for(OrderedItem orderedItem: orderedItems)
+			{
+				pst.setInt(1, orderedItem.getOrderID());
+				pst.setInt(2, orderedItem.getItemID());
+				pst.setString(3, orderedItem.getComment());
+				pst.addBatch();
+			}
+			pst.executeBatch();
+
+			try(ResultSet rs = pst.getGeneratedKeys())
+			{
+				while(rs.next()) {
+					orderedItemIDs.add(rs.getInt(1));
+				}
+			}
+			return orderedItemIDs;
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void updateOrderedItem(Connection connection, OrderedItem orderedItem, int orderedItemID)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"SET orderID = ?, itemID = ?, itemPaid = ?, itemProduced = ?, comment = ? " +
-					"WHERE orderedItemID = " + orderedItemID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".orderedItems " +
+				"SET orderID = ?, itemID = ?, itemPaid = ?, itemProduced = ?, comment = ? " +
+				"WHERE orderedItemID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setInt(1, orderedItem.getOrderID());
 			pst.setInt(2, orderedItem.getItemID());
 			pst.setBoolean(3, orderedItem.isItemPaid());
 			pst.setBoolean(4, orderedItem.isItemProduced());
 			pst.setString(5, orderedItem.getComment());
+			pst.setInt(6, orderedItemID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
+	/**
+	 * Ändert mehrere bestellte Artikel mit einem einzigen Batch-Update, ohne selbst eine Transaktion zu beginnen.
+	 * Wird innerhalb einer Transaktion des Aufrufers verwendet.
+	 * @param orderedItems Die geänderten Artikel, jeweils mit ihrer orderedItemID.
+	 * @return Die Anzahl der geänderten Zeilen je Artikel, 0 wenn der Artikel nicht existiert.
+	 */
+	static int[] updateOrderedItems(Connection connection, List<OrderedItem> orderedItems)
+	{
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".orderedItems " +
+				"SET orderID = ?, itemID = ?, itemPaid = ?, itemProduced = ?, comment = ? " +
+				"WHERE orderedItemID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			for(OrderedItem orderedItem: orderedItems)
+			{
+				pst.setInt(1, orderedItem.getOrderID());
+				pst.setInt(2, orderedItem.getItemID());
+				pst.setBoolean(3, orderedItem.isItemPaid());
+				pst.setBoolean(4, orderedItem.isItemProduced());
+				pst.setString(5, orderedItem.getComment());
+				pst.setInt(6, orderedItem.getOrderedItemID());
+				pst.addBatch();
+			}
+			return pst.executeBatch();
+		} catch(SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Markiert die ausgewählten bestellten Artikel als bezahlt.
+	 * @return Die Artikel, die dabei geändert wurden, also bisher nicht bezahlt waren.
+	 */
+	static ArrayList<OrderedItem> setItemsPaid(Connection connection, OrderedItemSelector selector)
+	{
+		return setFlag(connection, selector, "itemPaid", orderedItem -> new OrderedItem(orderedItem.getOrderedItemID(),
+				orderedItem.getOrderID(), orderedItem.getItemID(), true, orderedItem.isItemProduced(),
+				orderedItem.getComment()));
+	}
+
+	/**
+	 * Markiert die ausgewählten bestellten Artikel als produziert.
+	 * @return Die Artikel, die dabei geändert wurden, also bisher nicht produziert waren.
+	 */
+	static ArrayList<OrderedItem> setItemsProduced(Connection connection, OrderedItemSelector selector)
+	{
+		return setFlag(connection, selector, "itemProduced", orderedItem -> new OrderedItem(
+				orderedItem.getOrderedItemID(), orderedItem.getOrderID(), orderedItem.getItemID(),
+				orderedItem.isItemPaid(), true, orderedItem.getComment()));
+	}
+
+	/**
+	 * Setzt eine Spalte der ausgewählten bestellten Artikel mit einem einzigen UPDATE auf TRUE, statt jeden Artikel
+	 * einzeln mit allen Spalten zu schreiben. Die noch nicht markierten Artikel werden zuvor mit FOR UPDATE gelesen
+	 * und bleiben bis zum Ende der Transaktion des Aufrufers gesperrt, sodass genau diese Artikel geändert und
+	 * gemeldet werden. Ist keiner der Artikel zu ändern, entfällt das UPDATE.
+	 * @param column "itemPaid" oder "itemProduced".
+	 * @param mark Liefert die Kopie eines gelesenen Artikels mit gesetzter Spalte.
+	 */
+	private static ArrayList<OrderedItem> setFlag(Connection connection, OrderedItemSelector selector, String column,
+			UnaryOperator<OrderedItem> mark)
+	{
+		Selection selection = getSelection(selector);
+		String condition = "WHERE " + selection.condition + " AND " + column + " = FALSE";
+
+		try
+		{
+			ArrayList<OrderedItem> unmarked;
+			try(PreparedStatement pst = connection.prepareStatement(selectAllAttributs + condition + " FOR UPDATE"))
+			{
+				selection.setParameters(pst);
+				unmarked = getOrderedItems(pst);
+			}
+			if(unmarked.isEmpty())
+				return unmarked;
+
+			try(PreparedStatement pst = connection.prepareStatement("UPDATE " + DatabaseProperties.getDatabase() +
+					".orderedItems SET " + column + " = TRUE " + condition))
+			{
+				selection.setParameters(pst);
+				pst.executeUpdate();
+			}
+
+			ArrayList<OrderedItem> changed = new ArrayList<>();
+			for(OrderedItem orderedItem: unmarked)
+				changed.add(mark.apply(orderedItem));
+			return changed;
+		} catch(SQLException e) {
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Übersetzt die Auswahl in eine WHERE-Bedingung. Die Platzhalter einer Liste von orderedItemIDs werden mit der
+	 * letzten ID auf eine Zweierpotenz aufgefüllt.
+	 */
+	private static Selection getSelection(OrderedItemSelector selector)
+	{
+		if(selector.selectsByIDs())
+		{
+			List<Integer> orderedItemIDs = selector.getOrderedItemIDs();
+			int placeholders = Math.max(1, Integer.highestOneBit(orderedItemIDs.size() - 1) << 1);
+
+			List<Integer> parameters = new ArrayList<>();
+			for(int i = 0; i < placeholders; i++)
+				parameters.add(orderedItemIDs.get(Math.min(i, orderedItemIDs.size() - 1)));
+			return new Selection("orderedItemID IN (" + DatabaseService.getPlaceholders(placeholders) + ")",
+					parameters);
+		}
+		else if(selector.getItemID() != 0)
+			return new Selection("orderID = ? AND itemID = ?",
+					Arrays.asList(selector.getOrderID(), selector.getItemID()));
+		else
+			return new Selection("orderID = ?", Collections.singletonList(selector.getOrderID()));
+	}
+
+	/**
+	 * Eine WHERE-Bedingung und die Werte ihrer Platzhalter.
+	 */
+	private static final class Selection
+	{
+		private final String condition;
+		private final List<Integer> parameters;
+
+		private Selection(String condition, List<Integer> parameters)
+		{
+			this.condition = condition;
+			this.parameters = parameters;
+		}
+
+		private void setParameters(PreparedStatement pst) throws SQLException
+		{
+			for(int i = 0; i < parameters.size(); i++)
+				pst.setInt(i + 1, parameters.get(i));
+		}
+	}
+
 	static void deleteOrderedItem(Connection connection, int orderedItemID)
 	{
-		try {
-			String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"WHERE orderedItemID = " + orderedItemID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
+				"WHERE orderedItemID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderedItemID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void deleteOrderedItemByOrderId(Connection connection, int orderID)
 	{
-		try {
-			String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"WHERE orderID = " + orderID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "DELETE FROM " + DatabaseProperties.getDatabase() + ".orderedItems " +
+				"WHERE orderID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderID);
 			pst.executeUpdate();
-
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
-	static boolean existsOrderedItemWithID(Connection connection, int orderedItemID)
+	/**
+	 * Ermittelt, welche von mehreren orderedItemIDs existieren.
+	 * @return Die existierenden orderedItemIDs.
+	 */
+	static Set<Integer> getExistingOrderedItemIDs(Connection connection, Collection<Integer> orderedItemIDs)
+	{
+		return getExistingIDs(connection, "orderedItems", "orderedItemID", orderedItemIDs);
+	}
+
+	/**
+	 * Ermittelt, welche von mehreren IDs in einer Tabelle existieren, mit einer Abfrage je Block von
+	 * {@link #ID_BATCH_SIZE} IDs. Die Platzhalter eines Blocks werden mit der letzten ID auf eine Zweierpotenz
+	 * aufgefüllt.
+	 * @param table Die Tabelle.
+	 * @param idColumn Die Spalte der ID.
+	 * @return Die existierenden IDs.
+	 */
+	static Set<Integer> getExistingIDs(Connection connection, String table, String idColumn, Collection<Integer> ids)
 	{
-		try {
-			String query = "SELECT orderedItemID from " + DatabaseProperties.getDatabase() + ".orderedItems " +
-					"WHERE orderedItemID = " + orderedItemID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		List<Integer> distinctIDs = new ArrayList<>(new HashSet<>(ids));
+		Set<Integer> existing = new HashSet<>();
+
+		for(int from = 0; from < distinctIDs.size(); from += ID_BATCH_SIZE)
+		{
+			List<Integer> batch = distinctIDs.subList(from, Math.min(from + ID_BATCH_SIZE, distinctIDs.size()));
+			int placeholders = Math.max(1, Integer.highestOneBit(batch.size() - 1) << 1);
+
+			String query = "SELECT " + idColumn + " from " + DatabaseProperties.getDatabase() + "." + table + " " +
+					"WHERE " + idColumn + " IN (" + DatabaseService.getPlaceholders(placeholders) + ")";
+
+			try(PreparedStatement pst = connection.prepareStatement(query))
+			{
+				for(int i = 0; i < placeholders; i++)
+					pst.setInt(i + 1, batch.get(Math.min(i, batch.size() - 1)));
 
-			if(rs.next() && rs.getInt("orderedItemID") != 0)
-				return true;
+				try(ResultSet rs = pst.executeQuery())
+				{
+					while(rs.next())
+					{
+						existing.add(rs.getInt(idColumn));
+					}
+				}
+			} catch(SQLException e) {
+				e.printStackTrace();
+				throw new MySQLServerConnectionException();
+			}
+		}
+		return existing;
+	}
 
+	static boolean existsOrderedItemWithID(Connection connection, int orderedItemID)
+	{
+		String query = "SELECT orderedItemID from " + DatabaseProperties.getDatabase() + ".orderedItems " +
+				"WHERE orderedItemID = ?";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, orderedItemID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("orderedItemID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
@@ -7,7 +7,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Klasse mit Methoden zum Einsehen und Bearbeiten der Table-Tabelle.
@@ -16,20 +18,31 @@ import java.util.ArrayList;
  */
 class DBService_Table
 {
-	static void addTable(Connection connection, Table table)
+	private static final String selectAllAttributs = "SELECT tableID, name, seats, available " +
+			"FROM " + DatabaseProperties.getDatabase() + ".tables ";
+
+	/**
+	 * Fügt einen Tisch hinzu.
+	 * @return Die von der Datenbank vergebene tableID.
+	 */
+	static int addTable(Connection connection, Table table)
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".tables(tableID, name, seats, available) " +
-					"VALUES(DEFAULT, ?, ?, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() + ".tables(tableID, name, seats, available) " +
+				"VALUES(DEFAULT, ?, ?, ?)";
 
+		try(PreparedStatement pst = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS))
+		{
 			pst.setString(1, table.getName());
 			pst.setInt(2, table.getSeats());
 			pst.setBoolean(3, table.isAvailable());
 			pst.executeUpdate();
+
+			try(ResultSet rs = pst.getGeneratedKeys())
+			{
+				return rs.next() ? rs.getInt(1) : 0;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
@@ -38,14 +51,13 @@ class DBService_Table
 	{
 		ArrayList<Table> tables = new ArrayList<>();
 
-		try {
-			String query = "SELECT tableID, name, seats, available " +
-					"FROM " + DatabaseProperties.getDatabase() + ".tables";
-			if(onlyAvailable)
-				query += " WHERE available = TRUE";
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
+		String query = selectAllAttributs;
+		if(onlyAvailable)
+			query += "WHERE available = TRUE";
 
+		try(PreparedStatement pst = connection.prepareStatement(query);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
 				//get each table from DB
 				int tableID = rs.getInt("tableID");
@@ -57,71 +69,123 @@ class DBService_Table
 			return tables;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static Table getTableById(Connection connection, int tableID)
+	{
+		return getTable(connection, selectAllAttributs + "WHERE tableID = ?", tableID);
+	}
+
+	/**
+	 * Lädt einen Tisch und sperrt ihn bis zum Ende der laufenden Transaktion. Damit wird das Anlegen von
+	 * Bestellungen je Tisch serialisiert, sodass ein Tisch nicht zwei offene Bestellungen erhält.
+	 * @return Der Tisch, null wenn kein Tisch mit der ID existiert.
+	 */
+	static Table lockTableById(Connection connection, int tableID)
+	{
+		return getTable(connection, selectAllAttributs + "WHERE tableID = ? FOR UPDATE", tableID);
+	}
+
+	private static Table getTable(Connection connection, String query, int tableID)
 	{
 		Table table = null;
-		try {
-			String query = "SELECT tableID, name, seats, available " +
-					"FROM " + DatabaseProperties.getDatabase() + ".tables " +
-					"WHERE tableID = " + tableID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
 
-			while(rs.next()) {
-				//get each table from DB
-				tableID = rs.getInt("tableID");
-				String name = rs.getString("name");
-				int seats = rs.getInt("seats");
-				boolean available = rs.getBoolean("available");
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, tableID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					//get each table from DB
+					tableID = rs.getInt("tableID");
+					String name = rs.getString("name");
+					int seats = rs.getInt("seats");
+					boolean available = rs.getBoolean("available");
 
-				table = new Table(tableID, name, seats, available);
+					table = new Table(tableID, name, seats, available);
+				}
 			}
 			return table;
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Lädt mehrere Tische mit einer einzigen Abfrage. Die Platzhalter werden mit der letzten tableID auf eine
+	 * Zweierpotenz aufgefüllt, damit nur wenige unterschiedliche SQL-Texte entstehen.
+	 * @param tableIDs Die IDs der Tische, höchstens {@link ChangeLog#MAX_CHANGED_IDS}.
+	 * @return Die gefundenen Tische, nicht existierende IDs fehlen.
+	 */
+	static ArrayList<Table> getTablesByIDs(Connection connection, List<Integer> tableIDs)
+	{
+		ArrayList<Table> tables = new ArrayList<>();
+		if(tableIDs.isEmpty())
+			return tables;
+
+		int placeholders = Math.max(1, Integer.highestOneBit(tableIDs.size() - 1) << 1);
+		String query = selectAllAttributs +
+				"WHERE tableID IN (" + DatabaseService.getPlaceholders(placeholders) + ")";
+
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			for(int i = 0; i < placeholders; i++)
+				pst.setInt(i + 1, tableIDs.get(Math.min(i, tableIDs.size() - 1)));
+
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					int tableID = rs.getInt("tableID");
+					String name = rs.getString("name");
+					int seats = rs.getInt("seats");
+					boolean available = rs.getBoolean("available");
+					tables.add(new Table(tableID, name, seats, available));
+				}
+			}
+			return tables;
+		} catch (SQLException e) {
+			e.printStackTrace();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static void updateTable(Connection connection, Table table, int tableID)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".tables " +
-					"SET name = ?, seats = ?, available = ? " +
-					"WHERE tableID = " + tableID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".tables " +
+				"SET name = ?, seats = ?, available = ? " +
+				"WHERE tableID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setString(1, table.getName());
 			pst.setInt(2, table.getSeats());
 			pst.setBoolean(3, table.isAvailable());
+			pst.setInt(4, tableID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static boolean existsTableWithID(Connection connection, int tableID)
 	{
-		try {
-			String query = "SELECT tableID from " + DatabaseProperties.getDatabase() + ".tables " +
-					"WHERE tableID = " + tableID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			if(rs.next() && rs.getInt("tableID") != 0)
-				return true;
+		String query = "SELECT tableID from " + DatabaseProperties.getDatabase() + ".tables " +
+				"WHERE tableID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, tableID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("tableID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
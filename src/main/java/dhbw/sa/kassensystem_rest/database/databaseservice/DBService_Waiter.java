@@ -23,11 +23,9 @@ class DBService_Waiter
 	{
 		ArrayList<Waiter> waiters = new ArrayList<>();
 
-		try{
-			String query = selectAllAttributs;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
+		try(PreparedStatement pst = connection.prepareStatement(selectAllAttributs);
+			ResultSet rs = pst.executeQuery())
+		{
 			while(rs.next()) {
 				int waiterID = rs.getInt("waiterID");
 				String lastname = rs.getString("lastname");
@@ -40,30 +38,31 @@ class DBService_Waiter
 		} catch(SQLException e)
 		{
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static Waiter getWaiterByID(Connection connection, int waiterID)
 	{
-		try {
-			String query = selectAllAttributs +
-					"WHERE waiterID = " + waiterID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			while(rs.next()) {
-				waiterID = rs.getInt("waiterID");
-				String lastname = rs.getString("lastname");
-				String prename = rs.getString("prename");
-				boolean employed = rs.getBoolean("employed");
+		String query = selectAllAttributs +
+				"WHERE waiterID = ?";
 
-				return new Waiter(waiterID, lastname, prename, employed);
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, waiterID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				while(rs.next()) {
+					waiterID = rs.getInt("waiterID");
+					String lastname = rs.getString("lastname");
+					String prename = rs.getString("prename");
+					boolean employed = rs.getBoolean("employed");
+
+					return new Waiter(waiterID, lastname, prename, employed);
+				}
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return null;
@@ -71,19 +70,18 @@ class DBService_Waiter
 
 	static void addWaiter(Connection connection, Waiter waiter)
 	{
-		try {
-			String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
-					".waiters(waiterID, lastname, prename, employed) " +
-					"VALUES(DEFAULT, ?, ?, ?)";
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "INSERT INTO " + DatabaseProperties.getDatabase() +
+				".waiters(waiterID, lastname, prename, employed) " +
+				"VALUES(DEFAULT, ?, ?, ?)";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setString(1, waiter.getLastname());
 			pst.setString(2, waiter.getPrename());
 			pst.setBoolean(3, waiter.isEmployed());
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 
@@ -91,37 +89,38 @@ class DBService_Waiter
 
 	static void updateWaiter(Connection connection, int waiterID,  Waiter waiter)
 	{
-		try {
-			String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".waiters " +
-					"SET lastname = ?, prename = ?, employed = ? " +
-					"WHERE waiterID = " + waiterID;
-			PreparedStatement pst = connection.prepareStatement(query);
+		String query =  "UPDATE " + DatabaseProperties.getDatabase() + ".waiters " +
+				"SET lastname = ?, prename = ?, employed = ? " +
+				"WHERE waiterID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
 			pst.setString(1, waiter.getLastname());
 			pst.setString(2, waiter.getPrename());
 			pst.setBoolean(3, waiter.isEmployed());
+			pst.setInt(4, waiterID);
 			pst.executeUpdate();
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 	}
 
 	static boolean existsWaiterWithID(Connection connection, int waiterID)
 	{
-		try {
-			String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".waiters " +
-					"WHERE waiterID = " + waiterID;
-			PreparedStatement pst = connection.prepareStatement(query);
-			ResultSet rs = pst.executeQuery();
-
-			if(rs.next() && rs.getInt("waiterID") != 0)
-				return true;
+		String query = "SELECT waiterID from " + DatabaseProperties.getDatabase() + ".waiters " +
+				"WHERE waiterID = ?";
 
+		try(PreparedStatement pst = connection.prepareStatement(query))
+		{
+			pst.setInt(1, waiterID);
+			try(ResultSet rs = pst.executeQuery())
+			{
+				if(rs.next() && rs.getInt("waiterID") != 0)
+					return true;
+			}
 		} catch(SQLException e) {
 			e.printStackTrace();
-			DatabaseService_Interface.connect();
 			throw new MySQLServerConnectionException();
 		}
 		return false;
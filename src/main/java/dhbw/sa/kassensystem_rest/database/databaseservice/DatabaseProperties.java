@@ -13,6 +13,22 @@ class DatabaseProperties
     private static final String username = "DatabaseService";
     private static final String password = "password";
 
+	// Eigenschaften des Connection-Pools. Diese können beim Start über System-Properties überschrieben werden,
+	// z.B. java -Dkassensystem.pool.maxActive=30 -jar ...
+	private static final int poolMinIdle = Integer.getInteger("kassensystem.pool.minIdle", 2);
+	private static final int poolMaxActive = Integer.getInteger("kassensystem.pool.maxActive", 20);
+	// Maximale Wartezeit in Millisekunden, bis eine Verbindung aus dem Pool geliehen werden kann.
+	private static final int poolMaxWait = Integer.getInteger("kassensystem.pool.maxWait", 5000);
+	// Nach dieser Zeit in Sekunden gilt eine nicht zurückgegebene Verbindung als Leck und wird geschlossen.
+	private static final int poolLeakTimeout = Integer.getInteger("kassensystem.pool.leakTimeout", 60);
+	private static final String poolValidationQuery = "SELECT 1";
+	// Zeit in Sekunden, nach der die zwischengespeicherte Speisekarte neu aus der Datenbank geladen wird.
+	private static final int itemCacheTtl = Integer.getInteger("kassensystem.itemCache.ttl", 300);
+	// Zeit in Sekunden, für die geprüfte Logindaten zwischengespeichert werden.
+	private static final int authCacheTtl = Integer.getInteger("kassensystem.authCache.ttl", 60);
+	// Maximale Anzahl von PreparedStatements, die über alle Verbindungen des Pools zwischengespeichert werden.
+	private static final int poolStatementCacheSize = Integer.getInteger("kassensystem.pool.statementCacheSize", 500);
+
     DatabaseProperties() {}
 
     public static String getUrl() {
@@ -28,4 +44,44 @@ class DatabaseProperties
     public static String getPassword() {
         return password;
     }
+
+	static int getPoolMinIdle()
+	{
+		return poolMinIdle;
+	}
+
+	static int getPoolMaxActive()
+	{
+		return poolMaxActive;
+	}
+
+	static int getPoolMaxWait()
+	{
+		return poolMaxWait;
+	}
+
+	static int getPoolLeakTimeout()
+	{
+		return poolLeakTimeout;
+	}
+
+	static String getPoolValidationQuery()
+	{
+		return poolValidationQuery;
+	}
+
+	static int getPoolStatementCacheSize()
+	{
+		return poolStatementCacheSize;
+	}
+
+	static int getItemCacheTtl()
+	{
+		return itemCacheTtl;
+	}
+
+	static int getAuthCacheTtl()
+	{
+		return authCacheTtl;
+	}
 }
@@ -1,19 +1,40 @@
 package dhbw.sa.kassensystem_rest.database.databaseservice;
 
 import dhbw.sa.kassensystem_rest.database.entity.*;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
 import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
 import dhbw.sa.kassensystem_rest.exceptions.DataException;
 import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
 import dhbw.sa.kassensystem_rest.exceptions.NotAuthentificatedException;
 import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logErr;
 import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logInf;
@@ -30,31 +51,162 @@ import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logInf;
 @Service
 public class DatabaseService implements DatabaseService_Interface
 {
-    private Connection connection;
+	/*
+	 * Verbindungen werden nicht mehr dauerhaft gehalten, sondern für jeden Aufruf aus dem Connection-Pool
+	 * geliehen und danach zurückgegeben. So können mehrere Anfragen parallel auf die Datenbank zugreifen.
+	 */
+	private final DataSource dataSource;
+	// Seitengröße der seitenweisen Abfragen, wenn keine bzw. eine zu große angegeben wird
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
+	// Zwischengespeicherte Speisekarte
+	private final ItemCache itemCache;
+	// Zwischengespeicherte Logindaten für die Authentifizierung der REST-Aufrufe
+	private final AuthCache authCache;
+	// Ereignisse zu bestellten Artikeln für Küchen- und Barbildschirme
+	private final OrderedItemEvents orderedItemEvents;
+	// Versionen der Änderungen an Artikeln, Tischen und Bestellungen für die Abfrage von Änderungen
+	private final ChangeLog changeLog;
+	// Wird von Spring gesetzt, siehe setPrinterService()
+	private PrinterService printerService;
+
+	public DatabaseService()
+	{
+		this(ConnectionPool.getDataSource());
+	}
 
-    public DatabaseService()
+	/**
+	 * Erzeugt einen DatabaseService, der seine Verbindungen aus einer vorgegebenen DataSource bezieht.
+	 * @param dataSource Die DataSource, aus der die Verbindungen geliehen werden.
+	 */
+	public DatabaseService(DataSource dataSource)
 	{
-        connection = DatabaseService_Interface.connect();
-    }
+		this.dataSource = dataSource;
+		this.itemCache = new ItemCache(dataSource, DatabaseProperties.getItemCacheTtl() * 1000L);
+		this.authCache = new AuthCache(DatabaseProperties.getAuthCacheTtl() * 1000L);
+		this.orderedItemEvents = new OrderedItemEvents();
+		this.changeLog = new ChangeLog();
+	}
 
-    @Override
-    public void disconnect()
-	{
-        if(connection != null) {
-            try {
-                connection.close();
-                connection = null;
-                logInf("Database disconnected!");
-            } catch(SQLException e)  { e.printStackTrace();}
-        }
-    }
+	/**
+	 * Lädt beim Start des Servers die Speisekarte in den Cache. Ist die Datenbank noch nicht erreichbar,
+	 * wird der Cache beim ersten Zugriff geladen.
+	 */
+	@PostConstruct
+	public void loadItemCache()
+	{
+		try
+		{
+			itemCache.load();
+		} catch (MySQLServerConnectionException e)
+		{
+			logErr("Item cache could not be loaded on startup.");
+		}
+	}
+
+	@Override
+	@PreDestroy
+	public void disconnect()
+	{
+		ConnectionPool.close(dataSource);
+	}
 
-	private void checkConnection()
+	/**
+	 * Leiht eine Verbindung aus dem Connection-Pool, führt damit die Datenbankarbeit aus und gibt die
+	 * Verbindung anschließend wieder an den Pool zurück.
+	 * @param work Die auszuführende Datenbankarbeit.
+	 * @return Das Ergebnis der Datenbankarbeit.
+	 */
+	private <T> T withConnection(Function<Connection, T> work)
 	{
-		try {
-			if(connection.isClosed())
-				DatabaseService_Interface.connect();
-		} catch (SQLException e) {e.printStackTrace();}
+		try(Connection connection = dataSource.getConnection())
+		{
+			return work.apply(connection);
+		} catch (SQLException e)
+		{
+			logErr("No connection available from the connection pool.");
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+
+	/**
+	 * Führt die Datenbankarbeit wie {@link #withConnection(Function)} aus, jedoch in einer Transaktion. Wirft die
+	 * Arbeit eine Exception, werden alle bisherigen Änderungen zurückgenommen.
+	 * @param work Die auszuführende Datenbankarbeit.
+	 * @return Das Ergebnis der Datenbankarbeit.
+	 */
+	private <T> T withTransaction(Function<Connection, T> work)
+	{
+		return withConnection(connection -> {
+			try
+			{
+				boolean autoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+				try
+				{
+					T result = work.apply(connection);
+					connection.commit();
+					return result;
+				} catch (RuntimeException e)
+				{
+					connection.rollback();
+					throw e;
+				} finally
+				{
+					connection.setAutoCommit(autoCommit);
+				}
+			} catch (SQLException e)
+			{
+				logErr("Transaction could not be completed.");
+				e.printStackTrace();
+				throw new MySQLServerConnectionException();
+			}
+		});
+	}
+
+	private void useConnection(Consumer<Connection> work)
+	{
+		withConnection(connection -> {
+			work.accept(connection);
+			return null;
+		});
+	}
+
+	/**
+	 * Liefert die aktuellen Kennzahlen des Connection-Pools.
+	 * @return Aktive, freie und wartende Verbindungen sowie Ausleih-Zähler des Pools.
+	 */
+	public Map<String, Number> getConnectionPoolStatistics()
+	{
+		return ConnectionPool.getStatistics(dataSource);
+	}
+
+	/**
+	 * Liefert die aktuellen Kennzahlen des Statement-Caches aller Verbindungen des Pools.
+	 * @return Treffer, Fehlschläge und Trefferquote des Statement-Caches.
+	 */
+	public Map<String, Number> getStatementCacheStatistics()
+	{
+		return CountingStatementCache.getStatistics();
+	}
+
+	/**
+	 * Liefert die aktuellen Kennzahlen des Caches der Speisekarte.
+	 * @return Treffer, Fehlschläge, Trefferquote, Ladevorgänge und Anzahl der zwischengespeicherten Artikel.
+	 */
+	public Map<String, Number> getItemCacheStatistics()
+	{
+		return itemCache.getStatistics();
+	}
+
+	/**
+	 * Liefert die aktuellen Kennzahlen des Caches der Logindaten.
+	 * @return Treffer, Fehlschläge, Trefferquote und Anzahl der zwischengespeicherten Loginnamen.
+	 */
+	public Map<String, Number> getAuthCacheStatistics()
+	{
+		return authCache.getStatistics();
 	}
 
 	//region Getting Table-Data from the database
@@ -62,11 +214,9 @@ public class DatabaseService implements DatabaseService_Interface
     @Override
     public ArrayList<Item> getAllItems() throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting Items from MySQL-Database.");
 
-        return DBService_Item.getAllItems(connection, false);
+        return withConnection(connection -> DBService_Item.getAllItems(connection, false));
     }
 
 	@Override
@@ -79,7 +229,7 @@ public class DatabaseService implements DatabaseService_Interface
 
 		//logInf("Getting Item with ID " + itemID + ".");
 
-		Item item = DBService_Item.getItemByID(connection, itemID);
+		Item item = withConnection(connection -> DBService_Item.getItemByID(connection, itemID));
 		if(item != null)
 			return item;
 
@@ -88,24 +238,36 @@ public class DatabaseService implements DatabaseService_Interface
 	}
 
 	@Override
-    public ArrayList<Item> getAllAvailableItems() throws MySQLServerConnectionException
+	public Item getCatalogItem(int itemID) throws NullPointerException
 	{
-		checkConnection();
+		if(itemID == 0) {
+			logErr("Item-ID may not be null.");
+			throw new NullPointerException("No Item-ID given.");
+		}
+
+		Item item = itemCache.get(itemID);
+		if(item != null)
+			return item;
+
+		logErr("Item with ID " + itemID + " doesn't exist in the database.");
+		throw new NullPointerException("Item-ID " + itemID + " not found.");
+	}
 
+	@Override
+    public ArrayList<Item> getAllAvailableItems() throws MySQLServerConnectionException
+	{
 		logInf("Getting all available Items from MySQL-Database.");
 
-		return DBService_Item.getAllItems(connection, true);
+		return withConnection(connection -> DBService_Item.getAllItems(connection, true));
 	}
 
 	// Tables
     @Override
     public ArrayList<Table> getAllTables() throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Getting Tables from MySQL-Database.");
 
-		return DBService_Table.getAllTables(connection, false);
+		return withConnection(connection -> DBService_Table.getAllTables(connection, false));
     }
 
 	@Override
@@ -118,7 +280,7 @@ public class DatabaseService implements DatabaseService_Interface
 
 		logInf("Getting Table with ID " + tableID + ".");
 
-		Table table = DBService_Table.getTableById(connection, tableID);
+		Table table = withConnection(connection -> DBService_Table.getTableById(connection, tableID));
 		if(table != null)
 			return table;
 
@@ -129,23 +291,173 @@ public class DatabaseService implements DatabaseService_Interface
 	@Override
     public ArrayList<Table> getAllAvailableTables() throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Getting all available Tables from MySQL-Database.");
 
-		return DBService_Table.getAllTables(connection, true);
+		return withConnection(connection -> DBService_Table.getAllTables(connection, true));
 	}
 
 	// Orders
     @Override
     public ArrayList<Order> getAllOrders() throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting Orders from MySQL-Database.");
 
-        return DBService_Order.getAllOrders(connection);
+        return withConnection(connection -> DBService_Order.getAllOrders(connection));
     }
+
+	@Override
+	public void streamAllOrders(Consumer<Order> consumer) throws MySQLServerConnectionException
+	{
+		logInf("Streaming Orders from MySQL-Database.");
+
+		useConnection(connection -> DBService_Order.streamAllOrders(connection, consumer));
+	}
+
+	@Override
+	public Page<Order> getOrders(OrderFilter filter, String cursor, int limit)
+			throws MySQLServerConnectionException, DataException
+	{
+		logInf("Getting page of Orders from MySQL-Database.");
+
+		int afterOrderID = Page.decodeCursor("orders", cursor);
+		int pageSize = getPageSize(limit);
+		ArrayList<Order> orders = withConnection(connection ->
+				DBService_Order.getOrders(connection, filter, afterOrderID, pageSize + 1));
+		return getPage("orders", orders, pageSize, Order::getOrderID);
+	}
+
+	@Override
+	public Page<OrderedItem> getOrderedItems(OrderFilter filter, String cursor, int limit)
+			throws MySQLServerConnectionException, DataException
+	{
+		logInf("Getting page of OrderedItems from MySQL-Database.");
+
+		int afterOrderedItemID = Page.decodeCursor("orderedItems", cursor);
+		int pageSize = getPageSize(limit);
+		ArrayList<OrderedItem> orderedItems = withConnection(connection ->
+				DBService_OrderedItem.getOrderedItems(connection, filter, afterOrderedItemID, pageSize + 1));
+		return getPage("orderedItems", orderedItems, pageSize, OrderedItem::getOrderedItemID);
+	}
+
+	private static int getPageSize(int limit)
+	{
+		if(limit <= 0)
+			return DEFAULT_PAGE_SIZE;
+		return Math.min(limit, MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Erzeugt eine Seite aus einer Abfrage, die einen Datensatz mehr als die Seitengröße geladen hat. Nur wenn
+	 * dieser vorhanden ist, gibt es eine nächste Seite.
+	 */
+	private static <T> Page<T> getPage(String resource, ArrayList<T> rows, int pageSize, ToIntFunction<T> id)
+	{
+		if(rows.size() <= pageSize)
+			return new Page<>(rows, null);
+
+		List<T> page = rows.subList(0, pageSize);
+		return new Page<>(new ArrayList<>(page), Page.encodeCursor(resource, id.applyAsInt(page.get(pageSize - 1))));
+	}
+
+	@Override
+	public Delta<Item> getAvailableItemsSince(long since) throws MySQLServerConnectionException
+	{
+		return getDelta(ChangeLog.Entity.ITEM, since, this::getAllAvailableItems,
+				ids -> withConnection(connection -> DBService_Item.getItemsByIDs(connection, ids)),
+				Item::getItemID, Item::isAvailable);
+	}
+
+	@Override
+	public Delta<Table> getAvailableTablesSince(long since) throws MySQLServerConnectionException
+	{
+		return getDelta(ChangeLog.Entity.TABLE, since, this::getAllAvailableTables,
+				ids -> withConnection(connection -> DBService_Table.getTablesByIDs(connection, ids)),
+				Table::getTableID, Table::isAvailable);
+	}
+
+	@Override
+	public Delta<Order> getOrdersSince(long since) throws MySQLServerConnectionException
+	{
+		return getDelta(ChangeLog.Entity.ORDER, since, this::getAllOrders,
+				ids -> withConnection(connection -> DBService_Order.getOrdersByIDs(connection, ids)),
+				Order::getOrderID, order -> true);
+	}
+
+	/**
+	 * @return Die Version der letzten Änderung an Artikeln, Tischen oder Bestellungen.
+	 */
+	public long getChangeVersion()
+	{
+		return changeLog.getVersion();
+	}
+
+	/**
+	 * @return Die Version der letzten Änderung an einer Tabelle, z.B. für das ETag der Artikelliste.
+	 */
+	public long getChangeVersion(ChangeLog.Entity entity)
+	{
+		return changeLog.getVersion(entity);
+	}
+
+	/**
+	 * Ermittelt die Version einer vollständigen Liste, z.B. für das ETag der Artikelliste. Sie ändert sich mit jeder
+	 * Änderung über diesen Server und zusätzlich nach jedem Ablauf von {@link #getListTtlMillis()}, damit auch
+	 * Änderungen direkt in der Datenbank spätestens dann ausgeliefert werden.
+	 * @return Die Version der Liste.
+	 */
+	public long getListVersion(ChangeLog.Entity entity)
+	{
+		// Beide Summanden wachsen nur, die Version nimmt daher keinen früheren Wert erneut an
+		return changeLog.getVersion(entity) + System.currentTimeMillis() / getListTtlMillis();
+	}
+
+	/**
+	 * @return Die Zeit in Millisekunden, nach der zwischengespeicherte Listen neu geladen werden. Sie entspricht der
+	 * Gültigkeitsdauer der zwischengespeicherten Speisekarte.
+	 */
+	public long getListTtlMillis()
+	{
+		return DatabaseProperties.getItemCacheTtl() * 1000L;
+	}
+
+	public Map<String, Number> getChangeLogStatistics()
+	{
+		return changeLog.getStatistics();
+	}
+
+	/**
+	 * Ermittelt die Änderungen einer Liste seit einer Version. Sind diese nicht mehr vollständig protokolliert, wird
+	 * die vollständige Liste geliefert.
+	 * @param all Lädt die vollständige Liste.
+	 * @param byIDs Lädt die Datensätze mit den geänderten IDs.
+	 * @param visible Ob ein Datensatz in der Liste enthalten ist, andernfalls wird er als gelöscht gemeldet.
+	 */
+	private <T> Delta<T> getDelta(ChangeLog.Entity entity, long since, Supplier<ArrayList<T>> all,
+								  Function<List<Integer>, ArrayList<T>> byIDs, ToIntFunction<T> id,
+								  Predicate<T> visible)
+	{
+		ChangeLog.Changes changes = changeLog.getChangesSince(entity, since);
+		if(changes == null)
+		{
+			// Die Version vor dem Laden ermitteln, damit gleichzeitige Änderungen beim nächsten Mal geliefert werden
+			long version = changeLog.getVersion();
+			return new Delta<>(version, true, all.get(), Collections.emptyList());
+		}
+
+		ArrayList<T> changed = new ArrayList<>();
+		ArrayList<Integer> deleted = new ArrayList<>(changes.ids);
+		if(changes.ids.isEmpty())
+			return new Delta<>(changes.version, false, changed, deleted);
+
+		for(T row: byIDs.apply(new ArrayList<>(changes.ids)))
+		{
+			if(!visible.test(row))
+				continue;
+			changed.add(row);
+			deleted.remove((Integer) id.applyAsInt(row));
+		}
+		return new Delta<>(changes.version, false, changed, deleted);
+	}
 	@Override
 	public Order getOrderById(int orderID) throws NullPointerException
 	{
@@ -156,7 +468,7 @@ public class DatabaseService implements DatabaseService_Interface
 
 		logInf("Getting Order with ID " + orderID + ".");
 
-		Order order = DBService_Order.getOrderByID(connection, orderID);
+		Order order = withConnection(connection -> DBService_Order.getOrderByID(connection, orderID));
 		if(order != null)
 			return order;
 
@@ -167,24 +479,36 @@ public class DatabaseService implements DatabaseService_Interface
 	@Override
 	public float getOrderPrice(int orderID) throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Getting price of order form MySQL-Database.");
 
-		return DBService_Order.getPrice(connection, orderID);
+		return withConnection(connection -> DBService_Order.getPrice(connection, orderID));
+	}
+
+	@Override
+	public Map<Integer, Float> getOrderPrices(Collection<Integer> orderIDs) throws MySQLServerConnectionException
+	{
+		logInf("Getting prices of " + orderIDs.size() + " orders from MySQL-Database.");
+
+		return withConnection(connection -> DBService_Order.getPrices(connection, orderIDs));
 	}
 
 	// Itemdeliveries
     @Override
     public ArrayList<Itemdelivery> getAllItemdeliveries() throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting Itemdeliveries from MySQL-Database.");
 
-		return DBService_Itemdelivery.getAllItemdeliveries(connection);
+		return withConnection(connection -> DBService_Itemdelivery.getAllItemdeliveries(connection));
     }
 
+	@Override
+	public void streamAllItemdeliveries(Consumer<Itemdelivery> consumer) throws MySQLServerConnectionException
+	{
+		logInf("Streaming Itemdeliveries from MySQL-Database.");
+
+		useConnection(connection -> DBService_Itemdelivery.streamAllItemdeliveries(connection, consumer));
+	}
+
 	@Override
 	public Itemdelivery getItemdeliveryById(int itemdeliveryID) throws NullPointerException
 	{
@@ -195,7 +519,8 @@ public class DatabaseService implements DatabaseService_Interface
     
 		logInf("Getting Itemdelivery with ID " + itemdeliveryID + ".");
 
-		Itemdelivery itemdelivery = DBService_Itemdelivery.getItemdeliveryByID(connection, itemdeliveryID);
+		Itemdelivery itemdelivery = withConnection(connection ->
+				DBService_Itemdelivery.getItemdeliveryByID(connection, itemdeliveryID));
 		if(itemdelivery != null)
 			return itemdelivery;
 
@@ -208,13 +533,19 @@ public class DatabaseService implements DatabaseService_Interface
     @Override
     public ArrayList<OrderedItem> getAllOrderedItems() throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting OrderedItems from MySQL-Database.");
 
-        return DBService_OrderedItem.getAllOrderedItems(connection, false);
+        return withConnection(connection -> DBService_OrderedItem.getAllOrderedItems(connection, false));
     }
 
+	@Override
+	public void streamAllOrderedItems(Consumer<OrderedItem> consumer) throws MySQLServerConnectionException
+	{
+		logInf("Streaming OrderedItems from MySQL-Database.");
+
+		useConnection(connection -> DBService_OrderedItem.streamAllOrderedItems(connection, consumer));
+	}
+
 	@Override
 	public OrderedItem getOrderedItemById(int orderedItemID) throws NullPointerException
 	{
@@ -225,7 +556,8 @@ public class DatabaseService implements DatabaseService_Interface
 
 		logInf("Getting OrderedItem with ID " + orderedItemID + ".");
 
-		OrderedItem orderedItem = DBService_OrderedItem.getOrderedItemById(connection, orderedItemID);
+		OrderedItem orderedItem = withConnection(connection ->
+				DBService_OrderedItem.getOrderedItemById(connection, orderedItemID));
 		if(orderedItem != null)
 			return orderedItem;
 
@@ -235,72 +567,59 @@ public class DatabaseService implements DatabaseService_Interface
 
 	public ArrayList<OrderedItem> getAllUnproducedOrderedItems()
 	{
-		checkConnection();
-
 		logInf("Getting OrderedItems from MySQL-Database.");
 
-		return DBService_OrderedItem.getAllOrderedItems(connection, true);
+		return withConnection(connection -> DBService_OrderedItem.getAllOrderedItems(connection, true));
 	}
 
 	public ArrayList<OrderedItem> getAllUnproducedOrderedItemsByItemId(int itemID)
 	{
-		checkConnection();
-
 		logInf("Getting unproduced OrderedItems from MySQL-Database with Item-ID " + itemID + ".");
 
-		return DBService_OrderedItem.getAllUnproducedOrderedItemsByItemId(connection, itemID);
+		return withConnection(connection ->
+				DBService_OrderedItem.getAllUnproducedOrderedItemsByItemId(connection, itemID));
 	}
 
 	@Override
     public ArrayList<OrderedItem> getOrderedItemsByOrderId(int orderID) throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting OrderedItems with Order-ID " + orderID + " from MySQL-Database.");
 
-        return DBService_OrderedItem.getOrderedItemsByOrderId(connection, orderID);
+        return withConnection(connection -> DBService_OrderedItem.getOrderedItemsByOrderId(connection, orderID));
     }
 
 	@Override
     public ArrayList<OrderedItem> getOrderedItemsByItemId(int itemID) throws MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Getting OrderedItems with Item-ID " + itemID + " from MySQL-Database.");
 
-        return DBService_OrderedItem.getOrderedItemsByItemId(connection, itemID);
+        return withConnection(connection -> DBService_OrderedItem.getOrderedItemsByItemId(connection, itemID));
     }
 
     // Waiters
 	@Override
 	public ArrayList<Waiter> getAllWaiters() throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Getting Waiters from MySQL-Database.");
 
-		return DBService_Waiter.getAllWaiters(connection);
+		return withConnection(connection -> DBService_Waiter.getAllWaiters(connection));
 	}
 
 	@Override
 	public Waiter getWaiterByID(int waiterID)
 	{
-		checkConnection();
-
 		//logInf("Getting Waiter with ID " + waiterID + ".");
 
-		return DBService_Waiter.getWaiterByID(connection, waiterID);
+		return withConnection(connection -> DBService_Waiter.getWaiterByID(connection, waiterID));
 	}
 
 	// Logindata
 	@Override
 	public ArrayList<Logindata> getAllLogindata() throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Getting Logindata from MySQL-Database.");
 
-		return DBService_LoginData.getAllLogindata(connection);
+		return withConnection(connection -> DBService_LoginData.getAllLogindata(connection));
 	}
 	//endregion
 
@@ -309,8 +628,6 @@ public class DatabaseService implements DatabaseService_Interface
   	@Override
   	public void addItem(Item item) throws MySQLServerConnectionException, DataException
 	{
-        checkConnection();
-
         logInf("Adding Item to MySQL-Database.");
 
         if(item.getItemID() != 0) {
@@ -325,14 +642,14 @@ public class DatabaseService implements DatabaseService_Interface
         }
         isItemComplete(item);
 
-        DBService_Item.addItem(connection, item);
+        int itemID = withConnection(connection -> DBService_Item.addItem(connection, item));
+        itemCache.invalidate();
+        changeLog.record(ChangeLog.Entity.ITEM, itemID);
     }
 
     @Override
     public void addTable(Table table) throws MySQLServerConnectionException, DataException
 	  {
-        checkConnection();
-
         logInf("Adding Table to MySQL-Database.");
 
         //this.tables = this.getAllTables();
@@ -345,14 +662,13 @@ public class DatabaseService implements DatabaseService_Interface
         }
         isTableComplete(table);
 
-        DBService_Table.addTable(connection, table);
+        int tableID = withConnection(connection -> DBService_Table.addTable(connection, table));
+        changeLog.record(ChangeLog.Entity.TABLE, tableID);
     }
 
     @Override
     public int addOrder(Order order) throws MySQLServerConnectionException, DataException
 	{
-        checkConnection();
-
         logInf("Adding Order to MySQL-Database.");
 
         //Vollständigkeit der Order ueberpruefen
@@ -363,15 +679,104 @@ public class DatabaseService implements DatabaseService_Interface
         }
         isOrderComplete(order);
 
-        return DBService_Order.addOrder(connection, order);
+        // Der gesperrte Tisch verhindert, dass parallel eine zweite offene Bestellung für ihn angelegt wird
+        int orderID = withTransaction(connection -> {
+            DBService_Table.lockTableById(connection, order.getTable());
+            return DBService_Order.addOrder(connection, order);
+        });
+        changeLog.record(ChangeLog.Entity.ORDER, orderID);
+        return orderID;
     }
 
+	@Override
+	public CreatedOrder addOrderWithItems(NewOrder newOrder) throws MySQLServerConnectionException, DataException
+	{
+		Order order = newOrder.getOrder();
+		List<OrderedItem> orderedItems = newOrder.getOrderedItems();
+		logInf("Adding Order with " + orderedItems.size() + " OrderedItems to MySQL-Database.");
+
+		//Vollständigkeit der Order und aller OrderedItems ueberpruefen, bevor etwas hinzugefügt wird
+		if(order == null || order.getTable() == 0) {
+			logErr("Table-ID missing.");
+			logErr("Order was not added to the database!");
+			throw new DataException("Die Bestellung ist unvollständig! Die folgenden Parameter fehlen: Tisch ");
+		}
+		if(order.getOrderID() != 0) {
+			logErr("ID may not be set by the user.");
+			logErr("Order was not added to the Database!");
+			throw new DataException("Es darf keine ID übergeben werden. Die ID wird vom Datenbank-Server gewählt!");
+		}
+		for(OrderedItem orderedItem: orderedItems)
+		{
+			if(orderedItem.getOrderedItemID() != 0) {
+				logErr("ID may not be set by the user.");
+				logErr("Order was not added to the Database!");
+				throw new DataException("Es darf keine ID übergeben werden. Die ID wird vom Datenbank-Server gewählt!");
+			}
+			if(orderedItem.getItemID() == 0) {
+				logErr("ItemID missing.");
+				logErr("Order was not added to the Database!");
+				throw new DataException("Der bestellte Artikel ist unvollständig! Die folgenden Parameter fehlen: " +
+						" ItemID");
+			}
+		}
+
+		// Tisch, offene Bestellung und Artikel werden in einer Transaktion über eine Verbindung ermittelt bzw.
+		// hinzugefügt, sodass bei einem Fehler weder eine leere Bestellung noch einzelne Artikel zurückbleiben. Der
+		// Tisch bleibt bis zum Ende der Transaktion gesperrt, damit parallele Anfragen für denselben Tisch nicht
+		// jeweils eine neue Bestellung anlegen.
+		PrintData data = withTransaction(connection -> {
+			PrintData printData = new PrintData();
+			printData.table = DBService_Table.lockTableById(connection, order.getTable());
+			if(printData.table == null) {
+				logErr("The Table-ID does not exist in the database!");
+				logErr("Order was not added to the database!");
+				throw new DataException("Die angegebene Table-ID existiert nicht in der Datenbank!");
+			}
+
+			printData.order = DBService_Order.getOpenOrderOfTable(connection, order.getTable());
+			if(printData.order == null)
+			{
+				int orderID = DBService_Order.insertOrder(connection, order);
+				printData.order = new Order(orderID, order.getTable(), 0, order.getDate(), false,
+						order.getWaiterID());
+				printData.newOrder = true;
+			}
+
+			printData.orderedItems = new ArrayList<>();
+			for(OrderedItem orderedItem: orderedItems)
+				printData.orderedItems.add(new OrderedItem(printData.order.getOrderID(), orderedItem.getItemID(),
+						orderedItem.getComment()));
+			if(!printData.orderedItems.isEmpty())
+				printData.orderedItemIDs = DBService_OrderedItem.insertOrderedItems(connection,
+						printData.orderedItems);
+			else
+				printData.orderedItemIDs = new ArrayList<>();
+			return printData;
+		});
+
+		int orderID = data.order.getOrderID();
+		changeLog.record(ChangeLog.Entity.ORDER, orderID);
+		for(int i = 0; i < data.orderedItemIDs.size(); i++)
+		{
+			OrderedItem orderedItem = data.orderedItems.get(i);
+			orderedItemEvents.added(copyWithID(data.orderedItemIDs.get(i), orderedItem));
+			recordOrderedItemChange(orderedItem);
+		}
+
+		// Ausdrucken der Küchenbelege, die Bestellung bleibt auch bei einem Druckfehler gespeichert
+		ArrayList<Long> printJobIDs = new ArrayList<>();
+		if(!data.orderedItems.isEmpty())
+			for(PrintJob printJob: getPrinterService().printOrder(data.order, data.table, data.orderedItems))
+				printJobIDs.add(printJob.getJobID());
+
+		return new CreatedOrder(orderID, data.newOrder, data.orderedItemIDs, printJobIDs);
+	}
+
     @Override
     public void addItemdelivery(Itemdelivery itemdelivery) throws MySQLServerConnectionException,
             DataException
 	{
-        checkConnection();
-
         logInf("Adding Itemdelivery to MySQL-Database.");
 
         //Vollständigkeit der Order ueberpruefen
@@ -382,14 +787,13 @@ public class DatabaseService implements DatabaseService_Interface
         }
         isItemdeliveryComplete(itemdelivery);
 
-        DBService_Itemdelivery.addItemdelivery(connection, itemdelivery);
+        useConnection(connection -> DBService_Itemdelivery.addItemdelivery(connection, itemdelivery));
+        changeLog.record(ChangeLog.Entity.ITEM, itemdelivery.getItemID());
     }
 	@Override
 	public void addOrderedItem(OrderedItem orderedItem) throws MySQLServerConnectionException,
 			DataException
 	{
-		checkConnection();
-
 		logInf("Adding OrderedItem to MySQL-Database.");
 
 		//Vollständigkeit der Order ueberpruefen
@@ -400,14 +804,43 @@ public class DatabaseService implements DatabaseService_Interface
 		}
 		isOrderedItemComplete(orderedItem);
 
-		DBService_OrderedItem.addOrderedItem(connection, orderedItem);
+		int orderedItemID = withConnection(connection -> DBService_OrderedItem.addOrderedItem(connection, orderedItem));
+		orderedItemEvents.added(copyWithID(orderedItemID, orderedItem));
+		recordOrderedItemChange(orderedItem);
 	}
 
 	@Override
-	public void addWaiter(Waiter waiter) throws MySQLServerConnectionException, DataException
+	public ArrayList<Integer> addOrderedItems(ArrayList<OrderedItem> orderedItems) throws MySQLServerConnectionException,
+			DataException
 	{
-		checkConnection();
+		logInf("Adding " + orderedItems.size() + " OrderedItems to MySQL-Database.");
+
+		//Vollständigkeit aller OrderedItems ueberpruefen, bevor eines hinzugefügt wird
+		for(OrderedItem orderedItem: orderedItems)
+		{
+			if(orderedItem.getOrderedItemID() != 0) {
+				logErr("ID may not be set by the user.");
+				logErr("OrderedItems were not added to the Database!");
+				throw new DataException("Es darf keine ID übergeben werden. Die ID wird vom Datenbank-Server gewählt!");
+			}
+			isOrderedItemComplete(orderedItem);
+		}
 
+		if(orderedItems.isEmpty())
+			return new ArrayList<>();
+
+		ArrayList<Integer> orderedItemIDs =
+				withTransaction(connection -> DBService_OrderedItem.insertOrderedItems(connection, orderedItems));
+		for(int i = 0; i < orderedItemIDs.size(); i++)
+			orderedItemEvents.added(copyWithID(orderedItemIDs.get(i), orderedItems.get(i)));
+		for(OrderedItem orderedItem: orderedItems)
+			recordOrderedItemChange(orderedItem);
+		return orderedItemIDs;
+	}
+
+	@Override
+	public void addWaiter(Waiter waiter) throws MySQLServerConnectionException, DataException
+	{
 		logInf("Adding Waiter to MySQL-Database.");
 
 		//Vollständigkeit des waiters überprüfen
@@ -419,14 +852,12 @@ public class DatabaseService implements DatabaseService_Interface
 
 		isWaiterComplete(waiter);
 
-		DBService_Waiter.addWaiter(connection, waiter);
+		useConnection(connection -> DBService_Waiter.addWaiter(connection, waiter));
 	}
 
 	@Override
 	public void addLogindata(Logindata logindata) throws MySQLServerConnectionException
 	{
-		checkConnection();
-
 		logInf("Adding Logindata to MySQL-Database.");
 
 		// Existenz der waiterID überprüfen
@@ -439,7 +870,7 @@ public class DatabaseService implements DatabaseService_Interface
 		//Vollständigkeit der Logindata überprüfen
 		isLogindataComplete(logindata);
 
-		DBService_LoginData.addLogindata(connection, logindata);
+		useConnection(connection -> DBService_LoginData.addLogindata(connection, logindata));
 	}
 	//endregion
 
@@ -448,8 +879,6 @@ public class DatabaseService implements DatabaseService_Interface
     public void updateItem(int itemID, Item item) throws NullPointerException, DataException,
             MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Updating Item with ID " + itemID + ".");
 
         if(itemID == 0) {
@@ -465,15 +894,19 @@ public class DatabaseService implements DatabaseService_Interface
 
         isItemComplete(item);
 
-        DBService_Item.updateItem(connection, item, itemID);
+        Item previous = itemCache.get(itemID);
+        useConnection(connection -> DBService_Item.updateItem(connection, item, itemID));
+        itemCache.invalidate();
+        changeLog.record(ChangeLog.Entity.ITEM, itemID);
+        // Der Preis eines Artikels geht in den Preis aller Bestellungen ein, die ihn enthalten
+        if(previous == null || previous.getRetailprice() != item.getRetailprice())
+            changeLog.recordAll(ChangeLog.Entity.ORDER);
     }
 
     @Override
     public void updateTable(int tableID, Table table) throws NullPointerException, DataException,
             MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Updating Table with ID " + tableID + ".");
 
         if(tableID == 0) {
@@ -489,15 +922,14 @@ public class DatabaseService implements DatabaseService_Interface
 
         isTableComplete(table);
 
-        DBService_Table.updateTable(connection, table, tableID);
+        useConnection(connection -> DBService_Table.updateTable(connection, table, tableID));
+        changeLog.record(ChangeLog.Entity.TABLE, tableID);
     }
 
     @Override
     public void updateOrder(int orderID, Order order) throws NullPointerException, DataException,
             MySQLServerConnectionException
 	{
-        checkConnection();
-
         logInf("Updating Order with ID " + orderID + ".");
 
         if(orderID == 0) {
@@ -521,14 +953,13 @@ public class DatabaseService implements DatabaseService_Interface
         // Das Ausdrucken passiert nun beim Hinzufügen von orderedItems in dem Rest-Controller.
 		// Dabei wird eine Liste von orderedItems übertragen. Anschließend werden diese Übertragenen Items ausgedruckt.
 
-		DBService_Order.updateOrder(connection, order, orderID);
+		useConnection(connection -> DBService_Order.updateOrder(connection, order, orderID));
+		changeLog.record(ChangeLog.Entity.ORDER, orderID);
     }
 
 	@Override
 	public void updateOrderedItem(int orderedItemID, OrderedItem orderedItem)
 	{
-		checkConnection();
-
 		logInf("Updating OrderedItem with ID " + orderedItemID + ".");
 
 		if(orderedItemID == 0) {
@@ -548,14 +979,157 @@ public class DatabaseService implements DatabaseService_Interface
 		if(!existsOrderedItemWithID(orderedItemID))
 			throw new DataException("Bestellter Artikel mit der ID " + orderedItemID + " existiert nicht!");
 
-		DBService_OrderedItem.updateOrderedItem(connection, orderedItem, orderedItemID);
+		useConnection(connection ->
+				DBService_OrderedItem.updateOrderedItem(connection, orderedItem, orderedItemID));
+		orderedItemEvents.updated(copyWithID(orderedItemID, orderedItem));
+		recordOrderedItemChange(orderedItem);
 	}
 
 	@Override
-	public void updateWaiter(int waiterID, Waiter waiter)
+	public BulkUpdateResult updateOrderedItems(List<OrderedItem> orderedItems) throws MySQLServerConnectionException
+	{
+		logInf("Updating " + orderedItems.size() + " OrderedItems.");
+
+		BulkUpdateResult result = new BulkUpdateResult();
+
+		// Vollständigkeit jedes OrderedItems überprüfen, fehlerhafte werden übersprungen
+		ArrayList<Integer> candidates = new ArrayList<>();
+		for(int i = 0; i < orderedItems.size(); i++)
+		{
+			OrderedItem orderedItem = orderedItems.get(i);
+			try
+			{
+				if(orderedItem.getOrderedItemID() == 0)
+					throw new DataException("Es wurde keine ID des bestellten Artikels übergeben!");
+				isOrderedItemComplete(orderedItem);
+				candidates.add(i);
+			} catch (DataException e)
+			{
+				result.failed(i, orderedItem.getOrderedItemID(), e.getMessage());
+			}
+		}
+
+		// Prüfungen und Batch-Update in einer Transaktion, ein zwischenzeitlich gelöschter Artikel wird über die
+		// Anzahl der geänderten Zeilen erkannt
+		ArrayList<Integer> updated = withTransaction(connection -> {
+			// Alle referenzierten IDs werden mit je einer Abfrage geprüft, damit ein fehlender Fremdschlüssel nicht
+			// das gesamte Batch-Update abbricht
+			ArrayList<Integer> orderedItemIDs = new ArrayList<>();
+			ArrayList<Integer> orderIDs = new ArrayList<>();
+			ArrayList<Integer> itemIDs = new ArrayList<>();
+			for(int i: candidates)
+			{
+				OrderedItem orderedItem = orderedItems.get(i);
+				orderedItemIDs.add(orderedItem.getOrderedItemID());
+				orderIDs.add(orderedItem.getOrderID());
+				itemIDs.add(orderedItem.getItemID());
+			}
+			Set<Integer> existingOrderedItems = DBService_OrderedItem.getExistingOrderedItemIDs(connection, orderedItemIDs);
+			Set<Integer> existingOrders = DBService_Order.getExistingOrderIDs(connection, orderIDs);
+			Set<Integer> existingItems = DBService_Item.getExistingItemIDs(connection, itemIDs);
+
+			ArrayList<Integer> indices = new ArrayList<>();
+			ArrayList<OrderedItem> batch = new ArrayList<>();
+			for(int i: candidates)
+			{
+				OrderedItem orderedItem = orderedItems.get(i);
+				if(!existingOrderedItems.contains(orderedItem.getOrderedItemID()))
+				{
+					logErr("OrderedItem with ID " + orderedItem.getOrderedItemID() + " does not exist in the database! ");
+					result.failed(i, orderedItem.getOrderedItemID(), "Bestellter Artikel mit der ID "
+							+ orderedItem.getOrderedItemID() + " existiert nicht in der Datenbank!");
+				}
+				else if(!existingOrders.contains(orderedItem.getOrderID()))
+				{
+					logErr("Order with ID " + orderedItem.getOrderID() + " does not exist in the database! ");
+					result.failed(i, orderedItem.getOrderedItemID(), "Bestellung mit der ID "
+							+ orderedItem.getOrderID() + " existiert nicht in der Datenbank!");
+				}
+				else if(!existingItems.contains(orderedItem.getItemID()))
+				{
+					logErr("Item with ID " + orderedItem.getItemID() + " does not exist in the database! ");
+					result.failed(i, orderedItem.getOrderedItemID(), "Artikel mit der ID "
+							+ orderedItem.getItemID() + " existiert nicht in der Datenbank!");
+				}
+				else
+				{
+					indices.add(i);
+					batch.add(orderedItem);
+				}
+			}
+
+			if(batch.isEmpty())
+				return indices;
+
+			int[] updateCounts = DBService_OrderedItem.updateOrderedItems(connection, batch);
+			ArrayList<Integer> changed = new ArrayList<>();
+			for(int j = 0; j < batch.size(); j++)
+			{
+				OrderedItem orderedItem = batch.get(j);
+				if(updateCounts[j] == 0)
+				{
+					logErr("OrderedItem with ID " + orderedItem.getOrderedItemID() + " does not exist in the database! ");
+					result.failed(indices.get(j), orderedItem.getOrderedItemID(), "Bestellter Artikel mit der ID "
+							+ orderedItem.getOrderedItemID() + " existiert nicht in der Datenbank!");
+				}
+				else
+					changed.add(indices.get(j));
+			}
+			return changed;
+		});
+
+		for(int i: updated)
+		{
+			OrderedItem orderedItem = orderedItems.get(i);
+			result.updated(orderedItem.getOrderedItemID());
+			orderedItemEvents.updated(copyWithID(orderedItem.getOrderedItemID(), orderedItem));
+			recordOrderedItemChange(orderedItem);
+		}
+		result.getFailed().sort(Comparator.comparingInt(BulkUpdateResult.Failure::getIndex));
+		return result;
+	}
+
+	@Override
+	public ArrayList<Integer> payOrderedItems(OrderedItemSelector selector) throws MySQLServerConnectionException,
+			DataException
+	{
+		logInf("Paying OrderedItems.");
+
+		return setOrderedItemsFlag(selector, DBService_OrderedItem::setItemsPaid);
+	}
+
+	@Override
+	public ArrayList<Integer> produceOrderedItems(OrderedItemSelector selector) throws MySQLServerConnectionException,
+			DataException
+	{
+		logInf("Producing OrderedItems.");
+
+		return setOrderedItemsFlag(selector, DBService_OrderedItem::setItemsProduced);
+	}
+
+	private ArrayList<Integer> setOrderedItemsFlag(OrderedItemSelector selector,
+			BiFunction<Connection, OrderedItemSelector, ArrayList<OrderedItem>> update)
 	{
-		checkConnection();
+		if(selector == null || selector.isEmpty()) {
+			logErr("No OrderedItems selected.");
+			throw new DataException("Es wurden keine bestellten Artikel ausgewählt!");
+		}
 
+		ArrayList<OrderedItem> changed = withTransaction(connection -> update.apply(connection, selector));
+
+		ArrayList<Integer> orderedItemIDs = new ArrayList<>();
+		for(OrderedItem orderedItem: changed)
+		{
+			orderedItemIDs.add(orderedItem.getOrderedItemID());
+			orderedItemEvents.updated(orderedItem);
+			recordOrderedItemChange(orderedItem);
+		}
+		return orderedItemIDs;
+	}
+
+	@Override
+	public void updateWaiter(int waiterID, Waiter waiter)
+	{
 		logInf("Updating Waiter with ID " + waiterID + ".");
 
 		if(waiterID == 0) {
@@ -571,14 +1145,13 @@ public class DatabaseService implements DatabaseService_Interface
 
 		isWaiterComplete(waiter);
 
-		DBService_Waiter.updateWaiter(connection, waiterID, waiter);
+		useConnection(connection -> DBService_Waiter.updateWaiter(connection, waiterID, waiter));
+		authCache.invalidateWaiter(waiterID);
 	}
 
 	@Override
 	public void updateLogindata(Logindata logindata)
 	{
-		checkConnection();
-
 		logInf("Updating Logindata with Waiter-ID " + logindata.getWaiterID() + ".");
 
 		if(logindata.getWaiterID() == 0) {
@@ -595,7 +1168,8 @@ public class DatabaseService implements DatabaseService_Interface
 
 		isLogindataComplete(logindata);
 
-		DBService_LoginData.updateLogindata(connection, logindata);
+		useConnection(connection -> DBService_LoginData.updateLogindata(connection, logindata));
+		authCache.invalidateWaiter(logindata.getWaiterID());
 	}
 	//endregion
 
@@ -644,7 +1218,16 @@ public class DatabaseService implements DatabaseService_Interface
                     "Es konnte nichts gelöscht werden.");
         }
 
-        DBService_Order.deleteOrder(connection, orderID);
+        // Die bestellten Artikel werden mitgelöscht, deren Artikel sind danach wieder verfügbar
+        ArrayList<OrderedItem> orderedItems = withConnection(connection -> {
+            ArrayList<OrderedItem> deleted = DBService_OrderedItem.getOrderedItemsByOrderId(connection, orderID);
+            DBService_Order.deleteOrder(connection, orderID);
+            return deleted;
+        });
+        changeLog.record(ChangeLog.Entity.ORDER, orderID);
+        for(OrderedItem orderedItem: orderedItems)
+            changeLog.record(ChangeLog.Entity.ITEM, orderedItem.getItemID());
+        orderedItemEvents.deletedByOrder(orderID);
     }
 
     @Override
@@ -653,15 +1236,18 @@ public class DatabaseService implements DatabaseService_Interface
 	{
         logInf("Deleting Itemdelivery with ID " + itemdeliveryID + ".");
 
-        //Existenz einer Order mit der OrderID überprüfen
-        if(!existsItemdeliveryWithID(itemdeliveryID)) {
+        //Existenz eines Wareneingangs mit der itemdeliveryID überprüfen, dessen Artikel wird als geändert gemeldet
+        Itemdelivery itemdelivery =
+                withConnection(connection -> DBService_Itemdelivery.getItemdeliveryByID(connection, itemdeliveryID));
+        if(itemdelivery == null) {
             logErr("Itemdelivery with ID " + itemdeliveryID + " does not exist in the database!" +
 					" Nothing was deleted.");
             throw new DataException("Wareneingang mit der ID " + itemdeliveryID + " existiert nicht in der Datenbank! " +
                     "Es konnte nichts gelöscht werden.");
         }
 
-        DBService_Itemdelivery.deleteItemdelivery(connection, itemdeliveryID);
+        useConnection(connection -> DBService_Itemdelivery.deleteItemdelivery(connection, itemdeliveryID));
+        changeLog.record(ChangeLog.Entity.ITEM, itemdelivery.getItemID());
     }
 
 	@Override
@@ -669,20 +1255,55 @@ public class DatabaseService implements DatabaseService_Interface
 	{
 		logInf("Deleting OrderedItem with ID " + orderedItemID + ".");
 
-		//Existenz einer OrderedItem mit der orderedItemID überprüfen
-		if(!existsOrderedItemWithID(orderedItemID)) {
+		//Existenz einer OrderedItem mit der orderedItemID überprüfen, Order und Artikel werden als geändert gemeldet
+		OrderedItem orderedItem =
+				withConnection(connection -> DBService_OrderedItem.getOrderedItemById(connection, orderedItemID));
+		if(orderedItem == null) {
 			logErr("OrderedItem with ID " + orderedItemID + " does not exist in the database!" +
 					" Nothing was deleted.");
 			throw new DataException("Bestellter Artikel mit der ID " + orderedItemID +
 					" existiert nicht in der Datenbank! Es konnte nichts gelöscht werden.");
 		}
 
-		DBService_OrderedItem.deleteOrderedItem(connection, orderedItemID);
+		useConnection(connection -> DBService_OrderedItem.deleteOrderedItem(connection, orderedItemID));
+		orderedItemEvents.deleted(orderedItemID);
+		recordOrderedItemChange(orderedItem);
 	}
 
 	public void deleteOrderedItemByOrderId(int orderID)
 	{
-		DBService_OrderedItem.deleteOrderedItemByOrderId(connection, orderID);
+		ArrayList<OrderedItem> orderedItems = withConnection(connection -> {
+			ArrayList<OrderedItem> deleted = DBService_OrderedItem.getOrderedItemsByOrderId(connection, orderID);
+			DBService_OrderedItem.deleteOrderedItemByOrderId(connection, orderID);
+			return deleted;
+		});
+		orderedItemEvents.deletedByOrder(orderID);
+		for(OrderedItem orderedItem: orderedItems)
+			recordOrderedItemChange(orderedItem);
+	}
+
+	/**
+	 * Meldet die Order und den Artikel eines bestellten Artikels als geändert, da sich Preis und Bezahlstatus der
+	 * Order sowie die Anzahl des Artikels daraus ergeben.
+	 */
+	private void recordOrderedItemChange(OrderedItem orderedItem)
+	{
+		changeLog.record(ChangeLog.Entity.ORDER, orderedItem.getOrderID());
+		changeLog.record(ChangeLog.Entity.ITEM, orderedItem.getItemID());
+	}
+
+	/**
+	 * @return Die Ereignisse zu neuen, geänderten und gelöschten bestellten Artikeln.
+	 */
+	public OrderedItemEvents getOrderedItemEvents()
+	{
+		return orderedItemEvents;
+	}
+
+	private static OrderedItem copyWithID(int orderedItemID, OrderedItem orderedItem)
+	{
+		return new OrderedItem(orderedItemID, orderedItem.getOrderID(), orderedItem.getItemID(),
+				orderedItem.isItemPaid(), orderedItem.isItemProduced(), orderedItem.getComment());
 	}
 
 	@Override
@@ -710,13 +1331,14 @@ public class DatabaseService implements DatabaseService_Interface
 					" existieren nicht in der Datenbank! Es konnte nichts gelöscht werden.");
 		}
 
-		DBService_LoginData.deleteLogindata(connection, waiterID);
+		useConnection(connection -> DBService_LoginData.deleteLogindata(connection, waiterID));
+		authCache.invalidateWaiter(waiterID);
 	}
 	//endregion
 
 	//region Drucken
 	@Override
-    public void printOrderById(int orderID) throws NullPointerException, DataException,
+    public PrintJob printOrderById(int orderID) throws NullPointerException, DataException,
             MySQLServerConnectionException
 	{
         if(orderID == 0) {
@@ -724,45 +1346,108 @@ public class DatabaseService implements DatabaseService_Interface
             throw new NullPointerException("No Order-ID given.");
         }
 
-        //Existenz einer Order mit der OrderID überprüfen
-        if(!orderIsAvailable(orderID)) {
-            logErr("Order with ID " + orderID + " does not exist in the database!");
-            throw new DataException("Bestellung mit der ID " + orderID + " existiert nicht in der Datenbank! Es kann nichts gedruckt werden.");
-        }
-
-        this.printReceipt(orderID);
+        // Die Existenz der Order wird beim Ermitteln der Druckdaten überprüft
+        return this.printReceipt(orderID);
     }
 
     // Funktion die selbe wie printOrderById(), bis auf Überprüfung
 	// Ist die Methode überhaupt notwendig?
 	@Override
-	public void printReceipt(int orderID)
+	public PrintJob printReceipt(int orderID)
+	{
+		// Order, Tisch und bestellte Artikel werden über eine einzige Verbindung ermittelt
+		PrintData data = withConnection(connection -> getPrintData(connection, orderID, true));
+
+		return getPrinterService().printReceipt(data.order, data.table, data.orderedItems);
+	}
+
+	@Override
+	public List<PrintJob> printOrder(int orderID, ArrayList<OrderedItem> orderedItems)
 	{
-		PrinterService printerService = new PrinterService();
-		printerService.printReceipt(orderID);
+		// Order und Tisch werden über eine einzige Verbindung ermittelt
+		PrintData data = withConnection(connection -> getPrintData(connection, orderID, false));
+
+		return getPrinterService().printOrder(data.order, data.table, orderedItems);
 	}
 
 	@Override
-	public void printOrder(int orderID, ArrayList<OrderedItem> orderedItems)
+	public PrintJob printLogindata(String loginname, String password, Waiter waiter)
 	{
-		PrinterService printerService = new PrinterService();
-		printerService.printOrder(orderID, orderedItems);
+		return getPrinterService().printLogindata(loginname, password, waiter);
 	}
 
 	@Override
-	public void printLogindata(String loginname, String password, Waiter waiter)
+	public PrintJob printDataConflict(ArrayList<OrderedItem> orderedItems)
+	{
+		// Tische aller betroffenen Orders werden über eine einzige Verbindung ermittelt
+		Map<Integer, Table> tablesByOrderID = withConnection(connection -> {
+			Map<Integer, Table> tables = new HashMap<>();
+			for(OrderedItem orderedItem: orderedItems)
+			{
+				int orderID = orderedItem.getOrderID();
+				if(tables.containsKey(orderID))
+					continue;
+				tables.put(orderID, getPrintData(connection, orderID, false).table);
+			}
+			return tables;
+		});
+
+		return getPrinterService().printDataConflict(orderedItems, tablesByOrderID);
+	}
+
+	/**
+	 * Setzt den PrinterService, über den gedruckt wird. Wird von Spring beim Start gesetzt.
+	 * Da der PrinterService selbst den DatabaseService benötigt, wird er erst beim ersten Druck aufgelöst.
+	 * @param printerService Der zu verwendende PrinterService.
+	 */
+	@Autowired(required = false)
+	public void setPrinterService(@Lazy PrinterService printerService)
 	{
-		PrinterService printerService = new PrinterService();
+		this.printerService = printerService;
+	}
 
-		printerService.printLogindata(loginname, password, waiter);
+	private PrinterService getPrinterService()
+	{
+		// Außerhalb des Spring-Kontexts wird ein eigener PrinterService für diesen DatabaseService erzeugt
+		if(printerService == null)
+			printerService = new PrinterService(this);
+		return printerService;
 	}
 
-	@Override
-	public void printDataConflict(ArrayList<OrderedItem> orderedItems)
+	/**
+	 * Ermittelt die Daten einer Order, die zum Drucken benötigt werden.
+	 * @param connection Die geliehene Verbindung, über die alle Daten gelesen werden.
+	 * @param orderID Die ID der zu druckenden Order.
+	 * @param withOrderedItems Ob auch alle bestellten Artikel der Order gelesen werden sollen.
+	 * @return Order, Tisch und gegebenenfalls die bestellten Artikel.
+	 * @throws DataException Wenn die Order nicht existiert.
+	 */
+	private static PrintData getPrintData(Connection connection, int orderID, boolean withOrderedItems)
 	{
-		PrinterService printerService = new PrinterService();
+		Order order = DBService_Order.getOrderByID(connection, orderID);
+		if(order == null)
+		{
+			logErr("Order with ID " + orderID + " does not exist in the database!");
+			throw new DataException("Bestellung mit der ID " + orderID + " existiert nicht in der Datenbank!" +
+					" Es kann nichts gedruckt werden.");
+		}
 
-		printerService.printDataConflict(orderedItems);
+		PrintData data = new PrintData();
+		data.order = order;
+		data.table = DBService_Table.getTableById(connection, order.getTable());
+		if(withOrderedItems)
+			data.orderedItems = DBService_OrderedItem.getOrderedItemsByOrderId(connection, orderID);
+		return data;
+	}
+
+	private static final class PrintData
+	{
+		private Order order;
+		private Table table;
+		private ArrayList<OrderedItem> orderedItems;
+		// Nur beim Anlegen einer Bestellung mit Artikeln gesetzt
+		private ArrayList<Integer> orderedItemIDs;
+		private boolean newOrder;
 	}
 	//endregion
 
@@ -776,13 +1461,32 @@ public class DatabaseService implements DatabaseService_Interface
 	public boolean authentificate(String loginname, String passwordHash)
 			throws NotAuthentificatedException
 	{
-		return DBService_LoginData.authentificate(connection, loginname, passwordHash);
+		AuthCache.Credentials credentials = getCredentials(loginname);
+		if(credentials != null && credentials.matches(passwordHash))
+			return true;
+
+		throw new NotAuthentificatedException("Login fehlgeschlagen!");
 	}
 
 	public int getWaiterIdByLoginData(String loginname, String passwordhash)
 			throws NotAuthentificatedException
 	{
-		return DBService_LoginData.getWaiterIdByLogindata(connection, loginname, passwordhash);
+		AuthCache.Credentials credentials = getCredentials(loginname);
+		if(credentials != null && credentials.passwordHash.equals(passwordhash))
+			return credentials.waiterID;
+
+		throw new NotAuthentificatedException("Mit den Logindaten scheint keine Bedienung zu existieren!");
+	}
+
+	/**
+	 * Liefert die Logindaten zu einem Loginnamen aus dem {@link AuthCache}.
+	 * @param loginname Der Loginname.
+	 * @return Die Logindaten, null wenn der Loginname nicht existiert.
+	 */
+	private AuthCache.Credentials getCredentials(String loginname)
+	{
+		return authCache.get(loginname, name ->
+				withConnection(connection -> DBService_LoginData.getCredentials(connection, name)));
 	}
 
 	/**
@@ -982,45 +1686,45 @@ public class DatabaseService implements DatabaseService_Interface
     private boolean existsItemWithID(int itemID)
 	{
 
-        return DBService_Item.existsItemWithID(connection, itemID);
+        return withConnection(connection -> DBService_Item.existsItemWithID(connection, itemID));
     }
 
     private boolean orderIsAvailable(int orderID)
 	{
 
-        return DBService_Order.existsOrderWithID(connection, orderID);
+        return withConnection(connection -> DBService_Order.existsOrderWithID(connection, orderID));
     }
 
     private boolean existsTableWithID(int tableID)
 	{
 
-        return DBService_Table.existsTableWithID(connection, tableID);
+        return withConnection(connection -> DBService_Table.existsTableWithID(connection, tableID));
     }
 
     private boolean existsItemdeliveryWithID(int itemdeliveryID)
 	{
-        return DBService_Itemdelivery.existsItemdeliveryWithID(connection, itemdeliveryID);
+        return withConnection(connection -> DBService_Itemdelivery.existsItemdeliveryWithID(connection, itemdeliveryID));
     }
 
     public boolean existsOrderedItemWithID(int orderedItemID)
 	{
-		return DBService_OrderedItem.existsOrderedItemWithID(connection, orderedItemID);
+		return withConnection(connection -> DBService_OrderedItem.existsOrderedItemWithID(connection, orderedItemID));
 	}
 
 	private boolean existsWaiterWithID(int waiterID)
 	{
 
-		return DBService_Waiter.existsWaiterWithID(connection, waiterID);
+		return withConnection(connection -> DBService_Waiter.existsWaiterWithID(connection, waiterID));
 	}
 
 	public boolean existsLogindataWithWaiterID(int waiterID)
 	{
-		return DBService_LoginData.existsLogindataWithWaiterID(connection, waiterID);
+		return withConnection(connection -> DBService_LoginData.existsLogindataWithWaiterID(connection, waiterID));
 	}
 
 	public boolean existsLogindataWithLoginname(String loginname)
 	{
-		return DBService_LoginData.existsLogindataWithLoginname(connection, loginname);
+		return withConnection(connection -> DBService_LoginData.existsLogindataWithLoginname(connection, loginname));
 	}
 	//endregion
 
@@ -1030,6 +1734,34 @@ public class DatabaseService implements DatabaseService_Interface
 		return (double) Math.round(number * 100d) / 100d;
 	}
 
+	/**
+	 * Erzeugt eine Liste von Platzhaltern für eine IN-Bedingung, z.B. "?, ?, ?".
+	 * @param count Anzahl der Platzhalter.
+	 * @return Die durch Kommata getrennten Platzhalter.
+	 */
+	static String getPlaceholders(int count)
+	{
+		StringBuilder placeholders = new StringBuilder();
+		for(int i = 0; i < count; i++)
+			placeholders.append(i == 0 ? "?" : ", ?");
+		return placeholders.toString();
+	}
+
+	/**
+	 * Bereitet eine Abfrage vor, deren Ergebnis zeilenweise vom Server gelesen wird, statt vollständig in den
+	 * Speicher geladen zu werden. Der MySQL-Treiber streamt das Ergebnis nur bei einer Fetch-Size von
+	 * Integer.MIN_VALUE und einem Forward-Only-ResultSet. Solange das ResultSet offen ist, kann über die Verbindung
+	 * keine weitere Abfrage ausgeführt werden.
+	 * @param query Die auszuführende Abfrage.
+	 */
+	static PreparedStatement prepareStreamingStatement(Connection connection, String query) throws SQLException
+	{
+		PreparedStatement pst = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY);
+		pst.setFetchSize(Integer.MIN_VALUE);
+		return pst;
+	}
+
 	//Konverter
 
     /**
@@ -1,6 +1,7 @@
 package dhbw.sa.kassensystem_rest.database.databaseservice;
 
 import dhbw.sa.kassensystem_rest.database.entity.*;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
 import dhbw.sa.kassensystem_rest.exceptions.DataException;
 import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
 
@@ -8,6 +9,10 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logErr;
 import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logInf;
@@ -49,7 +54,7 @@ public interface DatabaseService_Interface
 	}
 
     /**
-     * Beendet eine bestehende Verbindung mit einem MySQL-Server.
+     * Schließt den Connection-Pool und damit alle bestehenden Verbindungen mit dem MySQL-Server.
      */
     void disconnect();
 
@@ -68,6 +73,14 @@ public interface DatabaseService_Interface
 	 */
 	Item getItemById(int itemID);
 
+	/**
+	 * Liefert ein {@link Item} der Speisekarte aus dem Cache, ohne dessen Anzahl zu ermitteln.
+	 * Geeignet, wenn nur Name, Preis oder Verfügbarkeit benötigt werden, z.B. beim Drucken.
+	 * @param itemID ID des Artikels.
+	 * @return Item mit angegebener ID, die Anzahl ist nicht gesetzt.
+	 */
+	Item getCatalogItem(int itemID);
+
 	/**
 	 * Fragt alle verfügbaren Artikel der Datenbank ab.
 	 * @return Eine Liste mit allen verfügbaren Artikeln.
@@ -101,6 +114,56 @@ public interface DatabaseService_Interface
      */
     ArrayList<Order> getAllOrders();
 
+	/**
+	 * Liest alle Bestellungen zeilenweise aus der Datenbank und übergibt jeden Datensatz direkt nach dem Lesen, sodass der
+	 * Speicherbedarf unabhängig von der Anzahl der Datensätze ist. Die Verbindung bleibt belegt, bis alle
+	 * Datensätze verarbeitet sind.
+	 * @param consumer Verarbeitet die Datensätze, z.B. indem er sie direkt in die Antwort schreibt.
+	 */
+	void streamAllOrders(Consumer<Order> consumer);
+
+	/**
+	 * Fragt eine Seite der Bestellungen ab, sortiert nach orderID.
+	 * @param filter Die Kriterien, die die Bestellungen erfüllen müssen.
+	 * @param cursor Der Cursor der vorherigen Seite, null für die erste Seite.
+	 * @param limit Die maximale Anzahl der Bestellungen, 0 für die Standardgröße.
+	 * @return Die Bestellungen und der Cursor der nächsten Seite.
+	 */
+	Page<Order> getOrders(OrderFilter filter, String cursor, int limit);
+
+	/**
+	 * Fragt eine Seite der bestellten Artikel ab, sortiert nach orderedItemID.
+	 * @param filter Die Kriterien, die die bestellten Artikel bzw. deren Bestellungen erfüllen müssen.
+	 * @param cursor Der Cursor der vorherigen Seite, null für die erste Seite.
+	 * @param limit Die maximale Anzahl der bestellten Artikel, 0 für die Standardgröße.
+	 * @return Die bestellten Artikel und der Cursor der nächsten Seite.
+	 */
+	Page<OrderedItem> getOrderedItems(OrderFilter filter, String cursor, int limit);
+
+	/**
+	 * Liefert die seit einer Version hinzugefügten, geänderten und nicht mehr verfügbaren Artikel.
+	 * @param since Die Version der letzten Abfrage.
+	 * @return Die Änderungen und die neue Version, oder alle verfügbaren Artikel, wenn die Änderungen seit der
+	 * Version nicht mehr vorliegen.
+	 */
+	Delta<Item> getAvailableItemsSince(long since);
+
+	/**
+	 * Liefert die seit einer Version hinzugefügten, geänderten und nicht mehr verfügbaren Tische.
+	 * @param since Die Version der letzten Abfrage.
+	 * @return Die Änderungen und die neue Version, oder alle verfügbaren Tische, wenn die Änderungen seit der
+	 * Version nicht mehr vorliegen.
+	 */
+	Delta<Table> getAvailableTablesSince(long since);
+
+	/**
+	 * Liefert die seit einer Version hinzugefügten, geänderten und gelöschten Bestellungen.
+	 * @param since Die Version der letzten Abfrage.
+	 * @return Die Änderungen und die neue Version, oder alle Bestellungen, wenn die Änderungen seit der Version
+	 * nicht mehr vorliegen.
+	 */
+	Delta<Order> getOrdersSince(long since);
+
 	/**
 	 * Liefert eine Bestellung in Abhängigkeit von einer ID.
 	 * @param orderID ID der Bestellung.
@@ -116,6 +179,13 @@ public interface DatabaseService_Interface
 	 */
 	float getOrderPrice(int orderID);
 
+	/**
+	 * Berechnet die Preise mehrerer Bestellungen mit einer gemeinsamen Abfrage.
+	 * @param orderIDs IDs der Bestellungen, deren Preise ermittelt werden sollen.
+	 * @return Den Preis je orderID. Bestellungen ohne bestellte Artikel haben den Preis 0.
+	 */
+	Map<Integer, Float> getOrderPrices(Collection<Integer> orderIDs);
+
 	// Itemdeliveries
     /**
      * Fragt die Wareneingaenge der Datenbank ab.
@@ -123,6 +193,14 @@ public interface DatabaseService_Interface
      */
     ArrayList<Itemdelivery> getAllItemdeliveries();
 
+	/**
+	 * Liest alle Wareneingaenge zeilenweise aus der Datenbank und übergibt jeden Datensatz direkt nach dem Lesen, sodass der
+	 * Speicherbedarf unabhängig von der Anzahl der Datensätze ist. Die Verbindung bleibt belegt, bis alle
+	 * Datensätze verarbeitet sind.
+	 * @param consumer Verarbeitet die Datensätze, z.B. indem er sie direkt in die Antwort schreibt.
+	 */
+	void streamAllItemdeliveries(Consumer<Itemdelivery> consumer);
+
 	/**
 	 * Ermittelt anhand einer gegebenen Itemdelivery-ID den zugehörigen Wareneingang ({@link Itemdelivery}).
 	 * @param itemdeliveryID ID des zu ermittelnden Wareneingangs.
@@ -137,6 +215,14 @@ public interface DatabaseService_Interface
      */
     ArrayList<OrderedItem> getAllOrderedItems();
 
+	/**
+	 * Liest alle bestellten Artikel zeilenweise aus der Datenbank und übergibt jeden Datensatz direkt nach dem Lesen, sodass der
+	 * Speicherbedarf unabhängig von der Anzahl der Datensätze ist. Die Verbindung bleibt belegt, bis alle
+	 * Datensätze verarbeitet sind.
+	 * @param consumer Verarbeitet die Datensätze, z.B. indem er sie direkt in die Antwort schreibt.
+	 */
+	void streamAllOrderedItems(Consumer<OrderedItem> consumer);
+
 	/**
 	 * Bestellten Artikel anhand einer ID ermitteln.
 	 * @param orderedItemID ID des bestellten Artikels.
@@ -200,6 +286,15 @@ public interface DatabaseService_Interface
      */
     int addOrder(Order order);
 
+	/**
+	 * Legt eine Bestellung zusammen mit ihren bestellten Artikeln in einer Transaktion an. Hat der Tisch bereits
+	 * eine offene Bestellung, werden die Artikel zu dieser hinzugefügt. Anschließend werden die Küchenbelege
+	 * gedruckt.
+	 * @param newOrder Die Bestellung mit Tisch, Datum und Bedienung sowie die bestellten Artikel ohne orderID.
+	 * @return Die orderID, die orderedItemIDs und die IDs der Druckaufträge.
+	 */
+	CreatedOrder addOrderWithItems(NewOrder newOrder);
+
     /**
      * Fügt der Datenbank einen neuen Wareneingang hinzu.
      * @param itemdelivery neuer Wareneingang.
@@ -212,6 +307,14 @@ public interface DatabaseService_Interface
 	 */
 	void addOrderedItem(OrderedItem orderedItem);
 
+	/**
+	 * Fügt der Datenbank mehrere neue OrderedItems in einer Transaktion hinzu. Alle OrderedItems werden vor dem
+	 * Hinzufügen überprüft, sodass entweder alle oder keines gespeichert werden.
+	 * @param orderedItems Die hinzuzufügenden OrderedItems.
+	 * @return Die vergebenen IDs der OrderedItems in der Reihenfolge der übergebenen OrderedItems.
+	 */
+	ArrayList<Integer> addOrderedItems(ArrayList<OrderedItem> orderedItems);
+
 	/**
 	 * Fügt der MySQL-Datenbank eine neue Bedienung hinzu.
 	 * @param waiter Die hinzuzufügende Bedienung.
@@ -254,6 +357,30 @@ public interface DatabaseService_Interface
 	 */
 	void updateOrderedItem(int orderedItemID, OrderedItem orderedItem);
 
+	/**
+	 * Ändert mehrere bestellte Artikel. Die Existenz aller Artikel sowie der referenzierten Bestellungen und Artikel
+	 * wird mit je einer Abfrage geprüft und die Änderungen werden mit einem Batch-Update in einer Transaktion
+	 * gespeichert. Unvollständige Artikel und solche mit nicht existierenden IDs werden übersprungen und im Ergebnis
+	 * gemeldet, ohne die Änderung der übrigen zu verhindern.
+	 * @param orderedItems Die geänderten Artikel, jeweils mit ihrer orderedItemID.
+	 * @return Die geänderten und die fehlgeschlagenen Artikel.
+	 */
+	BulkUpdateResult updateOrderedItems(List<OrderedItem> orderedItems);
+
+	/**
+	 * Markiert die ausgewählten bestellten Artikel mit einem einzigen UPDATE als bezahlt.
+	 * @param selector Die orderedItemIDs oder die Bestellung und optional der Artikel.
+	 * @return Die orderedItemIDs der ausgewählten Artikel, die bisher nicht bezahlt waren.
+	 */
+	ArrayList<Integer> payOrderedItems(OrderedItemSelector selector);
+
+	/**
+	 * Markiert die ausgewählten bestellten Artikel mit einem einzigen UPDATE als produziert.
+	 * @param selector Die orderedItemIDs oder die Bestellung und optional der Artikel.
+	 * @return Die orderedItemIDs der ausgewählten Artikel, die bisher nicht produziert waren.
+	 */
+	ArrayList<Integer> produceOrderedItems(OrderedItemSelector selector);
+
 	/**
 	 * Aktualisiert eine Bedienung in der Datenbank mit den Daten eines neuen Bedienungs-Datensatzes.
 	 * @param waiterID ID der zu aktualisierenden Bedienung.
@@ -317,29 +444,34 @@ public interface DatabaseService_Interface
      * Ausdrucken einer Bestellung in Abhängigkeit von einer ID.
 	 * Hierbei handelt es sich um einen Kundenbeleg.
      * @param orderID ID der auszudruckenden Order.
+	 * @return Der Druckauftrag in der Warteschlange des Druckers.
      */
-    void printOrderById(int orderID);
+    PrintJob printOrderById(int orderID);
 
 	/**
 	 * Ausdrucken eines Kundenbeleges in Abhängigkeit von einer ID.
 	 * @param orderID ID der auszudruckenden Order.
+	 * @return Der Druckauftrag in der Warteschlange des Druckers.
 	 */
-	void printReceipt(int orderID);
+	PrintJob printReceipt(int orderID);
 
 	/**
-	 * Druckt eine Order für die Küche aus mit den neu hinzugefügten orderedItems.
+	 * Druckt eine Order für die Küche aus mit den neu hinzugefügten orderedItems. Die Artikel werden nach den
+	 * Druckerrouten auf die Drucker verteilt.
 	 * @param orderID ID der auszudruckenden Order.
 	 * @param orderedItems Die neu hinzugefügten Artikel, die in der Küche zubereitet werden sollen.
+	 * @return Die Druckaufträge in den Warteschlangen der Drucker, einer je Drucker.
 	 */
-	void printOrder(int orderID, ArrayList<OrderedItem> orderedItems);
+	List<PrintJob> printOrder(int orderID, ArrayList<OrderedItem> orderedItems);
 
 	/**
 	 * Druckt einen Login-Daten-Satz aus.
 	 * @param loginname Der Login-Name.
 	 * @param password Das Passwort in Klartext!
 	 * @param waiter Die zum Login-Daten-Satz gehörende Bedienung.
+	 * @return Der Druckauftrag in der Warteschlange des Druckers.
 	 */
-	void printLogindata(String loginname, String password, Waiter waiter);
+	PrintJob printLogindata(String loginname, String password, Waiter waiter);
 
 	/**
 	 * Druckt einen gelösten Datenkonflikt aus. Ein Datenkonflikt tritt im GUI auf, wenn der Warenbestand eines
@@ -347,8 +479,9 @@ public interface DatabaseService_Interface
 	 * abgeschlossen wurde, wird ein Ausdruck getätigt, auf dem die zu informierenden Tische mit den betroffenen
 	 * und nicht mehr verfügbaren Artikeln vermerkt sind. So können alle Kunden informiert werden.
 	 * @param orderedItems Alle vom Datenkonflikt betroffenen bestellten Artikel.
+	 * @return Der Druckauftrag in der Warteschlange des Druckers.
 	 */
-	void printDataConflict(ArrayList<OrderedItem> orderedItems);
+	PrintJob printDataConflict(ArrayList<OrderedItem> orderedItems);
 	//endregion
 
 
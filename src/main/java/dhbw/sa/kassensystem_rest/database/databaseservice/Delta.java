@@ -0,0 +1,48 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import java.util.List;
+
+/**
+ * Die Änderungen einer Liste seit einer bekannten Version.
+ *
+ * Ein Tablet ersetzt bzw. ergänzt seine Daten um die geänderten Datensätze und entfernt die gelöschten IDs. Ist
+ * full gesetzt, enthält changed die vollständige Liste und das Tablet verwirft seine bisherigen Daten. Die
+ * Version wird bei der nächsten Abfrage als "since" übergeben.
+ *
+ * @author Marvin Mai
+ */
+public final class Delta<T>
+{
+	private final long version;
+	private final boolean full;
+	private final List<T> changed;
+	private final List<Integer> deleted;
+
+	Delta(long version, boolean full, List<T> changed, List<Integer> deleted)
+	{
+		this.version = version;
+		this.full = full;
+		this.changed = changed;
+		this.deleted = deleted;
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+
+	public boolean isFull()
+	{
+		return full;
+	}
+
+	public List<T> getChanged()
+	{
+		return changed;
+	}
+
+	public List<Integer> getDeleted()
+	{
+		return deleted;
+	}
+}
@@ -0,0 +1,150 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import dhbw.sa.kassensystem_rest.database.entity.Item;
+import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logErr;
+import static dhbw.sa.kassensystem_rest.database.databaseservice.Log.logInf;
+
+/**
+ * Zwischenspeicher für die Artikel der Speisekarte (ID, Name, Verkaufspreis, Verfügbarkeit).
+ *
+ * Die Speisekarte ändert sich selten, wird aber z.B. beim Drucken für jeden bestellten Artikel benötigt.
+ * Der Cache wird vollständig mit einer Abfrage geladen, bei Änderungen über den {@link DatabaseService}
+ * verworfen und spätestens nach der in den {@link DatabaseProperties} festgelegten Zeit neu geladen, damit
+ * auch Änderungen direkt in der Datenbank übernommen werden. Nicht enthaltene Artikel werden einzeln
+ * nachgeladen.
+ *
+ * Die Anzahl eines Artikels ändert sich mit jeder Bestellung und wird daher nicht zwischengespeichert.
+ *
+ * @author Marvin Mai
+ */
+final class ItemCache
+{
+	private final DataSource dataSource;
+	private final long ttlMillis;
+
+	private final Map<Integer, Item> items = new ConcurrentHashMap<>();
+	// Zeitpunkt, ab dem der Cache neu geladen werden muss. 0, solange der Cache nicht geladen ist.
+	private volatile long expiresAt = 0;
+	// Wird bei jedem Verwerfen erhöht. Geladene Artikel werden nur übernommen, wenn der Cache während des Ladens
+	// nicht verworfen wurde, da sie sonst bereits veraltet sein können.
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong loads = new AtomicLong();
+
+	/**
+	 * @param dataSource Die DataSource, aus der die Artikel geladen werden.
+	 * @param ttlMillis Zeit in Millisekunden, nach der der Cache neu geladen wird.
+	 */
+	ItemCache(DataSource dataSource, long ttlMillis)
+	{
+		this.dataSource = dataSource;
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Liefert einen Artikel der Speisekarte. Ist der Cache abgelaufen, wird er zuvor vollständig neu geladen.
+	 * @param itemID ID des Artikels.
+	 * @return Eine Kopie des Artikels ohne Anzahl, null wenn kein Artikel mit der ID existiert.
+	 */
+	Item get(int itemID)
+	{
+		if(System.currentTimeMillis() >= expiresAt)
+			load();
+
+		Item item = items.get(itemID);
+		if(item != null)
+		{
+			hits.incrementAndGet();
+		}
+		else
+		{
+			misses.incrementAndGet();
+			long loadedGeneration = generation.get();
+			item = withConnection(connection -> DBService_Item.getCatalogItemByID(connection, itemID));
+			if(item == null)
+				return null;
+			if(generation.get() == loadedGeneration)
+				items.put(itemID, item);
+		}
+		return new Item(item.getItemID(), item.getName(), item.getRetailprice(), item.isAvailable());
+	}
+
+	/**
+	 * Lädt alle Artikel der Speisekarte mit einer einzigen Abfrage neu.
+	 */
+	synchronized void load()
+	{
+		// Ein anderer Thread hat den Cache bereits neu geladen
+		if(System.currentTimeMillis() < expiresAt)
+			return;
+
+		long loadedGeneration = generation.get();
+		Map<Integer, Item> catalog = withConnection(DBService_Item::getItemCatalog);
+		// Während des Ladens verworfen, der nächste Zugriff lädt erneut
+		if(generation.get() != loadedGeneration)
+			return;
+
+		items.keySet().retainAll(catalog.keySet());
+		items.putAll(catalog);
+		expiresAt = System.currentTimeMillis() + ttlMillis;
+		// Ein zwischen Prüfung und Übernahme verworfener Cache bleibt verworfen
+		if(generation.get() != loadedGeneration)
+			expiresAt = 0;
+		loads.incrementAndGet();
+		logInf("Loaded " + catalog.size() + " Items into the item cache.");
+	}
+
+	/**
+	 * Verwirft den Cache, sodass er beim nächsten Zugriff neu geladen wird.
+	 */
+	void invalidate()
+	{
+		generation.incrementAndGet();
+		expiresAt = 0;
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Caches.
+	 * @return Treffer, Fehlschläge, Trefferquote, Anzahl der Ladevorgänge und Anzahl der Artikel.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		long hitCount = hits.get();
+		long missCount = misses.get();
+		long total = hitCount + missCount;
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("hits", hitCount);
+		statistics.put("misses", missCount);
+		statistics.put("hitRatio", total == 0 ? 0.0 : DatabaseService.round((double) hitCount / total));
+		statistics.put("loads", loads.get());
+		statistics.put("size", items.size());
+		return statistics;
+	}
+
+	private <T> T withConnection(Function<Connection, T> work)
+	{
+		try(Connection connection = dataSource.getConnection())
+		{
+			return work.apply(connection);
+		} catch (SQLException e)
+		{
+			logErr("No connection available from the connection pool.");
+			e.printStackTrace();
+			throw new MySQLServerConnectionException();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import dhbw.sa.kassensystem_rest.database.entity.Order;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Eine Bestellung zusammen mit ihren bestellten Artikeln, die in einer Anfrage angelegt werden.
+ *
+ * Die orderID der Artikel wird nicht übergeben. Sie wird vom Server gesetzt, nachdem die offene Bestellung des
+ * Tisches ermittelt oder eine neue angelegt wurde.
+ *
+ * @author Marvin Mai
+ */
+public final class NewOrder
+{
+	private final Order order;
+	private final List<OrderedItem> orderedItems;
+
+	public NewOrder(@JsonProperty("order") Order order,
+					@JsonProperty("orderedItems") List<OrderedItem> orderedItems)
+	{
+		this.order = order;
+		this.orderedItems = orderedItems == null ? new ArrayList<>() : orderedItems;
+	}
+
+	public Order getOrder()
+	{
+		return order;
+	}
+
+	public List<OrderedItem> getOrderedItems()
+	{
+		return orderedItems;
+	}
+}
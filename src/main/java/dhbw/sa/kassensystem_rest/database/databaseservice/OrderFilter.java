@@ -0,0 +1,73 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import org.joda.time.DateTime;
+
+/**
+ * Filter für die seitenweise Abfrage von Bestellungen und bestellten Artikeln. Nicht gesetzte Kriterien (null)
+ * werden nicht berücksichtigt.
+ *
+ * Die Kriterien werden direkt in die SQL-Abfrage übernommen, sodass nur die angezeigten Datensätze aus der
+ * Datenbank gelesen werden. Bei bestellten Artikeln beziehen sich Tisch, Bedienung und Zeitraum auf die
+ * zugehörige Bestellung.
+ *
+ * @author Marvin Mai
+ */
+public final class OrderFilter
+{
+	private final Boolean open;
+	private final Integer tableID;
+	private final Integer waiterID;
+	private final DateTime from;
+	private final DateTime to;
+
+	/**
+	 * @param open true für nicht vollständig bezahlte Bestellungen bzw. nicht bezahlte Artikel, false für
+	 *             bezahlte.
+	 * @param tableID Nur Bestellungen dieses Tisches.
+	 * @param waiterID Nur Bestellungen dieser Bedienung.
+	 * @param from Nur Bestellungen ab diesem Zeitpunkt (einschließlich).
+	 * @param to Nur Bestellungen vor diesem Zeitpunkt.
+	 */
+	public OrderFilter(Boolean open, Integer tableID, Integer waiterID, DateTime from, DateTime to)
+	{
+		this.open = open;
+		this.tableID = tableID;
+		this.waiterID = waiterID;
+		this.from = from;
+		this.to = to;
+	}
+
+	public Boolean getOpen()
+	{
+		return open;
+	}
+
+	public Integer getTableID()
+	{
+		return tableID;
+	}
+
+	public Integer getWaiterID()
+	{
+		return waiterID;
+	}
+
+	public DateTime getFrom()
+	{
+		return from;
+	}
+
+	public DateTime getTo()
+	{
+		return to;
+	}
+
+	/**
+	 * @return Ob Kriterien der Bestellung gesetzt sind, für die bei bestellten Artikeln die Bestellung
+	 * hinzugenommen werden muss.
+	 */
+	boolean filtersOrder()
+	{
+		return tableID != null || waiterID != null || from != null || to != null;
+	}
+}
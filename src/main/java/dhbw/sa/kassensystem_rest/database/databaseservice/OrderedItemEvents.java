@@ -0,0 +1,168 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Benachrichtigt über neue, geänderte und gelöschte bestellte Artikel.
+ *
+ * Die Ereignisse werden von den schreibenden Methoden des {@link DatabaseService} nach erfolgreicher Änderung in
+ * der Datenbank ausgelöst. Küchen- und Barbildschirme müssen dadurch nicht mehr regelmäßig alle nicht
+ * produzierten Artikel abfragen. Die letzten Ereignisse werden aufbewahrt, damit ein Bildschirm nach einem
+ * Verbindungsabbruch die verpassten Ereignisse nachholen kann.
+ *
+ * @author Marvin Mai
+ */
+public final class OrderedItemEvents
+{
+	public enum Type { ADDED, UPDATED, DELETED }
+
+	// Anzahl der aufbewahrten Ereignisse
+	private static final int historySize = 1000;
+
+	private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+	private final ArrayDeque<Event> history = new ArrayDeque<>();
+	private long nextSequence = 1;
+
+	OrderedItemEvents() {}
+
+	/**
+	 * Meldet einen Empfänger für alle folgenden Ereignisse an.
+	 * @param listener Wird für jedes Ereignis im Thread der schreibenden Anfrage aufgerufen und darf daher
+	 *                 nicht blockieren.
+	 */
+	public void subscribe(Consumer<Event> listener)
+	{
+		listeners.add(listener);
+	}
+
+	public void unsubscribe(Consumer<Event> listener)
+	{
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Liefert die aufbewahrten Ereignisse nach einem bekannten Ereignis.
+	 * @param sequence Die Nummer des letzten empfangenen Ereignisses.
+	 * @return Die verpassten Ereignisse, null wenn diese nicht mehr vollständig aufbewahrt werden.
+	 */
+	public synchronized List<Event> getEventsAfter(long sequence)
+	{
+		if(sequence >= nextSequence)
+			return null;
+		if(!history.isEmpty() && history.peekFirst().getSequence() > sequence + 1)
+			return null;
+
+		List<Event> events = new ArrayList<>();
+		for(Event event: history)
+		{
+			if(event.getSequence() > sequence)
+				events.add(event);
+		}
+		return events;
+	}
+
+	/**
+	 * @return Die Nummer des letzten Ereignisses, 0 wenn noch keines ausgelöst wurde.
+	 */
+	public synchronized long getLastSequence()
+	{
+		return nextSequence - 1;
+	}
+
+	void added(OrderedItem orderedItem)
+	{
+		publish(Type.ADDED, orderedItem.getOrderedItemID(), orderedItem.getOrderID(), orderedItem);
+	}
+
+	void updated(OrderedItem orderedItem)
+	{
+		publish(Type.UPDATED, orderedItem.getOrderedItemID(), orderedItem.getOrderID(), orderedItem);
+	}
+
+	void deleted(int orderedItemID)
+	{
+		publish(Type.DELETED, orderedItemID, 0, null);
+	}
+
+	void deletedByOrder(int orderID)
+	{
+		publish(Type.DELETED, 0, orderID, null);
+	}
+
+	private void publish(Type type, int orderedItemID, int orderID, OrderedItem orderedItem)
+	{
+		Event event;
+		synchronized (this)
+		{
+			event = new Event(nextSequence++, type, orderedItemID, orderID, orderedItem);
+			history.addLast(event);
+			if(history.size() > historySize)
+				history.removeFirst();
+		}
+
+		for(Consumer<Event> listener: listeners)
+		{
+			try
+			{
+				listener.accept(event);
+			} catch (RuntimeException e)
+			{
+				// Ein fehlerhafter Empfänger darf die Änderung in der Datenbank nicht scheitern lassen
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Ein Ereignis zu einem bestellten Artikel. Bei {@link Type#DELETED} ist nur die orderedItemID gesetzt,
+	 * oder nur die orderID, wenn alle bestellten Artikel einer Order gelöscht wurden.
+	 */
+	public static final class Event
+	{
+		private final long sequence;
+		private final Type type;
+		private final int orderedItemID;
+		private final int orderID;
+		private final OrderedItem orderedItem;
+
+		private Event(long sequence, Type type, int orderedItemID, int orderID, OrderedItem orderedItem)
+		{
+			this.sequence = sequence;
+			this.type = type;
+			this.orderedItemID = orderedItemID;
+			this.orderID = orderID;
+			this.orderedItem = orderedItem;
+		}
+
+		public long getSequence()
+		{
+			return sequence;
+		}
+
+		public Type getType()
+		{
+			return type;
+		}
+
+		public int getOrderedItemID()
+		{
+			return orderedItemID;
+		}
+
+		public int getOrderID()
+		{
+			return orderID;
+		}
+
+		public OrderedItem getOrderedItem()
+		{
+			return orderedItem;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wählt bestellte Artikel aus, die gemeinsam bezahlt oder produziert werden.
+ *
+ * Entweder werden die orderedItemIDs angegeben, z.B. die an der Kasse markierten Artikel, oder eine Bestellung
+ * und optional ein Artikel, z.B. alle Getränke einer Bestellung an der Theke. Die Auswahl wird direkt in die
+ * WHERE-Bedingung eines einzigen UPDATE übernommen.
+ *
+ * @author Marvin Mai
+ */
+public final class OrderedItemSelector
+{
+	private final List<Integer> orderedItemIDs;
+	private final int orderID;
+	private final int itemID;
+
+	/**
+	 * @param orderedItemIDs Die IDs der bestellten Artikel. Sind sie angegeben, werden orderID und itemID
+	 *                       nicht berücksichtigt.
+	 * @param orderID Alle bestellten Artikel dieser Bestellung.
+	 * @param itemID Nur die bestellten Artikel dieses Artikels, 0 für alle Artikel der Bestellung.
+	 */
+	public OrderedItemSelector(@JsonProperty("orderedItemIDs") List<Integer> orderedItemIDs,
+							   @JsonProperty("orderID") int orderID,
+							   @JsonProperty("itemID") int itemID)
+	{
+		this.orderedItemIDs = orderedItemIDs == null ? Collections.emptyList() : orderedItemIDs;
+		this.orderID = orderID;
+		this.itemID = itemID;
+	}
+
+	public List<Integer> getOrderedItemIDs()
+	{
+		return orderedItemIDs;
+	}
+
+	public int getOrderID()
+	{
+		return orderID;
+	}
+
+	public int getItemID()
+	{
+		return itemID;
+	}
+
+	boolean selectsByIDs()
+	{
+		return !orderedItemIDs.isEmpty();
+	}
+
+	/**
+	 * @return Ob überhaupt bestellte Artikel ausgewählt sind.
+	 */
+	boolean isEmpty()
+	{
+		return !selectsByIDs() && orderID == 0;
+	}
+}
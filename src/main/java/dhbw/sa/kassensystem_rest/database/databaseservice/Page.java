@@ -0,0 +1,75 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Eine Seite einer nach ID sortierten Liste.
+ *
+ * Die nächste Seite wird mit dem Cursor abgefragt. Der Cursor enthält die letzte ID der Seite, die Abfrage der
+ * nächsten Seite beginnt direkt nach dieser ID (Keyset-Pagination). Anders als bei einem Offset muss die
+ * Datenbank die vorherigen Seiten dadurch nicht erneut lesen, und neue Datensätze verschieben keine Seiten. Der
+ * Cursor ist für den Client undurchsichtig und darf nur unverändert zurückgegeben werden.
+ *
+ * @author Marvin Mai
+ */
+public final class Page<T>
+{
+	private final List<T> items;
+	private final String nextCursor;
+
+	Page(List<T> items, String nextCursor)
+	{
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems()
+	{
+		return items;
+	}
+
+	/**
+	 * @return Der Cursor der nächsten Seite, null wenn dies die letzte Seite ist.
+	 */
+	public String getNextCursor()
+	{
+		return nextCursor;
+	}
+
+	/**
+	 * Erzeugt den Cursor, mit dem nach einer ID weitergelesen wird.
+	 * @param resource Die Liste, zu der der Cursor gehört, damit er nicht für eine andere Liste verwendet wird.
+	 */
+	static String encodeCursor(String resource, int lastID)
+	{
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((resource + ":" + lastID).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Ermittelt die ID, nach der weitergelesen wird.
+	 * @param cursor Der Cursor einer vorherigen Seite, null für die erste Seite.
+	 * @return Die letzte ID der vorherigen Seite, 0 für die erste Seite.
+	 * @throws DataException Wenn der Cursor nicht zu dieser Liste gehört oder verändert wurde.
+	 */
+	static int decodeCursor(String resource, String cursor) throws DataException
+	{
+		if(cursor == null || cursor.isEmpty())
+			return 0;
+
+		try
+		{
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+			if(decoded.startsWith(resource + ":"))
+				return Integer.parseInt(decoded.substring(resource.length() + 1));
+		} catch (IllegalArgumentException e)
+		{
+			// Wird unten als ungültiger Cursor gemeldet
+		}
+		throw new DataException("Ungültiger Cursor!");
+	}
+}
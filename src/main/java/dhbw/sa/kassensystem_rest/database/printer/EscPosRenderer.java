@@ -0,0 +1,346 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import dhbw.sa.kassensystem_rest.database.Gastronomy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Erzeugt die ESC/POS-Druckdaten der Belege direkt als Bytes.
+ *
+ * Alle festen Texte (Kopf der Gastronomie, Beschriftungen und der Schneidebefehl) werden einmalig in CP437
+ * kodiert. Variable Texte werden Zeichen für Zeichen über eine Tabelle kodiert und zusammen mit den festen Texten
+ * in einen je Thread wiederverwendeten Puffer geschrieben. Beträge werden ohne {@link java.text.DecimalFormat}
+ * rechtsbündig in Spalten ausgerichtet, statt über Tabulatoren.
+ *
+ * @author Marvin Mai
+ */
+final class EscPosRenderer
+{
+	// Zeichen je Zeile des Epson TM-T88V bei 80 mm Papier und Schriftart A
+	static final int WIDTH = 42;
+
+	private static final Charset CP437 = Charset.forName("IBM437");
+	private static final byte[] ENCODING = createEncoding();
+
+	// Papier schneiden
+	private static final byte[] CUT = {29, 86, 65, 0, 0};
+	private static final byte[] NEWLINE = {'\n'};
+	private static final byte[] INDENT = encode("  ");
+	private static final byte[] EUR = encode(" EUR");
+
+	private static final byte[] RECEIPT_HEADER = encode(center("Kundenbeleg", '-') + "\n\n"
+			+ Gastronomy.getName() + "\n"
+			+ Gastronomy.getAdress() + "\n"
+			+ Gastronomy.getTelephonenumber() + "\n"
+			+ "\nIhre Bestellung:\n");
+	private static final byte[] RULE = encode(repeat('_', WIDTH) + "\n");
+	private static final byte[] SUM = encode("Summe");
+	private static final byte[] VAT = encode("inkl. MWST 19%");
+	private static final byte[] TABLE_SENTENCE = encode("\nSie saßen an Tisch ");
+	private static final byte[] THANKS = encode(".\nVielen Dank für Ihren Besuch!\n");
+
+	private static final byte[] TABLE = encode("\nTisch ");
+
+	private static final byte[] LOGIN_HEADER = encode("Login-Daten\n");
+	private static final byte[] LOGINNAME = encode("Benutzername: ");
+	private static final byte[] PASSWORD = encode("Passwort:     ");
+
+	private static final byte[] CONFLICT_HEADER = encode("Die folgenden Tische informieren:\n");
+	private static final int CONFLICT_TABLE_WIDTH = 14;
+
+	private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+	// Kodierte Überschriften der Küchenbelege je Titel der Druckerroute
+	private final Map<String, byte[]> titles = new ConcurrentHashMap<>();
+
+	/**
+	 * Erzeugt die Druckdaten eines Kundenbelegs.
+	 * @param receipt Die Daten des Belegs.
+	 * @return Die zu druckenden Bytes inklusive Schneidebefehl.
+	 */
+	byte[] renderReceipt(PrintableReceipt receipt)
+	{
+		Output out = start();
+		out.put(RECEIPT_HEADER);
+
+		for(PrintableOrderedItem o: receipt.getPrintableOrderedItems())
+		{
+			out.amountLine(o.getName(), toCents(o.getPrice()));
+			comment(out, o.getComment());
+		}
+
+		long mwst = Math.round(receipt.getPrice() * 0.199 * 100d);
+
+		out.put(RULE);
+		out.amountLine(SUM, toCents(receipt.getPrice()));
+		out.amountLine(VAT, mwst);
+		out.put(TABLE_SENTENCE);
+		out.put(receipt.getTableName());
+		out.put(THANKS);
+		out.put(receipt.getDate());
+		out.put(NEWLINE);
+		out.put(NEWLINE);
+
+		return out.finish();
+	}
+
+	/**
+	 * Erzeugt die Druckdaten eines Küchenbelegs.
+	 * @param order Die Daten des Belegs.
+	 * @param title Die zentrierte Überschrift des Belegs, z.B. "KÜCHE".
+	 * @return Die zu druckenden Bytes inklusive Schneidebefehl.
+	 */
+	byte[] renderOrder(PrintableOrder order, String title)
+	{
+		Output out = start();
+		out.put(titles.computeIfAbsent(title, t -> encode(center(t, ' ') + "\n\n")));
+
+		for(PrintableOrderedItem p: order.getOrderedItems())
+		{
+			out.wrapped(p.getName());
+			out.put(NEWLINE);
+			comment(out, p.getComment());
+		}
+
+		out.put(TABLE);
+		out.put(order.getTableName());
+		out.put(NEWLINE);
+		out.put(order.getDate());
+		out.put(NEWLINE);
+		out.put(NEWLINE);
+
+		return out.finish();
+	}
+
+	/**
+	 * Erzeugt die Druckdaten der Logindaten einer neuen Bedienung.
+	 * @return Die zu druckenden Bytes inklusive Schneidebefehl.
+	 */
+	byte[] renderLogindata(String loginname, String password, String date)
+	{
+		Output out = start();
+		out.put(LOGIN_HEADER);
+		out.put(date);
+		out.put(NEWLINE);
+		out.put(LOGINNAME);
+		out.put(loginname);
+		out.put(NEWLINE);
+		out.put(PASSWORD);
+		out.put(password);
+		out.put(NEWLINE);
+
+		return out.finish();
+	}
+
+	/**
+	 * Erzeugt die Druckdaten eines gelösten Datenkonflikts.
+	 * @return Die zu druckenden Bytes inklusive Schneidebefehl.
+	 */
+	byte[] renderDataConflicts(List<PrintableDataConflict> dataConflicts)
+	{
+		Output out = start();
+		out.put(CONFLICT_HEADER);
+
+		for(PrintableDataConflict p: dataConflicts)
+		{
+			out.put(p.getTableName());
+			out.spaces(Math.max(1, CONFLICT_TABLE_WIDTH - p.getTableName().length()));
+			out.put(p.getItemName());
+			out.put(NEWLINE);
+		}
+
+		return out.finish();
+	}
+
+	private Output start()
+	{
+		Output out = outputs.get();
+		out.buffer.clear();
+		return out;
+	}
+
+	private static void comment(Output out, String comment)
+	{
+		if(comment == null || comment.isEmpty())
+			return;
+		out.put(INDENT);
+		out.put(comment);
+		out.put(NEWLINE);
+	}
+
+	private static long toCents(double amount)
+	{
+		return Math.round(amount * 100d);
+	}
+
+	private static byte[] createEncoding()
+	{
+		byte[] encoding = new byte[Character.MAX_VALUE + 1];
+		Arrays.fill(encoding, (byte) '?');
+		for(int b = 255; b >= 0; b--)
+			encoding[new String(new byte[]{(byte) b}, CP437).charAt(0)] = (byte) b;
+		return encoding;
+	}
+
+	private static byte[] encode(String text)
+	{
+		return text.getBytes(CP437);
+	}
+
+	private static String center(String text, char fill)
+	{
+		int left = (WIDTH - text.length()) / 2;
+		String centered = repeat(fill, left) + text;
+		return fill == ' ' ? centered : centered + repeat(fill, WIDTH - centered.length());
+	}
+
+	private static String repeat(char c, int count)
+	{
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	/**
+	 * Wiederverwendeter Puffer eines Threads, der bei Bedarf vergrößert wird.
+	 */
+	private static final class Output
+	{
+		private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+		private void put(byte[] bytes)
+		{
+			ensure(bytes.length);
+			buffer.put(bytes);
+		}
+
+		private void put(String text)
+		{
+			put(text, 0, text.length());
+		}
+
+		/**
+		 * Schreibt einen Text und bricht ihn an Leerzeichen um, wenn er nicht in eine Zeile passt.
+		 * @return Die Länge der letzten geschriebenen Zeile.
+		 */
+		private int wrapped(String text)
+		{
+			int start = 0;
+			int length = text.length();
+			while(length - start > WIDTH)
+			{
+				int end = text.lastIndexOf(' ', start + WIDTH);
+				if(end <= start)
+					end = start + WIDTH;
+				put(text, start, end);
+				put(NEWLINE);
+				start = end;
+				while(start < length && text.charAt(start) == ' ')
+					start++;
+			}
+			put(text, start, length);
+			return length - start;
+		}
+
+		private void put(String text, int from, int to)
+		{
+			ensure(to - from);
+			for(int i = from; i < to; i++)
+				buffer.put(ENCODING[text.charAt(i)]);
+		}
+
+		private void spaces(int count)
+		{
+			ensure(count);
+			for(int i = 0; i < count; i++)
+				buffer.put((byte) ' ');
+		}
+
+		private void amountLine(String label, long cents)
+		{
+			align(wrapped(label), cents);
+		}
+
+		private void amountLine(byte[] label, long cents)
+		{
+			put(label);
+			align(label.length, cents);
+		}
+
+		/**
+		 * Schließt eine Zeile mit rechtsbündigem Betrag ab. Passt der Betrag nicht mehr hinter die Beschriftung,
+		 * steht er rechtsbündig in der folgenden Zeile.
+		 */
+		private void align(int labelLength, long cents)
+		{
+			int amountLength = amountLength(cents);
+			if(labelLength + 1 + amountLength > WIDTH)
+			{
+				put(NEWLINE);
+				labelLength = 0;
+			}
+			spaces(WIDTH - labelLength - amountLength);
+			amount(cents);
+			put(NEWLINE);
+		}
+
+		private void amount(long cents)
+		{
+			ensure(24);
+			if(cents < 0)
+			{
+				buffer.put((byte) '-');
+				cents = -cents;
+			}
+			long euros = cents / 100;
+			int digits = digits(euros);
+			int position = buffer.position();
+			for(int i = digits - 1; i >= 0; i--)
+			{
+				buffer.put(position + i, (byte) ('0' + euros % 10));
+				euros /= 10;
+			}
+			buffer.position(position + digits);
+			buffer.put((byte) ',');
+			buffer.put((byte) ('0' + cents % 100 / 10));
+			buffer.put((byte) ('0' + cents % 10));
+			put(EUR);
+		}
+
+		private static int amountLength(long cents)
+		{
+			return (cents < 0 ? 1 : 0) + digits(Math.abs(cents) / 100) + 3 + EUR.length;
+		}
+
+		private static int digits(long number)
+		{
+			int digits = 1;
+			while(number >= 10)
+			{
+				number /= 10;
+				digits++;
+			}
+			return digits;
+		}
+
+		private void ensure(int bytes)
+		{
+			if(buffer.remaining() >= bytes)
+				return;
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+
+		private byte[] finish()
+		{
+			put(CUT);
+			return Arrays.copyOf(buffer.array(), buffer.position());
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ersatz für einen Bondrucker, der jeden Druckauftrag als Datei in ein Verzeichnis schreibt.
+ *
+ * Damit kann der Server ohne angeschlossene Drucker betrieben und getestet werden. Er wird verwendet, wenn die
+ * System-Property "kassensystem.print.fileDir" gesetzt ist. Je Drucker wird ein Unterverzeichnis angelegt, die
+ * Dateien enthalten die unveränderten ESC/POS-Daten.
+ *
+ * @author Marvin Mai
+ */
+public class FilePrinterDevice implements PrinterDevice
+{
+	private final String printerName;
+	private final Path directory;
+	private final AtomicLong nextFile = new AtomicLong(1);
+
+	/**
+	 * @param printerName Name des simulierten Druckers.
+	 * @param directory Das Verzeichnis, in das die Druckaufträge geschrieben werden.
+	 */
+	public FilePrinterDevice(String printerName, Path directory)
+	{
+		this.printerName = printerName;
+		this.directory = directory;
+	}
+
+	@Override
+	public String getName()
+	{
+		return printerName;
+	}
+
+	@Override
+	public void print(byte[] data) throws IOException
+	{
+		Files.createDirectories(directory);
+		Path file = directory.resolve(System.currentTimeMillis() + "-" + nextFile.getAndIncrement() + ".escpos");
+		Files.write(file, data);
+	}
+}
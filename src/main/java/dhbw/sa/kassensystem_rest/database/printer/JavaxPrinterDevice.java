@@ -0,0 +1,57 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
+
+import javax.print.Doc;
+import javax.print.DocPrintJob;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+
+/**
+ * Drucker, der über die im Betriebssystem installierten Druckertreiber angesprochen wird.
+ *
+ * @author Marvin Mai
+ */
+class JavaxPrinterDevice implements PrinterDevice
+{
+	private final String printerName;
+	private final PrintServiceCache printServices;
+
+	JavaxPrinterDevice(String printerName, PrintServiceCache printServices)
+	{
+		this.printerName = printerName;
+		this.printServices = printServices;
+	}
+
+	@Override
+	public String getName()
+	{
+		return printerName;
+	}
+
+	@Override
+	public void print(byte[] data) throws Exception
+	{
+		// Printer-Service für den Drucker mit dem printerNamen aus dem Zwischenspeicher ermitteln
+		PrintService service = printServices.get(printerName);
+
+		if(service == null)
+		{
+			// Der Drucker wurde eventuell gerade erst angeschlossen
+			printServices.invalidate();
+			throw new DataException("Der Drucker scheint nicht installiert zu sein!");
+		}
+
+		try
+		{
+			DocPrintJob job = service.createPrintJob();
+			Doc doc = new SimpleDoc(data, PrintServiceCache.flavor, null);
+			job.print(doc, null);
+		} catch (Exception e)
+		{
+			// Der zwischengespeicherte Printer-Service ist eventuell nicht mehr gültig
+			printServices.invalidate();
+			throw e;
+		}
+	}
+}
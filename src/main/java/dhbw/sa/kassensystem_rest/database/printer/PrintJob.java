@@ -0,0 +1,136 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ein Druckauftrag in der Warteschlange eines {@link PrintSpooler}s.
+ *
+ * @author Marvin Mai
+ */
+public class PrintJob
+{
+	public enum Status { QUEUED, PRINTING, DONE, FAILED }
+
+	private static final AtomicLong nextJobID = new AtomicLong(1);
+
+	private final long jobID;
+	private final String printerName;
+	// Wird bei zusammengefassten Küchenbelegen erst am Ende des Zeitfensters gesetzt
+	private volatile byte[] data;
+	private final long queuedAt;
+
+	private volatile Status status = Status.QUEUED;
+	private volatile int attempts;
+	private volatile long startedAt;
+	private volatile long finishedAt;
+	private volatile String error;
+	// Position im PrintJournal, -1 wenn der Auftrag nicht im Journal steht
+	private long journalPosition = -1;
+
+	PrintJob(String printerName, byte[] data)
+	{
+		this.jobID = nextJobID.getAndIncrement();
+		this.printerName = printerName;
+		this.data = data;
+		this.queuedAt = System.currentTimeMillis();
+	}
+
+	public long getJobID()
+	{
+		return jobID;
+	}
+
+	public String getPrinterName()
+	{
+		return printerName;
+	}
+
+	@JsonIgnore
+	byte[] getData()
+	{
+		return data;
+	}
+
+	void setData(byte[] data)
+	{
+		this.data = data;
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	public int getAttempts()
+	{
+		return attempts;
+	}
+
+	/**
+	 * @return Zeitpunkt in Millisekunden, zu dem der Auftrag in die Warteschlange gestellt wurde.
+	 */
+	public long getQueuedAt()
+	{
+		return queuedAt;
+	}
+
+	/**
+	 * @return Zeitpunkt in Millisekunden, zu dem der Auftrag abgeschlossen wurde, 0 wenn er noch offen ist.
+	 */
+	public long getFinishedAt()
+	{
+		return finishedAt;
+	}
+
+	/**
+	 * @return Fehlermeldung des letzten fehlgeschlagenen Druckversuchs, null wenn kein Fehler auftrat.
+	 */
+	public String getError()
+	{
+		return error;
+	}
+
+	void printing()
+	{
+		if(startedAt == 0)
+			startedAt = System.currentTimeMillis();
+		attempts++;
+		status = Status.PRINTING;
+	}
+
+	void done()
+	{
+		finishedAt = System.currentTimeMillis();
+		status = Status.DONE;
+	}
+
+	void failed(String error)
+	{
+		this.error = error;
+		finishedAt = System.currentTimeMillis();
+		status = Status.FAILED;
+	}
+
+	void attemptFailed(String error)
+	{
+		this.error = error;
+		status = Status.QUEUED;
+	}
+
+	long getStartedAt()
+	{
+		return startedAt;
+	}
+
+	long getJournalPosition()
+	{
+		return journalPosition;
+	}
+
+	void setJournalPosition(long journalPosition)
+	{
+		this.journalPosition = journalPosition;
+	}
+}
@@ -0,0 +1,273 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Dauerhaftes, nur anhängendes Journal der Druckaufträge eines Druckers.
+ *
+ * Jeder Druckauftrag wird in das Journal geschrieben, bevor er in die Warteschlange gestellt wird, und erst nach
+ * erfolgreichem Druck als erledigt markiert. Nach einem Neustart werden alle nicht erledigten Aufträge erneut
+ * gedruckt. Ein Küchenbeleg geht so auch dann nicht verloren, wenn der Drucker gerade nicht erreichbar ist.
+ *
+ * Das Journal besteht aus Segmentdateien fester Größe, die in den Speicher eingeblendet werden. Ein Eintrag hat
+ * den Aufbau "Länge (4 Byte) | CRC32 der Daten (4 Byte) | Erledigt-Flag (1 Byte) | Daten". Die Länge wird zuletzt
+ * geschrieben, ein unvollständig geschriebener Eintrag wird daher wie das Ende des Segments behandelt. Ist ein
+ * Segment voll, wird ein neues angelegt. Segmente ohne offene Einträge werden gelöscht, beim Öffnen werden die
+ * offenen Einträge aller alten Segmente in ein neues Segment übernommen.
+ *
+ * Wird der Server zwischen Druck und Markierung beendet, wird der Auftrag nach dem Neustart erneut gedruckt.
+ *
+ * @author Marvin Mai
+ */
+public class PrintJournal
+{
+	private static final String SUFFIX = ".journal";
+	private static final int HEADER_SIZE = 9;
+	private static final int CRC_OFFSET = 4;
+	private static final int DONE_OFFSET = 8;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+	private final Map<Long, byte[]> recovered = new LinkedHashMap<>();
+	private final CRC32 crc = new CRC32();
+	private Segment active;
+
+	private long appended;
+	private long compactedSegments;
+
+	private PrintJournal(Path directory, int segmentSize)
+	{
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Öffnet das Journal in einem Verzeichnis und übernimmt alle offenen Einträge in ein neues Segment.
+	 * @param directory Das Verzeichnis des Journals, wird bei Bedarf angelegt.
+	 * @param segmentSize Größe eines Segments in Bytes.
+	 * @return Das geöffnete Journal.
+	 * @throws IOException Wenn das Verzeichnis oder die Segmente nicht gelesen oder geschrieben werden können.
+	 */
+	public static PrintJournal open(Path directory, int segmentSize) throws IOException
+	{
+		Files.createDirectories(directory);
+		PrintJournal journal = new PrintJournal(directory, segmentSize);
+
+		// Offene Einträge aller vorhandenen Segmente in der geschriebenen Reihenfolge einlesen
+		List<Path> oldSegments = new ArrayList<>();
+		List<byte[]> pending = new ArrayList<>();
+		int lastIndex = 0;
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX))
+		{
+			TreeMap<Integer, Path> sorted = new TreeMap<>();
+			for(Path file: files)
+			{
+				String name = file.getFileName().toString();
+				sorted.put(Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())), file);
+			}
+			for(Map.Entry<Integer, Path> file: sorted.entrySet())
+			{
+				journal.readPending(file.getValue(), pending);
+				oldSegments.add(file.getValue());
+				lastIndex = file.getKey();
+			}
+		}
+
+		// Kompaktieren: offene Einträge in ein neues Segment schreiben, erst danach die alten löschen
+		journal.active = journal.createSegment(lastIndex + 1, segmentSize);
+		for(byte[] data: pending)
+			journal.recovered.put(journal.append(data), data);
+		for(Path oldSegment: oldSegments)
+			Files.deleteIfExists(oldSegment);
+		journal.compactedSegments = oldSegments.size();
+
+		return journal;
+	}
+
+	/**
+	 * Liefert die beim Öffnen gefundenen, noch nicht gedruckten Einträge.
+	 * @return Die Daten der Einträge nach ihrer Position im Journal, in der ursprünglichen Reihenfolge.
+	 */
+	public synchronized Map<Long, byte[]> getRecovered()
+	{
+		return new LinkedHashMap<>(recovered);
+	}
+
+	/**
+	 * Schreibt einen Eintrag dauerhaft in das Journal.
+	 * @param data Die zu druckenden Bytes.
+	 * @return Die Position des Eintrags, über die er als erledigt markiert wird.
+	 * @throws IOException Wenn kein neues Segment angelegt werden kann.
+	 */
+	public synchronized long append(byte[] data) throws IOException
+	{
+		int recordSize = HEADER_SIZE + data.length;
+		if(active.writeOffset + recordSize > active.buffer.capacity())
+		{
+			Segment full = active;
+			active = createSegment(full.index + 1, Math.max(segmentSize, recordSize));
+			deleteIfCompleted(full);
+		}
+
+		crc.reset();
+		crc.update(data, 0, data.length);
+
+		int offset = active.writeOffset;
+		MappedByteBuffer buffer = active.buffer;
+		buffer.position(offset + HEADER_SIZE);
+		buffer.put(data);
+		buffer.putInt(offset + CRC_OFFSET, (int) crc.getValue());
+		buffer.put(offset + DONE_OFFSET, (byte) 0);
+		// Die Länge macht den Eintrag gültig und wird daher zuletzt geschrieben
+		buffer.putInt(offset, data.length);
+		buffer.force();
+
+		active.writeOffset += recordSize;
+		active.pending++;
+		appended++;
+		return ((long) active.index << 32) | offset;
+	}
+
+	/**
+	 * Markiert einen Eintrag als gedruckt. Ein Segment, dessen Einträge alle erledigt sind, wird gelöscht.
+	 * @param position Die Position des Eintrags aus {@link #append(byte[])}.
+	 * @throws IOException Wenn ein erledigtes Segment nicht gelöscht werden kann.
+	 */
+	public synchronized void markDone(long position) throws IOException
+	{
+		Segment segment = segments.get((int) (position >>> 32));
+		int offset = (int) position;
+		if(segment == null || segment.buffer.get(offset + DONE_OFFSET) != 0)
+			return;
+
+		segment.buffer.put(offset + DONE_OFFSET, (byte) 1);
+		segment.buffer.force();
+		segment.pending--;
+		deleteIfCompleted(segment);
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Journals.
+	 * @return Anzahl der Segmente, offenen und geschriebenen Einträge sowie der kompaktierten Segmente.
+	 */
+	public synchronized Map<String, Number> getStatistics()
+	{
+		int pending = 0;
+		for(Segment segment: segments.values())
+			pending += segment.pending;
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("segments", segments.size());
+		statistics.put("pending", pending);
+		statistics.put("appended", appended);
+		statistics.put("compactedSegments", compactedSegments);
+		return statistics;
+	}
+
+	/**
+	 * Schließt alle Segmente. Offene Einträge bleiben für den nächsten Start erhalten.
+	 */
+	public synchronized void close()
+	{
+		for(Segment segment: segments.values())
+		{
+			try
+			{
+				segment.channel.close();
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+		segments.clear();
+	}
+
+	private Segment createSegment(int index, int size) throws IOException
+	{
+		Path file = directory.resolve(String.format("%010d", index) + SUFFIX);
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		// Das Einblenden legt die Datei in voller Größe an, nicht beschriebene Bytes sind 0
+		Segment segment = new Segment(index, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+		segments.put(index, segment);
+		return segment;
+	}
+
+	private void deleteIfCompleted(Segment segment) throws IOException
+	{
+		if(segment == active || segment.pending > 0)
+			return;
+
+		segments.remove(segment.index);
+		segment.channel.close();
+		// Unter Windows kann eine eingeblendete Datei erst nach dem Freigeben des Puffers gelöscht werden.
+		// Gelingt das Löschen nicht, wird das Segment beim nächsten Öffnen kompaktiert.
+		try
+		{
+			Files.deleteIfExists(segment.file);
+			compactedSegments++;
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	private void readPending(Path file, List<byte[]> pending) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int offset = 0;
+			while(offset + HEADER_SIZE <= buffer.capacity())
+			{
+				int length = buffer.getInt(offset);
+				// Länge 0 markiert das Ende, eine ungültige Länge einen unvollständig geschriebenen Eintrag
+				if(length <= 0 || offset + HEADER_SIZE + length > buffer.capacity())
+					break;
+
+				byte[] data = new byte[length];
+				buffer.position(offset + HEADER_SIZE);
+				buffer.get(data);
+				crc.reset();
+				crc.update(data, 0, length);
+				if((int) crc.getValue() != buffer.getInt(offset + CRC_OFFSET))
+					break;
+
+				if(buffer.get(offset + DONE_OFFSET) == 0)
+					pending.add(data);
+				offset += HEADER_SIZE + length;
+			}
+		}
+	}
+
+	private static final class Segment
+	{
+		private final int index;
+		private final Path file;
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+		private int writeOffset;
+		private int pending;
+
+		private Segment(int index, Path file, FileChannel channel, MappedByteBuffer buffer)
+		{
+			this.index = index;
+			this.file = file;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+}
@@ -0,0 +1,385 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Legt fest, an welchen Drucker die Belege gesendet werden.
+ *
+ * Die Routen werden aus einer Properties-Datei in UTF-8 gelesen, z.B.:
+ * <pre>
+ * route.kueche.printer=EPSON TM-T88V Receipt
+ * route.kueche.items=*
+ * route.bar.printer=EPSON TM-T20 Bar
+ * route.bar.items=20-35,41
+ * route.bar.title=BAR
+ * route.bar.coalesceMillis=3000
+ * route.receipt.printer=EPSON TM-T88V Receipt
+ * </pre>
+ * Ein Küchenbeleg wird nach den Artikeln aufgeteilt: Jeder Artikel wird an die Route gesendet, in deren Liste
+ * seine itemID steht, alle übrigen an die Route mit "*". Kundenbelege, Logindaten und Datenkonflikte werden an
+ * die Route "receipt" gesendet, fehlt diese, an die Route mit "*". Der optionale Titel steht über dem Beleg.
+ * Ist "coalesceMillis" gesetzt, werden Küchenbelege derselben Order innerhalb dieses Zeitfensters zu einem Beleg
+ * zusammengefasst, siehe {@link TicketCoalescer}.
+ *
+ * Jeder Drucker hat eine eigene {@link PrintSpooler}-Warteschlange, die Teilbelege werden also parallel gedruckt.
+ * Wird die Datei geändert, werden die Routen ohne Neustart neu geladen. Fehlt die Datei, wird alles an den
+ * bisherigen Bondrucker gesendet.
+ *
+ * @author Marvin Mai
+ */
+public class PrintRoutes
+{
+	static final String RECEIPT_ROUTE = "receipt";
+	private static final String DEFAULT_ROUTE = "kueche";
+	private static final String DEFAULT_PRINTER = "EPSON TM-T88V Receipt";
+	private static final String DEFAULT_TITLE = "KÜCHE";
+	private static final String ALL_ITEMS = "*";
+	// Die Datei wird höchstens einmal je Sekunde auf Änderungen geprüft
+	private static final long checkInterval = 1000;
+
+	private final Path file;
+	private final Function<String, PrintSpooler> spoolers;
+	private final Map<String, RouteStatistics> statistics = new ConcurrentHashMap<>();
+
+	private volatile Routes routes;
+	private volatile long lastModified;
+	private volatile long lastCheck;
+
+	private PrintRoutes(Path file, Function<String, PrintSpooler> spoolers)
+	{
+		this.file = file;
+		this.spoolers = spoolers;
+		this.routes = Routes.defaults();
+		if(file != null)
+			reloadIfModified();
+	}
+
+	/**
+	 * Liest die Routen aus einer Datei. Die Drucker werden über {@link PrintSpooler#forPrinter(String)} angesprochen.
+	 * @param file Die Properties-Datei der Routen. Muss nicht existieren.
+	 * @return Die Routen.
+	 */
+	public static PrintRoutes fromFile(Path file)
+	{
+		return new PrintRoutes(file, PrintSpooler::forPrinter);
+	}
+
+	/**
+	 * Liest die Routen aus einer Datei und spricht die Drucker über eigene Warteschlangen an.
+	 * @param file Die Properties-Datei der Routen. Muss nicht existieren.
+	 * @param spoolers Liefert die Warteschlange zu einem Druckernamen.
+	 * @return Die Routen.
+	 */
+	public static PrintRoutes fromFile(Path file, Function<String, PrintSpooler> spoolers)
+	{
+		return new PrintRoutes(file, spoolers);
+	}
+
+	/**
+	 * Sendet alle Belege an eine Warteschlange.
+	 * @param spooler Die Warteschlange, in die alle Belege gestellt werden.
+	 * @return Die Routen.
+	 */
+	public static PrintRoutes single(PrintSpooler spooler)
+	{
+		return new PrintRoutes(null, printerName -> spooler);
+	}
+
+	/**
+	 * Teilt Artikel nach ihren Routen auf.
+	 * @param items Die aufzuteilenden Artikel.
+	 * @param itemID Liefert die itemID eines Artikels.
+	 * @return Die Artikel je Route, in der Reihenfolge der ersten Artikel.
+	 */
+	<T> Map<String, List<T>> split(List<T> items, ToIntFunction<T> itemID)
+	{
+		Routes current = getRoutes();
+		Map<String, List<T>> split = new LinkedHashMap<>();
+		for(T item: items)
+		{
+			String route = current.routeByItem.getOrDefault(itemID.applyAsInt(item), current.defaultRoute);
+			split.computeIfAbsent(route, name -> new ArrayList<>()).add(item);
+		}
+		return split;
+	}
+
+	/**
+	 * @return Die Route für Kundenbelege, Logindaten und Datenkonflikte.
+	 */
+	String getReceiptRoute()
+	{
+		Routes current = getRoutes();
+		return current.printerByRoute.containsKey(RECEIPT_ROUTE) ? RECEIPT_ROUTE : current.defaultRoute;
+	}
+
+	/**
+	 * @return Der Titel, der über Küchenbelegen der Route steht.
+	 */
+	String getTitle(String route)
+	{
+		return getRoutes().titleByRoute.getOrDefault(route, DEFAULT_TITLE);
+	}
+
+	/**
+	 * @return Das Zeitfenster in Millisekunden, in dem Küchenbelege der Route zusammengefasst werden, 0 wenn
+	 * jeder Beleg sofort gedruckt wird.
+	 */
+	long getCoalesceMillis(String route)
+	{
+		return getRoutes().coalesceMillisByRoute.getOrDefault(route, 0L);
+	}
+
+	/**
+	 * Stellt einen Beleg in die Warteschlange des Druckers einer Route.
+	 * @param route Die Route des Belegs.
+	 * @param data Die zu druckenden Bytes.
+	 * @param items Anzahl der Artikel auf dem Beleg.
+	 * @return Der Druckauftrag.
+	 */
+	PrintJob submit(String route, byte[] data, int items)
+	{
+		PrintJob job = reserve(route);
+		submit(route, job, data, items);
+		return job;
+	}
+
+	/**
+	 * Legt einen Druckauftrag beim Drucker einer Route an, dessen Daten erst später übergeben werden.
+	 * @param route Die Route des Belegs.
+	 * @return Der noch nicht eingereihte Druckauftrag.
+	 */
+	PrintJob reserve(String route)
+	{
+		return spoolers.apply(getRoutes().printerByRoute.getOrDefault(route, DEFAULT_PRINTER)).reserve();
+	}
+
+	/**
+	 * Stellt einen mit {@link #reserve(String)} angelegten Druckauftrag in die Warteschlange seines Druckers.
+	 * @param route Die Route des Belegs.
+	 * @param job Der Druckauftrag.
+	 * @param data Die zu druckenden Bytes.
+	 * @param items Anzahl der Artikel auf dem Beleg.
+	 */
+	void submit(String route, PrintJob job, byte[] data, int items)
+	{
+		// Der Drucker wurde beim Anlegen festgelegt, auch wenn die Routen inzwischen neu geladen wurden
+		String printerName = job.getPrinterName();
+
+		// Vor der Übergabe zählen, da der Beleg danach bereits gedruckt sein kann
+		RouteStatistics routeStatistics = statistics.computeIfAbsent(route, name -> new RouteStatistics());
+		routeStatistics.printerName = printerName;
+		routeStatistics.tickets.incrementAndGet();
+		routeStatistics.items.addAndGet(items);
+		routeStatistics.count(items);
+
+		spoolers.apply(printerName).submit(job, data);
+	}
+
+	/**
+	 * Sichert einen Beleg im Journal des Druckers eines mit {@link #reserve(String)} angelegten Druckauftrags,
+	 * ohne ihn einzureihen.
+	 * @return Die Position im Journal, siehe {@link PrintSpooler#journal(byte[])}.
+	 * @throws IOException Wenn der Beleg nicht gesichert werden kann.
+	 */
+	long journal(PrintJob job, byte[] data) throws IOException
+	{
+		return spoolers.apply(job.getPrinterName()).journal(data);
+	}
+
+	/**
+	 * Markiert einen mit {@link #journal(PrintJob, byte[])} gesicherten Beleg als erledigt.
+	 */
+	void discardJournaled(PrintJob job, long position)
+	{
+		spoolers.apply(job.getPrinterName()).discardJournaled(position);
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen je Route.
+	 * @return Drucker, Anzahl der Belege und Artikel, Artikel der letzten vollen Minute sowie Länge der
+	 * Warteschlange und Druckdauer des Druckers je Route.
+	 */
+	public Map<String, Map<String, Object>> getStatistics()
+	{
+		Map<String, Map<String, Object>> all = new LinkedHashMap<>();
+		for(Map.Entry<String, RouteStatistics> entry: statistics.entrySet())
+		{
+			RouteStatistics routeStatistics = entry.getValue();
+			Map<String, Number> spoolerStatistics = spoolers.apply(routeStatistics.printerName).getStatistics();
+
+			Map<String, Object> route = new LinkedHashMap<>();
+			route.put("printer", routeStatistics.printerName);
+			route.put("tickets", routeStatistics.tickets.get());
+			route.put("items", routeStatistics.items.get());
+			route.put("itemsLastMinute", routeStatistics.lastMinute());
+			route.put("backlog", spoolerStatistics.get("queueDepth"));
+			route.put("avgLatencyMillis", spoolerStatistics.get("avgLatencyMillis"));
+			all.put(entry.getKey(), route);
+		}
+		return all;
+	}
+
+	private Routes getRoutes()
+	{
+		if(file != null && System.currentTimeMillis() - lastCheck > checkInterval)
+			reloadIfModified();
+		return routes;
+	}
+
+	private synchronized void reloadIfModified()
+	{
+		lastCheck = System.currentTimeMillis();
+		long modified = 0;
+		try
+		{
+			modified = Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+			if(modified == lastModified)
+				return;
+
+			if(modified == 0)
+			{
+				routes = Routes.defaults();
+			}
+			else
+			{
+				Properties properties = new Properties();
+				try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+				{
+					properties.load(reader);
+				}
+				routes = Routes.parse(properties);
+			}
+		} catch (IOException | RuntimeException e)
+		{
+			// Bei einer fehlerhaften Datei bleiben die bisherigen Routen aktiv, bis die Datei erneut geändert wird
+			e.printStackTrace();
+		}
+		lastModified = modified;
+	}
+
+	/**
+	 * Unveränderlicher Stand der Routen, wird beim Neuladen vollständig ersetzt.
+	 */
+	private static final class Routes
+	{
+		private final Map<Integer, String> routeByItem = new HashMap<>();
+		private final Map<String, String> printerByRoute = new HashMap<>();
+		private final Map<String, String> titleByRoute = new HashMap<>();
+		private final Map<String, Long> coalesceMillisByRoute = new HashMap<>();
+		private String defaultRoute = DEFAULT_ROUTE;
+
+		private static Routes defaults()
+		{
+			Routes routes = new Routes();
+			routes.printerByRoute.put(DEFAULT_ROUTE, DEFAULT_PRINTER);
+			return routes;
+		}
+
+		private static Routes parse(Properties properties)
+		{
+			Routes routes = new Routes();
+			for(String key: properties.stringPropertyNames())
+			{
+				String[] parts = key.split("\\.");
+				if(parts.length != 3 || !parts[0].equals("route"))
+					continue;
+
+				String route = parts[1];
+				String value = properties.getProperty(key).trim();
+				switch(parts[2])
+				{
+					case "printer":
+						routes.printerByRoute.put(route, value);
+						break;
+					case "title":
+						routes.titleByRoute.put(route, value);
+						break;
+					case "items":
+						parseItems(routes, route, value);
+						break;
+					case "coalesceMillis":
+						routes.coalesceMillisByRoute.put(route, Long.parseLong(value));
+						break;
+					default:
+						throw new IllegalArgumentException("Unbekannte Eigenschaft " + key + " der Druckerrouten.");
+				}
+			}
+
+			if(!routes.printerByRoute.containsKey(routes.defaultRoute))
+				routes.printerByRoute.put(routes.defaultRoute, DEFAULT_PRINTER);
+			return routes;
+		}
+
+		private static void parseItems(Routes routes, String route, String value)
+		{
+			for(String part: value.split(","))
+			{
+				part = part.trim();
+				if(part.isEmpty())
+					continue;
+
+				if(part.equals(ALL_ITEMS))
+				{
+					routes.defaultRoute = route;
+					continue;
+				}
+
+				int dash = part.indexOf('-');
+				int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash).trim());
+				int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+				for(int itemID = from; itemID <= to; itemID++)
+					routes.routeByItem.put(itemID, route);
+			}
+		}
+	}
+
+	/**
+	 * Kennzahlen einer Route. Die Artikel werden je Minute gezählt, um den aktuellen Durchsatz zu ermitteln.
+	 */
+	private static final class RouteStatistics
+	{
+		private final AtomicLong tickets = new AtomicLong();
+		private final AtomicLong items = new AtomicLong();
+		private volatile String printerName;
+
+		private long minute;
+		private long currentMinuteItems;
+		private long lastMinuteItems;
+
+		private synchronized void count(int count)
+		{
+			roll();
+			currentMinuteItems += count;
+		}
+
+		private synchronized long lastMinute()
+		{
+			roll();
+			return lastMinuteItems;
+		}
+
+		private void roll()
+		{
+			long now = System.currentTimeMillis() / 60000;
+			if(now == minute)
+				return;
+			lastMinuteItems = now == minute + 1 ? currentMinuteItems : 0;
+			currentMinuteItems = 0;
+			minute = now;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Zwischenspeicher für die im Betriebssystem installierten Drucker.
+ *
+ * Das Ermitteln der Drucker über {@link PrintServiceLookup} dauert z.B. unter CUPS einige hundert Millisekunden
+ * und wird daher nicht mehr bei jedem Druck ausgeführt. Die Drucker werden beim ersten Zugriff ermittelt und in
+ * einem festen Abstand im Hintergrund aktualisiert, um neu angeschlossene oder entfernte Drucker zu erkennen.
+ * Schlägt ein Druck fehl, wird die Liste beim nächsten Zugriff sofort neu ermittelt.
+ *
+ * Der Abstand der Aktualisierung in Sekunden wird über die System-Property "kassensystem.print.lookupRefresh"
+ * festgelegt.
+ *
+ * @author Marvin Mai
+ */
+public class PrintServiceCache
+{
+	static final DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
+	private static final long lookupRefresh = Long.getLong("kassensystem.print.lookupRefresh", 60);
+
+	private static PrintServiceCache defaultCache;
+
+	private final Supplier<PrintService[]> lookup;
+	private final ScheduledExecutorService refresher;
+
+	// Drucker nach Namen in Kleinbuchstaben, wird bei jeder Aktualisierung vollständig ersetzt
+	private volatile Map<String, PrintService> services;
+	private volatile boolean stale = true;
+	private volatile long lastRefresh;
+	private volatile long lastLookupMillis;
+
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+	private final AtomicLong lookupFailures = new AtomicLong();
+
+	/**
+	 * Erzeugt einen Zwischenspeicher für eine vorgegebene Druckersuche.
+	 * @param lookup Ermittelt alle verfügbaren Drucker.
+	 * @param refreshSeconds Abstand der Aktualisierung im Hintergrund in Sekunden, 0 um nicht im Hintergrund zu
+	 *                       aktualisieren.
+	 */
+	public PrintServiceCache(Supplier<PrintService[]> lookup, long refreshSeconds)
+	{
+		this.lookup = lookup;
+		if(refreshSeconds > 0)
+		{
+			refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "print-service-refresh");
+				thread.setDaemon(true);
+				return thread;
+			});
+			refresher.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+		}
+		else
+		{
+			refresher = null;
+		}
+	}
+
+	/**
+	 * @return Der Zwischenspeicher für die Drucker des Betriebssystems.
+	 */
+	static synchronized PrintServiceCache getDefault()
+	{
+		if(defaultCache == null)
+			defaultCache = new PrintServiceCache(
+					() -> PrintServiceLookup.lookupPrintServices(flavor, new HashPrintRequestAttributeSet()),
+					lookupRefresh);
+		return defaultCache;
+	}
+
+	/**
+	 * @return Die Kennzahlen des Zwischenspeichers für die Drucker des Betriebssystems, oder eine leere Map,
+	 * wenn noch nicht über das Betriebssystem gedruckt wurde.
+	 */
+	public static synchronized Map<String, Object> getDefaultStatistics()
+	{
+		return defaultCache == null ? Collections.emptyMap() : defaultCache.getStatistics();
+	}
+
+	/**
+	 * Liefert einen Drucker. Ist die Liste der Drucker veraltet, wird sie zuvor neu ermittelt.
+	 * @param printerName Name des Druckers, wie er im Betriebssystem angezeigt wird.
+	 * @return Der Drucker, null wenn er nicht installiert ist.
+	 */
+	public PrintService get(String printerName)
+	{
+		if(stale)
+			refresh();
+
+		PrintService service = services.get(printerName.toLowerCase());
+		if(service == null)
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return service;
+	}
+
+	/**
+	 * Markiert die Liste der Drucker als veraltet, z.B. nachdem ein Druck fehlgeschlagen ist.
+	 */
+	public void invalidate()
+	{
+		invalidations.incrementAndGet();
+		stale = true;
+	}
+
+	/**
+	 * Ermittelt die Liste der Drucker neu.
+	 */
+	public synchronized void refresh()
+	{
+		long start = System.currentTimeMillis();
+		try
+		{
+			Map<String, PrintService> refreshed = new HashMap<>();
+			for(PrintService service: lookup.get())
+				refreshed.put(service.getName().toLowerCase(), service);
+
+			services = refreshed;
+			stale = false;
+			lastRefresh = System.currentTimeMillis();
+			lookups.incrementAndGet();
+		} catch (RuntimeException e)
+		{
+			// Bis zur nächsten erfolgreichen Suche bleiben die bisher bekannten Drucker gültig
+			e.printStackTrace();
+			lookupFailures.incrementAndGet();
+			if(services == null)
+				services = new HashMap<>();
+		}
+		lastLookupMillis = System.currentTimeMillis() - start;
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Zwischenspeichers.
+	 * @return Bekannte Drucker, Alter und Dauer der letzten Suche sowie Anzahl der Suchen, Treffer und Fehlgriffe.
+	 */
+	public Map<String, Object> getStatistics()
+	{
+		Map<String, PrintService> current = services;
+		List<String> printers = new ArrayList<>();
+		if(current != null)
+		{
+			for(PrintService service: current.values())
+				printers.add(service.getName());
+			Collections.sort(printers);
+		}
+
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("printers", printers);
+		statistics.put("stale", stale);
+		statistics.put("ageMillis", lastRefresh == 0 ? -1 : System.currentTimeMillis() - lastRefresh);
+		statistics.put("lastLookupMillis", lastLookupMillis);
+		statistics.put("lookups", lookups.get());
+		statistics.put("lookupFailures", lookupFailures.get());
+		statistics.put("hits", hits.get());
+		statistics.put("misses", misses.get());
+		statistics.put("invalidations", invalidations.get());
+		return statistics;
+	}
+
+	/**
+	 * Beendet die Aktualisierung im Hintergrund.
+	 */
+	public void close()
+	{
+		if(refresher != null)
+			refresher.shutdownNow();
+	}
+}
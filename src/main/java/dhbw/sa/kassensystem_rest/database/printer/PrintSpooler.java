@@ -0,0 +1,457 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warteschlange für die Druckaufträge eines Druckers.
+ *
+ * Anfragen an die REST-Schnittstelle stellen Druckaufträge nur in die Warteschlange und warten nicht auf den
+ * Drucker. Für jeden Drucker arbeitet ein eigener Thread die Aufträge der Reihe nach ab. Schlägt ein Druck fehl,
+ * wird er mit wachsender Wartezeit wiederholt, bis die maximale Anzahl an Versuchen erreicht ist.
+ *
+ * Größe der Warteschlange, Anzahl der Versuche und Wartezeit können über die System-Properties
+ * "kassensystem.print.queueCapacity", "kassensystem.print.maxAttempts" und "kassensystem.print.retryBackoff"
+ * (in Millisekunden) festgelegt werden.
+ *
+ * Jeder Auftrag wird vor dem Einreihen in ein {@link PrintJournal} geschrieben und erst nach erfolgreichem Druck
+ * als erledigt markiert. Kann er nicht geschrieben werden, wird er abgelehnt. Endgültig fehlgeschlagene Aufträge
+ * werden im Abstand von "kassensystem.print.failedRetryInterval" Millisekunden erneut versucht, Aufträge, die bis
+ * zum Beenden des Servers nicht gedruckt werden konnten, beim nächsten Start. Das Verzeichnis der Journale wird
+ * über "kassensystem.print.journalDir" festgelegt, die Größe eines Segments in Bytes über
+ * "kassensystem.print.journalSegmentSize".
+ *
+ * Ist "kassensystem.print.fileDir" gesetzt, werden die Aufträge über einen {@link FilePrinterDevice} in Dateien
+ * geschrieben, statt an die installierten Drucker gesendet.
+ *
+ * @author Marvin Mai
+ */
+public class PrintSpooler
+{
+	private static final int queueCapacity = Integer.getInteger("kassensystem.print.queueCapacity", 100);
+	private static final int maxAttempts = Integer.getInteger("kassensystem.print.maxAttempts", 3);
+	private static final long retryBackoff = Long.getLong("kassensystem.print.retryBackoff", 1000);
+	private static final long failedRetryInterval = Long.getLong("kassensystem.print.failedRetryInterval", 60000);
+	private static final String journalDir = System.getProperty("kassensystem.print.journalDir", "print-journal");
+	private static final int journalSegmentSize = Integer.getInteger("kassensystem.print.journalSegmentSize", 1 << 20);
+	// Ist das Verzeichnis gesetzt, werden die Druckaufträge statt an die Drucker in Dateien geschrieben
+	private static final String fileDir = System.getProperty("kassensystem.print.fileDir");
+	// Anzahl der zuletzt erstellten Druckaufträge, deren Status abgefragt werden kann
+	private static final int recentJobsSize = 1000;
+
+	private static final Map<String, PrintSpooler> spoolers = new LinkedHashMap<>();
+	private static final Map<Long, PrintJob> recentJobs = new LinkedHashMap<Long, PrintJob>()
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, PrintJob> eldest)
+		{
+			return size() > recentJobsSize;
+		}
+	};
+
+	private final PrinterDevice device;
+	private final PrintJournal journal;
+	private final int maxAttemptsPerJob;
+	private final long retryBackoffMillis;
+	private final long failedRetryMillis;
+	private final BlockingQueue<PrintJob> queue;
+	// Endgültig fehlgeschlagene Aufträge, die noch im Journal stehen. Wird nur vom Thread der Warteschlange geleert.
+	private final ConcurrentLinkedQueue<PrintJob> failedJobs = new ConcurrentLinkedQueue<>();
+	private long nextFailedRetryAt;
+	private final Thread worker;
+	private volatile boolean running = true;
+
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong printed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong replayed = new AtomicLong();
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+	private final AtomicLong totalLatencyMillis = new AtomicLong();
+	private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+	/**
+	 * Erzeugt eine Warteschlange mit eigenem Thread für einen Drucker, ohne die Aufträge in ein Journal zu
+	 * schreiben.
+	 * @param device Der Drucker, an den die Aufträge gesendet werden.
+	 * @param capacity Maximale Anzahl an wartenden Aufträgen.
+	 * @param maxAttemptsPerJob Maximale Anzahl an Druckversuchen je Auftrag.
+	 * @param retryBackoffMillis Wartezeit vor dem ersten erneuten Versuch, verdoppelt sich mit jedem Versuch.
+	 */
+	public PrintSpooler(PrinterDevice device, int capacity, int maxAttemptsPerJob, long retryBackoffMillis)
+	{
+		this(device, null, capacity, maxAttemptsPerJob, retryBackoffMillis);
+	}
+
+	/**
+	 * Erzeugt eine Warteschlange mit eigenem Thread für einen Drucker und reiht alle noch nicht gedruckten
+	 * Aufträge aus dem Journal wieder ein.
+	 * @param device Der Drucker, an den die Aufträge gesendet werden.
+	 * @param journal Das Journal der Aufträge, null wenn die Aufträge nicht gesichert werden sollen.
+	 * @param capacity Maximale Anzahl an wartenden Aufträgen.
+	 * @param maxAttemptsPerJob Maximale Anzahl an Druckversuchen je Auftrag.
+	 * @param retryBackoffMillis Wartezeit vor dem ersten erneuten Versuch, verdoppelt sich mit jedem Versuch.
+	 */
+	public PrintSpooler(PrinterDevice device, PrintJournal journal, int capacity, int maxAttemptsPerJob,
+						long retryBackoffMillis)
+	{
+		this(device, journal, capacity, maxAttemptsPerJob, retryBackoffMillis, failedRetryInterval);
+	}
+
+	/**
+	 * Wie {@link #PrintSpooler(PrinterDevice, PrintJournal, int, int, long)}.
+	 * @param failedRetryMillis Abstand, in dem endgültig fehlgeschlagene Aufträge aus dem Journal erneut versucht
+	 *                          werden.
+	 */
+	public PrintSpooler(PrinterDevice device, PrintJournal journal, int capacity, int maxAttemptsPerJob,
+						long retryBackoffMillis, long failedRetryMillis)
+	{
+		Map<Long, byte[]> recovered = journal == null ? new LinkedHashMap<>() : journal.getRecovered();
+
+		this.device = device;
+		this.journal = journal;
+		this.maxAttemptsPerJob = maxAttemptsPerJob;
+		this.retryBackoffMillis = retryBackoffMillis;
+		this.failedRetryMillis = failedRetryMillis;
+		// Wiederhergestellte Aufträge dürfen die Warteschlange nicht für neue Aufträge blockieren
+		this.queue = new ArrayBlockingQueue<>(capacity + recovered.size());
+
+		for(Map.Entry<Long, byte[]> entry: recovered.entrySet())
+		{
+			PrintJob job = new PrintJob(device.getName(), entry.getValue());
+			job.setJournalPosition(entry.getKey());
+			remember(job);
+			queue.add(job);
+			queued.incrementAndGet();
+			replayed.incrementAndGet();
+		}
+
+		this.worker = new Thread(this::work, "print-spooler-" + device.getName());
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * Liefert die Warteschlange eines im Betriebssystem installierten Druckers und legt sie bei Bedarf an.
+	 * @param printerName Name des Druckers, wie er im Betriebssystem angezeigt wird.
+	 * @return Die Warteschlange des Druckers.
+	 */
+	public static synchronized PrintSpooler forPrinter(String printerName)
+	{
+		return spoolers.computeIfAbsent(printerName, name ->
+				new PrintSpooler(createDevice(name), openJournal(name), queueCapacity, maxAttempts, retryBackoff));
+	}
+
+	private static PrinterDevice createDevice(String printerName)
+	{
+		if(fileDir != null)
+			return new FilePrinterDevice(printerName, Paths.get(fileDir, toFileName(printerName)));
+		return new JavaxPrinterDevice(printerName, PrintServiceCache.getDefault());
+	}
+
+	private static String toFileName(String printerName)
+	{
+		return printerName.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+
+	private static PrintJournal openJournal(String printerName)
+	{
+		Path directory = Paths.get(journalDir, toFileName(printerName));
+		try
+		{
+			return PrintJournal.open(directory, journalSegmentSize);
+		} catch (IOException e)
+		{
+			// Ohne Journal wird weiter gedruckt, die Aufträge überstehen dann aber keinen Neustart
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Liefert einen der zuletzt erstellten Druckaufträge.
+	 * @param jobID Die ID des Druckauftrags.
+	 * @return Der Druckauftrag, null wenn er nicht (mehr) bekannt ist.
+	 */
+	public static PrintJob getJob(long jobID)
+	{
+		synchronized (recentJobs)
+		{
+			return recentJobs.get(jobID);
+		}
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen aller Warteschlangen.
+	 * @return Die Kennzahlen je Drucker.
+	 */
+	public static synchronized Map<String, Map<String, Number>> getAllStatistics()
+	{
+		Map<String, Map<String, Number>> statistics = new LinkedHashMap<>();
+		for(Map.Entry<String, PrintSpooler> spooler: spoolers.entrySet())
+			statistics.put(spooler.getKey(), spooler.getValue().getStatistics());
+		return statistics;
+	}
+
+	/**
+	 * Stellt Druckdaten in die Warteschlange, ohne auf den Drucker zu warten.
+	 * @param data Die zu druckenden Bytes inklusive aller Steuerbefehle.
+	 * @return Der Druckauftrag. Ist die Warteschlange voll, hat er den Status {@link PrintJob.Status#FAILED}.
+	 */
+	public PrintJob submit(byte[] data)
+	{
+		PrintJob job = reserve();
+		submit(job, data);
+		return job;
+	}
+
+	/**
+	 * Legt einen Druckauftrag an, dessen Daten erst später mit {@link #submit(PrintJob, byte[])} übergeben werden.
+	 * Bis dahin kann sein Status bereits abgefragt werden.
+	 * @return Der noch nicht eingereihte Druckauftrag.
+	 */
+	PrintJob reserve()
+	{
+		PrintJob job = new PrintJob(device.getName(), null);
+		remember(job);
+		return job;
+	}
+
+	/**
+	 * Sichert einen Beleg im Journal, ohne ihn einzureihen, z.B. einen Teil eines noch nicht zusammengefassten
+	 * Küchenbelegs. Wird er nicht mit {@link #discardJournaled(long)} verworfen, wird er nach einem Neustart gedruckt.
+	 * @param data Die zu druckenden Bytes inklusive aller Steuerbefehle.
+	 * @return Die Position im Journal, -1 wenn der Drucker kein Journal führt.
+	 * @throws IOException Wenn der Beleg nicht gesichert werden kann.
+	 */
+	long journal(byte[] data) throws IOException
+	{
+		return journal == null ? -1 : journal.append(data);
+	}
+
+	/**
+	 * Markiert einen mit {@link #journal(byte[])} gesicherten Beleg als erledigt.
+	 * @param position Die Position im Journal.
+	 */
+	void discardJournaled(long position)
+	{
+		if(journal == null || position < 0)
+			return;
+		try
+		{
+			journal.markDone(position);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Stellt einen mit {@link #reserve()} angelegten Druckauftrag in die Warteschlange. Der Auftrag wird erst
+	 * eingereiht, nachdem er im Journal gesichert wurde. Ist die Warteschlange voll oder schlägt das Sichern fehl,
+	 * erhält er den Status {@link PrintJob.Status#FAILED} und wird nicht gedruckt.
+	 * @param job Der Druckauftrag.
+	 * @param data Die zu druckenden Bytes inklusive aller Steuerbefehle.
+	 */
+	synchronized void submit(PrintJob job, byte[] data)
+	{
+		job.setData(data);
+
+		// Nur submit reiht ein, ein freier Platz bleibt daher bis zum Einreihen frei. Abgelehnte Aufträge werden
+		// gar nicht erst ins Journal geschrieben und nach einem Neustart nicht gedruckt.
+		if(!running || queue.remainingCapacity() == 0)
+		{
+			rejected.incrementAndGet();
+			job.failed("Die Warteschlange des Druckers " + device.getName() + " ist voll!");
+			return;
+		}
+
+		if(journal != null)
+		{
+			try
+			{
+				job.setJournalPosition(journal.append(data));
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+				rejected.incrementAndGet();
+				job.failed("Der Druckauftrag konnte nicht im Journal gesichert werden!");
+				return;
+			}
+		}
+
+		queue.add(job);
+		queued.incrementAndGet();
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen dieser Warteschlange.
+	 * @return Länge der Warteschlange, Anzahl der Aufträge je Ergebnis sowie Warte- und Gesamtzeiten in
+	 * Millisekunden.
+	 */
+	public Map<String, Number> getStatistics()
+	{
+		long finished = printed.get() + failed.get();
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("queueDepth", queue.size());
+		statistics.put("queued", queued.get());
+		statistics.put("printed", printed.get());
+		statistics.put("failed", failed.get());
+		statistics.put("rejected", rejected.get());
+		statistics.put("retries", retries.get());
+		statistics.put("replayed", replayed.get());
+		statistics.put("failedPending", failedJobs.size());
+		statistics.put("avgWaitMillis", finished == 0 ? 0 : totalWaitMillis.get() / finished);
+		statistics.put("avgLatencyMillis", finished == 0 ? 0 : totalLatencyMillis.get() / finished);
+		statistics.put("maxLatencyMillis", maxLatencyMillis.get());
+		if(journal != null)
+		{
+			for(Map.Entry<String, Number> entry: journal.getStatistics().entrySet())
+				statistics.put("journal" + Character.toUpperCase(entry.getKey().charAt(0))
+						+ entry.getKey().substring(1), entry.getValue());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Beendet den Thread der Warteschlange. Noch wartende Aufträge werden nicht mehr gedruckt, bleiben aber im
+	 * Journal für den nächsten Start erhalten.
+	 */
+	public void close()
+	{
+		running = false;
+		worker.interrupt();
+		try
+		{
+			worker.join(1000);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if(journal != null)
+			journal.close();
+	}
+
+	private void work()
+	{
+		while(running)
+		{
+			PrintJob job;
+			try
+			{
+				job = queue.poll(failedRetryMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e)
+			{
+				return;
+			}
+			if(job != null)
+				print(job);
+			retryFailedJobs();
+		}
+	}
+
+	/**
+	 * Versucht die endgültig fehlgeschlagenen Aufträge erneut, wenn der Abstand seit dem letzten Versuch vergangen
+	 * ist. Jeder Auftrag erhält dabei einen Versuch, schlägt er erneut fehl, wird er später wieder versucht.
+	 */
+	private void retryFailedJobs()
+	{
+		if(failedJobs.isEmpty() || System.currentTimeMillis() < nextFailedRetryAt)
+			return;
+
+		for(int i = failedJobs.size(); i > 0 && running; i--)
+		{
+			PrintJob job = failedJobs.poll();
+			retries.incrementAndGet();
+			print(job);
+		}
+		nextFailedRetryAt = System.currentTimeMillis() + failedRetryMillis;
+	}
+
+	private void print(PrintJob job)
+	{
+		boolean retry = job.getStatus() == PrintJob.Status.FAILED;
+		while(true)
+		{
+			job.printing();
+			try
+			{
+				device.print(job.getData());
+				job.done();
+				printed.incrementAndGet();
+				markDone(job);
+				break;
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				// Endgültig fehlgeschlagene Aufträge bleiben im Journal und werden später bzw. nach einem Neustart
+				// erneut versucht
+				if(job.getAttempts() >= maxAttemptsPerJob || retry || !running)
+				{
+					job.failed(e.getMessage());
+					if(!retry)
+						failed.incrementAndGet();
+					if(journal != null && job.getJournalPosition() >= 0 && running)
+					{
+						if(failedJobs.isEmpty())
+							nextFailedRetryAt = System.currentTimeMillis() + failedRetryMillis;
+						failedJobs.add(job);
+					}
+					break;
+				}
+
+				job.attemptFailed(e.getMessage());
+				retries.incrementAndGet();
+				try
+				{
+					TimeUnit.MILLISECONDS.sleep(retryBackoffMillis << (job.getAttempts() - 1));
+				} catch (InterruptedException interrupted)
+				{
+					job.failed(e.getMessage());
+					failed.incrementAndGet();
+					return;
+				}
+			}
+		}
+
+		// Wartezeiten erneuter Versuche würden die Kennzahlen der Warteschlange verfälschen
+		if(retry)
+			return;
+
+		long latency = job.getFinishedAt() - job.getQueuedAt();
+		totalWaitMillis.addAndGet(job.getStartedAt() - job.getQueuedAt());
+		totalLatencyMillis.addAndGet(latency);
+		maxLatencyMillis.accumulateAndGet(latency, Math::max);
+	}
+
+	private void markDone(PrintJob job)
+	{
+		if(journal == null || job.getJournalPosition() < 0)
+			return;
+		try
+		{
+			journal.markDone(job.getJournalPosition());
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	private static void remember(PrintJob job)
+	{
+		synchronized (recentJobs)
+		{
+			recentJobs.put(job.getJobID(), job);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+/**
+ * Ein Drucker, an den bereits formatierte Druckdaten gesendet werden können.
+ *
+ * @author Marvin Mai
+ */
+public interface PrinterDevice
+{
+	/**
+	 * @return Name des Druckers, wie er im Betriebssystem angezeigt wird.
+	 */
+	String getName();
+
+	/**
+	 * Sendet Druckdaten an den Drucker und wartet, bis der Drucker sie angenommen hat.
+	 * @param data Die zu druckenden Bytes inklusive aller Steuerbefehle.
+	 * @throws Exception Wenn der Drucker nicht erreichbar ist oder den Druck ablehnt.
+	 */
+	void print(byte[] data) throws Exception;
+}
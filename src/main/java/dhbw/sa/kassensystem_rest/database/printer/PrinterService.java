@@ -1,17 +1,18 @@
 package dhbw.sa.kassensystem_rest.database.printer;
 
 
-import dhbw.sa.kassensystem_rest.database.Gastronomy;
 import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
 import dhbw.sa.kassensystem_rest.database.entity.*;
-import dhbw.sa.kassensystem_rest.exceptions.DataException;
 import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
 
-import javax.print.*;
-import javax.print.attribute.HashPrintRequestAttributeSet;
-import javax.print.attribute.PrintRequestAttributeSet;
-import java.text.DecimalFormat;
+import javax.annotation.PreDestroy;
+
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service zum Ausdrucken einer Bestellung, die in einer PrintableReceipt gespeichert wurde.
@@ -28,85 +29,165 @@ import java.util.ArrayList;
  * @author Marvin Mai
  */
 
+@Service
 public class PrinterService {
 
-    /* printerName: Name des Druckers, wie er im Betriebssystem angezeigt wird.*/
-    private final String printerName = "EPSON TM-T88V Receipt";
-    private final DatabaseService databaseService = new DatabaseService();
+    /* Datei der Druckerrouten, siehe PrintRoutes. Wird über "kassensystem.print.routes" festgelegt.*/
+    private static final String routesFile = System.getProperty("kassensystem.print.routes",
+			"printer-routes.properties");
+
+	// Wird nur noch für die zwischengespeicherte Speisekarte verwendet, alle weiteren Daten übergibt der Aufrufer.
+    private final DatabaseService databaseService;
+    private final PrintRoutes printRoutes;
+    private final EscPosRenderer renderer = new EscPosRenderer();
+    private final TicketCoalescer ticketCoalescer;
+
+	/**
+	 * Erzeugt den PrinterService, der über die Druckerrouten an die im Betriebssystem installierten Drucker druckt.
+	 * @param databaseService Der DatabaseService, über den die Artikel der Speisekarte ermittelt werden.
+	 */
+	@Autowired
+	public PrinterService(DatabaseService databaseService)
+	{
+		this(databaseService, PrintRoutes.fromFile(Paths.get(routesFile)));
+	}
+
+	/**
+	 * Erzeugt einen PrinterService, der alle Belege über eine vorgegebene Druckerwarteschlange druckt.
+	 * @param databaseService Der DatabaseService, über den die Artikel der Speisekarte ermittelt werden.
+	 * @param printSpooler Die Warteschlange, in die die Druckaufträge gestellt werden.
+	 */
+	public PrinterService(DatabaseService databaseService, PrintSpooler printSpooler)
+	{
+		this(databaseService, PrintRoutes.single(printSpooler));
+	}
+
+	/**
+	 * Erzeugt einen PrinterService, der die Belege über vorgegebene Druckerrouten druckt.
+	 * @param databaseService Der DatabaseService, über den die Artikel der Speisekarte ermittelt werden.
+	 * @param printRoutes Die Routen, nach denen die Belege auf die Drucker verteilt werden.
+	 */
+	public PrinterService(DatabaseService databaseService, PrintRoutes printRoutes)
+	{
+		this.databaseService = databaseService;
+		this.printRoutes = printRoutes;
+		this.ticketCoalescer = new TicketCoalescer(printRoutes, renderer);
+	}
+
+	/**
+	 * Druckt beim Beenden des Servers alle noch im Zeitfenster wartenden Küchenbelege.
+	 */
+	@PreDestroy
+	public void close()
+	{
+		ticketCoalescer.close();
+	}
+
+	/**
+	 * @return Die Kennzahlen je Druckerroute.
+	 */
+	public Map<String, Map<String, Object>> getRouteStatistics()
+	{
+		return printRoutes.getStatistics();
+	}
+
+	/**
+	 * @return Die Kennzahlen der zusammengefassten Küchenbelege.
+	 */
+	public Map<String, Number> getCoalescingStatistics()
+	{
+		return ticketCoalescer.getStatistics();
+	}
 
     // Interface zum Ausdrucken einer Order oder Receipt
     /**
-     * Druckt über einen formatierten Text die Bestellung für die Küche aus.
-	 * @param orderID ID der zu druckenden Bestellung.
+     * Druckt die Bestellung für die Küche aus. Die Artikel werden nach den Druckerrouten aufgeteilt, jeder
+	 * Drucker erhält einen eigenen Beleg mit seinen Artikeln. Hat eine Route ein Zeitfenster, wird der Beleg mit
+	 * weiteren Belegen derselben Order zusammengefasst.
+	 * @param order Die Bestellung, zu der die Artikel gehören.
+	 * @param table Der Tisch der Bestellung.
 	 * @param orderedItems Neu bestellte Artikel.
+	 * @return Die Druckaufträge, einer je betroffener Route. Zusammengefasste Belege teilen sich einen Druckauftrag.
 	 */
-    public void printOrder(int orderID, ArrayList<OrderedItem> orderedItems)
+    public List<PrintJob> printOrder(Order order, Table table, List<OrderedItem> orderedItems)
 	{
-        PrintableOrder printableOrder = getPrintableOrder(orderID, orderedItems);
+		Map<String, List<OrderedItem>> itemsByRoute = printRoutes.split(orderedItems, OrderedItem::getItemID);
 
-        String formattedOrderText = getFormattedOrder(printableOrder);
-
-        printString(formattedOrderText);
+		List<PrintJob> printJobs = new ArrayList<>();
+		for(Map.Entry<String, List<OrderedItem>> route: itemsByRoute.entrySet())
+		{
+			PrintableOrder printableOrder = getPrintableOrder(order, table, route.getValue());
+			long coalesceMillis = printRoutes.getCoalesceMillis(route.getKey());
+			if(coalesceMillis > 0)
+			{
+				printJobs.add(ticketCoalescer.add(route.getKey(), coalesceMillis, order.getOrderID(), printableOrder));
+				continue;
+			}
 
-        databaseService.disconnect();
+			byte[] data = renderer.renderOrder(printableOrder, printRoutes.getTitle(route.getKey()));
+			printJobs.add(printRoutes.submit(route.getKey(), data, route.getValue().size()));
+		}
+        return printJobs;
     }
 
 	/**
 	 * Druckt einen Kundenbeleg aus.
-	 * @param orderID Die ID der zu druckenden Bestellung.
+	 * @param order Die zu druckende Bestellung inklusive Preis.
+	 * @param table Der Tisch der Bestellung.
+	 * @param orderedItems Alle bestellten Artikel der Bestellung.
+	 * @return Der Druckauftrag.
 	 */
-    public void printReceipt(int orderID)
+    public PrintJob printReceipt(Order order, Table table, List<OrderedItem> orderedItems)
 	{
-		PrintableReceipt printableReceipt = getPrintableReceipt(orderID);
-
-		String formattedReceiptText = getFormattedReceipt(printableReceipt);
+		PrintableReceipt printableReceipt = getPrintableReceipt(order, table, orderedItems);
 
-		printString(formattedReceiptText);
-
-		databaseService.disconnect();
+		return printRoutes.submit(printRoutes.getReceiptRoute(), renderer.renderReceipt(printableReceipt),
+				orderedItems.size());
 	}
 
-	public void printLogindata(String loginname, String password, Waiter waiter)
+	public PrintJob printLogindata(String loginname, String password, Waiter waiter)
 	{
-		String formattedLogindata = getFormattedLogindata(loginname, password, waiter);
+		String date = DateTime.now().toString("dd.MM.yyyy kk:mm:ss");
 
-		printString(formattedLogindata);
+		return printRoutes.submit(printRoutes.getReceiptRoute(), renderer.renderLogindata(loginname, password, date), 0);
 	}
 
-	public void printDataConflict(ArrayList<OrderedItem> orderedItems)
+	/**
+	 * Druckt einen gelösten Datenkonflikt aus.
+	 * @param orderedItems Alle vom Datenkonflikt betroffenen bestellten Artikel.
+	 * @param tablesByOrderID Die Tische der betroffenen Bestellungen nach orderID.
+	 * @return Der Druckauftrag.
+	 */
+	public PrintJob printDataConflict(List<OrderedItem> orderedItems, Map<Integer, Table> tablesByOrderID)
 	{
-		String formattedText = getFormattedDataConflicts(getPrintableDataConflicts(orderedItems));
+		ArrayList<PrintableDataConflict> printableDataConflicts = getPrintableDataConflicts(orderedItems, tablesByOrderID);
 
-		printString(formattedText);
+		return printRoutes.submit(printRoutes.getReceiptRoute(), renderer.renderDataConflicts(printableDataConflicts),
+				orderedItems.size());
 	}
 
 	// Funktionen zum Ermitteln aller zum Drucken benötigten Daten
 	/**
 	 * Sammelt Daten für eine {@link PrintableOrder}, um einen Küchenbeleg ausdrucken zu können.
-	 * @param orderID Die ID der Order, für die neue bestellte Artikel zur Zubereitung in der Küche
-	 *                ausgedruckt werden sollen.
+	 * @param order Die Order, für die neue bestellte Artikel zur Zubereitung in der Küche
+	 *              ausgedruckt werden sollen.
+	 * @param table Der Tisch der Order.
 	 * @param orderedItems Die neue hinzugefügten bestellten Artikel.
 	 * @return Eine {@link PrintableOrder}, die alle auszudruckenden Informationen enthält.
 	 */
-	private PrintableOrder getPrintableOrder(int orderID, ArrayList<OrderedItem> orderedItems)
+	private PrintableOrder getPrintableOrder(Order order, Table table, List<OrderedItem> orderedItems)
 	{
-		Order order = databaseService.getOrderById(orderID);
-
 		// Date
 		String dateString = order.getDate().toString("dd.MM.yyyy kk:mm:ss");
 		// Table-Name
-		String tableName = databaseService.getTableById(order.getTable()).getName();
+		String tableName = table.getName();
 		// Printable Order
 		ArrayList<PrintableOrderedItem> printableOrderedItems = new ArrayList<>();
+		// Es werden nur die neu hinzugefügten OrderedItems übergeben. Nur diese sollen an die Küche ausgedruckt werden.
 		for(OrderedItem o: orderedItems)
 		{
-			// Alle noch nicht in der DB existierenden OrderedItems den auszudruckenden OrderedItems hinzufügen.
-			// Nur diese sollen an die Küche ausgedruckt werden.
-			if (!databaseService.existsOrderedItemWithID(o.getOrderedItemID()))
-			{
-				String name = databaseService.getItemById(o.getItemID()).getName();
-				printableOrderedItems.add(new PrintableOrderedItem(name, o.getComment()));
-			}
+			String name = databaseService.getCatalogItem(o.getItemID()).getName();
+			printableOrderedItems.add(new PrintableOrderedItem(name, o.getComment()));
 		}
 
 		return new PrintableOrder(dateString, tableName, printableOrderedItems);
@@ -114,189 +195,47 @@ public class PrinterService {
 
 	/**
 	 * Sammelt Daten für eine {@link PrintableReceipt}, um einen Kundenbeleg ausdrucken zu können.
-	 * @param orderID Die ID der zu druckenden Bestellung.
+	 * @param order Die zu druckende Bestellung.
+	 * @param table Der Tisch der Bestellung.
+	 * @param orderedItems Alle bestellten Artikel der Bestellung.
 	 * @return Eine {@link PrintableReceipt}, die alle auszudruckenden Informationen enthält.
 	 */
-	private PrintableReceipt getPrintableReceipt(int orderID)
+	private PrintableReceipt getPrintableReceipt(Order order, Table table, List<OrderedItem> orderedItems)
 	{
-		Order order = databaseService.getOrderById(orderID);
-
 		// Date
 		String dateString = order.getDate().toString("dd.MM.yyyy kk:mm:ss");
 		// Table-Name
-		String tableName = databaseService.getTableById(order.getTable()).getName();
+		String tableName = table.getName();
 		// PrintableOrderedItems
 		ArrayList<PrintableOrderedItem> printableOrderedItems = new ArrayList<>();
-		for(OrderedItem o: databaseService.getOrderedItemsByOrderId(order.getOrderID()))
+		for(OrderedItem o: orderedItems)
 		{
-			Item item = databaseService.getItemById(o.getItemID());
+			Item item = databaseService.getCatalogItem(o.getItemID());
 			String name = item.getName();
 			double price = item.getRetailprice();
 			String comment = o.getComment();
 			printableOrderedItems.add(new PrintableOrderedItem(name, price, comment));
 		}
-		// Preis
-		double price = databaseService.getOrderPrice(order.getOrderID());
+		// Preis, wurde beim Laden der Bestellung bereits in derselben Abfrage als Summe der Verkaufspreise ermittelt
+		double price = order.getPrice();
 
 		return new PrintableReceipt(dateString, tableName, printableOrderedItems, price);
 	}
 
-	private ArrayList<PrintableDataConflict> getPrintableDataConflicts(ArrayList<OrderedItem> orderedItems)
+	private ArrayList<PrintableDataConflict> getPrintableDataConflicts(List<OrderedItem> orderedItems,
+																	   Map<Integer, Table> tablesByOrderID)
 	{
 		ArrayList<PrintableDataConflict> printableDataConflicts = new ArrayList<>();
 		String tableName;
 		String itemName;
 		for(OrderedItem o: orderedItems)
 		{
-			tableName = databaseService.getTableById(databaseService.getOrderById(o.getOrderID()).getTable()).getName();
-			itemName = databaseService.getItemById(o.getItemID()).getName();
+			tableName = tablesByOrderID.get(o.getOrderID()).getName();
+			itemName = databaseService.getCatalogItem(o.getItemID()).getName();
 			printableDataConflicts.add(new PrintableDataConflict(tableName, itemName));
 		}
 
 		return printableDataConflicts;
 	}
 
-	// Formatierung der zu Druckenden Daten
-    /**
-     * Formatiert eine {@link PrintableReceipt} in einen Text, der entsprechend des Layouts des Belegs formattiert wird.
-     * @param printableReceipt Daten der Order in ausdruckbarem Format.
-     * @return Die Order formatiert in einen Text, der als Beleg ausgedruckt werden kann.
-     */
-    private String getFormattedReceipt(PrintableReceipt printableReceipt)
-	{
-        StringBuilder formattedReceiptText = new StringBuilder("");
-
-		formattedReceiptText.append("----------Kundenbeleg-------------\n\n");
-
-        formattedReceiptText
-				.append(Gastronomy.getName()).append("\n")
-				.append(Gastronomy.getAdress()).append("\n")
-				.append(Gastronomy.getTelephonenumber()).append("\n")
-				.append("\n").append("Ihre Bestellung:\n");
-
-        DecimalFormat df = new DecimalFormat("#0.00");
-        for(PrintableOrderedItem o: printableReceipt.getPrintableOrderedItems())
-        {
-            formattedReceiptText
-                    .append(o.getName())
-                    .append("\t\t")
-                    .append(df.format(o.getPrice()))
-                    .append(" EUR\n");
-
-			if(o.getComment() != null)
-				formattedReceiptText.append("\t").append(o.getComment()).append("\n");
-        }
-
-        double mwst = Math.round(printableReceipt.getPrice()*0.199 * 100d) / 100d;
-
-        formattedReceiptText
-                .append("________________________\n")
-				.append("Summe\t\t").append(df.format(printableReceipt.getPrice())).append(" EUR\n")
-                .append("inkl. MWST 19%\t").append(df.format(mwst)).append(" EUR\n")
-				.append("\n")
-				.append("Sie saßen an Tisch ").append(printableReceipt.getTableName()).append(".\n")
-				.append("Vielen Dank für Ihren Besuch!\n")
-                .append(printableReceipt.getDate()).append("\n\n");
-
-        return formattedReceiptText.toString();
-    }
-
-	/**
-	 * Formatiert eine {@link PrintableOrder} in einen formatierten Text, der anschließend ausgedruckt werden kann.
-	 * @param printableOrder PrintableOrder, die die zu formatierenden Daten enthält.
-	 * @return Einen formatierten Text, der ausgedruckt werden kann.
-	 */
-	private String getFormattedOrder(PrintableOrder printableOrder)
-	{
-		StringBuilder formattedOrderText = new StringBuilder("");
-
-		formattedOrderText.append("\t\tKÜCHE\n\n");
-
-		for(PrintableOrderedItem p: printableOrder.getOrderedItems())
-		{
-			formattedOrderText
-					.append(p.getName()).append("\n");
-			if(p.getComment() != null)
-					formattedOrderText.append("\t").append(p.getComment()).append("\n");
-		}
-
-		formattedOrderText
-				.append("\n").append("Tisch ").append(printableOrder.getTableName()).append("\n")
-				.append(printableOrder.getDate())
-				.append("\n\n");
-
-		return formattedOrderText.toString();
-	}
-
-	private String getFormattedLogindata(String loginname, String password, Waiter waiter)
-	{
-		return "Login-Daten\n"
-				+ DateTime.now().toString("dd.MM.yyyy kk:mm:ss") + "\n"
-				+ "Benutzername:\t" + loginname + "\n"
-				+ "Passwort:\t" + password + "\n";
-	}
-
-	private String getFormattedDataConflicts(ArrayList<PrintableDataConflict> printableDataConflicts)
-	{
-		StringBuilder txt = new StringBuilder("");
-
-		txt.append("Die folgenden Tische informieren:\n");
-
-		for(PrintableDataConflict p: printableDataConflicts)
-		{
-			txt.append(p.getTableName()).append("\t").append(p.getItemName()).append("\n");
-		}
-
-		return txt.toString();
-	}
-
-    // Druckerfunktionen
-	/**
-	 * Druckt über einen printJob einen String, in dem die Bestellung formatiert wurde.
-	 * @param text formatierter Text der Bestellung.
-	 */
-	private void printString(String text)
-	{
-		// Printer-Service für den Drucker mit dem printerNamen ermitteln
-		DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
-		PrintRequestAttributeSet pras = new HashPrintRequestAttributeSet();
-
-		PrintService printService[] = PrintServiceLookup.lookupPrintServices(flavor, pras);
-		PrintService service = findPrintService(printerName, printService);
-
-		if(service == null)
-			throw new DataException("Der Drucker scheint nicht installiert zu sein!");
-
-		DocPrintJob job = service.createPrintJob();
-
-		try
-		{
-			byte[] textBytes = text.getBytes("CP437");
-			byte[] commandBytes = {29, 86, 65, 0, 0};
-
-			byte[] bytes = new byte[textBytes.length + commandBytes.length];
-
-			System.arraycopy(textBytes, 0, bytes, 0, textBytes.length);
-			System.arraycopy(commandBytes, 0, bytes, textBytes.length, commandBytes.length);
-
-			Doc doc = new SimpleDoc(bytes, flavor, null);
-
-
-			job.print(doc, null);
-		}
-		catch (Exception e) {
-			e.printStackTrace();
-		}
-	}
-
-    private PrintService findPrintService(String printerName, PrintService[] services)
-	{
-        for (PrintService service : services)
-        {
-            if (service.getName().equalsIgnoreCase(printerName))
-                return service;
-        }
-        return null;
-    }
-
 }
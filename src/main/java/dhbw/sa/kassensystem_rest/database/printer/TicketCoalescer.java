@@ -0,0 +1,196 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fasst Küchenbelege derselben Order zusammen, die innerhalb eines kurzen Zeitfensters an denselben Drucker
+ * gesendet werden.
+ *
+ * Der erste Beleg einer Order öffnet das Zeitfenster seiner Route. Alle weiteren Belege der Order, die vor dessen
+ * Ende eintreffen, werden an ihn angehängt und erhalten denselben Druckauftrag. Am Ende des Zeitfensters wird der
+ * zusammengefasste Beleg gedruckt. Das Zeitfenster wird durch weitere Belege nicht verlängert, ein Beleg wartet
+ * also höchstens so lange, wie das Zeitfenster der Route dauert.
+ *
+ * Jeder Beleg wird vor der Rückgabe des Druckauftrags einzeln im {@link PrintJournal} seines Druckers gesichert
+ * und erst als erledigt markiert, nachdem der zusammengefasste Beleg übergeben wurde. Endet der Server im
+ * Zeitfenster, werden die einzelnen Belege nach dem Neustart gedruckt. Endet er genau zwischen Übergabe und
+ * Markierung, werden sie zusätzlich zum zusammengefassten Beleg gedruckt. Kann ein Beleg nicht gesichert werden,
+ * wird er sofort einzeln übergeben.
+ *
+ * @author Marvin Mai
+ */
+final class TicketCoalescer
+{
+	private final PrintRoutes printRoutes;
+	private final EscPosRenderer renderer;
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, PendingTicket> pendingTickets = new HashMap<>();
+
+	private final AtomicLong tickets = new AtomicLong();
+	private final AtomicLong merged = new AtomicLong();
+	private final AtomicLong flushed = new AtomicLong();
+	private final AtomicLong totalFlushLatencyMillis = new AtomicLong();
+	private final AtomicLong maxFlushLatencyMillis = new AtomicLong();
+
+	TicketCoalescer(PrintRoutes printRoutes, EscPosRenderer renderer)
+	{
+		this.printRoutes = printRoutes;
+		this.renderer = renderer;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ticket-coalescer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Fügt einen Küchenbeleg zum offenen Beleg seiner Order hinzu oder öffnet ein neues Zeitfenster.
+	 * @param route Die Route des Belegs.
+	 * @param windowMillis Das Zeitfenster der Route in Millisekunden.
+	 * @param orderID Die ID der Order, zu der der Beleg gehört.
+	 * @param printableOrder Die Daten des Belegs.
+	 * @return Der Druckauftrag des zusammengefassten Belegs.
+	 */
+	PrintJob add(String route, long windowMillis, int orderID, PrintableOrder printableOrder)
+	{
+		String key = route + "/" + orderID;
+		int items = printableOrder.getOrderedItems().size();
+		byte[] data = renderer.renderOrder(printableOrder, printRoutes.getTitle(route));
+		tickets.incrementAndGet();
+		synchronized (pendingTickets)
+		{
+			PendingTicket pending = pendingTickets.get(key);
+			PrintJob job = pending != null ? pending.job : printRoutes.reserve(route);
+
+			// Den Beleg sichern, bevor der Druckauftrag zurückgegeben und damit bestätigt wird
+			long journalPosition;
+			try
+			{
+				journalPosition = printRoutes.journal(job, data);
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+				if(pending != null)
+					return printRoutes.submit(route, data, items);
+				printRoutes.submit(route, job, data, items);
+				return job;
+			}
+
+			if(pending != null)
+			{
+				pending.orderedItems.addAll(printableOrder.getOrderedItems());
+				pending.journalPositions.add(journalPosition);
+				merged.incrementAndGet();
+				return pending.job;
+			}
+
+			pending = new PendingTicket(route, job, printableOrder);
+			pending.journalPositions.add(journalPosition);
+			pendingTickets.put(key, pending);
+			scheduler.schedule(() -> flush(key), windowMillis, TimeUnit.MILLISECONDS);
+			return pending.job;
+		}
+	}
+
+	/**
+	 * Druckt sofort alle offenen Belege, z.B. beim Beenden des Servers.
+	 */
+	void flushAll()
+	{
+		ArrayList<String> keys;
+		synchronized (pendingTickets)
+		{
+			keys = new ArrayList<>(pendingTickets.keySet());
+		}
+		for(String key: keys)
+			flush(key);
+	}
+
+	/**
+	 * Druckt alle offenen Belege und beendet den Thread des Zeitfensters.
+	 */
+	void close()
+	{
+		scheduler.shutdownNow();
+		flushAll();
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen der Zusammenfassung.
+	 * @return Anzahl der eingegangenen, angehängten und gedruckten Belege, offene Belege sowie die Wartezeit der
+	 * gedruckten Belege in Millisekunden.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		long flushedTickets = flushed.get();
+		int pending;
+		synchronized (pendingTickets)
+		{
+			pending = pendingTickets.size();
+		}
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("tickets", tickets.get());
+		statistics.put("merged", merged.get());
+		statistics.put("flushed", flushedTickets);
+		statistics.put("pending", pending);
+		statistics.put("avgFlushLatencyMillis",
+				flushedTickets == 0 ? 0 : totalFlushLatencyMillis.get() / flushedTickets);
+		statistics.put("maxFlushLatencyMillis", maxFlushLatencyMillis.get());
+		return statistics;
+	}
+
+	private void flush(String key)
+	{
+		PendingTicket pending;
+		synchronized (pendingTickets)
+		{
+			pending = pendingTickets.remove(key);
+		}
+		if(pending == null)
+			return;
+
+		PrintableOrder printableOrder = new PrintableOrder(pending.date, pending.tableName, pending.orderedItems);
+		byte[] data = renderer.renderOrder(printableOrder, printRoutes.getTitle(pending.route));
+
+		// Vor der Übergabe zählen, da der Beleg danach bereits gedruckt sein kann
+		long latency = System.currentTimeMillis() - pending.openedAt;
+		flushed.incrementAndGet();
+		totalFlushLatencyMillis.addAndGet(latency);
+		maxFlushLatencyMillis.accumulateAndGet(latency, Math::max);
+
+		printRoutes.submit(pending.route, pending.job, data, pending.orderedItems.size());
+		// Der zusammengefasste Beleg ist gesichert, die einzelnen Belege werden nicht mehr benötigt
+		for(long journalPosition: pending.journalPositions)
+			printRoutes.discardJournaled(pending.job, journalPosition);
+	}
+
+	private static final class PendingTicket
+	{
+		private final String route;
+		private final PrintJob job;
+		private final String date;
+		private final String tableName;
+		private final ArrayList<PrintableOrderedItem> orderedItems;
+		// Positionen der einzeln gesicherten Belege im Journal
+		private final ArrayList<Long> journalPositions = new ArrayList<>();
+		private final long openedAt = System.currentTimeMillis();
+
+		private PendingTicket(String route, PrintJob job, PrintableOrder printableOrder)
+		{
+			this.route = route;
+			this.job = job;
+			this.date = printableOrder.getDate();
+			this.tableName = printableOrder.getTableName();
+			this.orderedItems = new ArrayList<>(printableOrder.getOrderedItems());
+		}
+	}
+}
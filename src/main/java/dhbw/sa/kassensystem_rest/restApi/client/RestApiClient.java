@@ -4,7 +4,10 @@ import dhbw.sa.kassensystem_rest.database.entity.Item;
 import dhbw.sa.kassensystem_rest.database.entity.Order;
 import dhbw.sa.kassensystem_rest.database.entity.Table;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -22,6 +25,15 @@ public class RestApiClient implements RestApiClient_Interface {
 
     private final String REST_SERVICE_URL;
 
+    /*
+      Zuletzt geladene Artikel und Tische mit ihrem ETag. Solange sich die Listen auf dem Server nicht geändert
+      haben, antwortet dieser mit "304 Not Modified" und die zwischengespeicherte Liste wird verwendet.
+     */
+    private String itemsETag;
+    private ArrayList<Item> items;
+    private String tablesETag;
+    private ArrayList<Table> tables;
+
     public RestApiClient() {
         this.REST_SERVICE_URL = "http://localhost:8080/api";
         System.out.println(
@@ -48,9 +60,13 @@ public class RestApiClient implements RestApiClient_Interface {
             ResponseEntity<ArrayList<Item>> responseEntity =
                     restTemplate.exchange
                             (REST_SERVICE_URL + "/items", HttpMethod.GET,
-                                    null, new ParameterizedTypeReference<ArrayList<Item>>() {});
+                                    ifNoneMatch(itemsETag), new ParameterizedTypeReference<ArrayList<Item>>() {});
 
-            return responseEntity.getBody();
+            if(responseEntity.getStatusCode() != HttpStatus.NOT_MODIFIED) {
+                items = responseEntity.getBody();
+                itemsETag = responseEntity.getHeaders().getETag();
+            }
+            return new ArrayList<>(items);
         } catch (HttpClientErrorException e) {
             String message = getMessage(e.getResponseBodyAsString());
             throw new Exception(message);
@@ -66,9 +82,13 @@ public class RestApiClient implements RestApiClient_Interface {
             ResponseEntity<ArrayList<Table>> responseEntity =
                     restTemplate.exchange
                             (REST_SERVICE_URL + "/tables", HttpMethod.GET,
-                                    null, new ParameterizedTypeReference<ArrayList<Table>>() {});
+                                    ifNoneMatch(tablesETag), new ParameterizedTypeReference<ArrayList<Table>>() {});
 
-            return responseEntity.getBody();
+            if(responseEntity.getStatusCode() != HttpStatus.NOT_MODIFIED) {
+                tables = responseEntity.getBody();
+                tablesETag = responseEntity.getHeaders().getETag();
+            }
+            return new ArrayList<>(tables);
         } catch (HttpClientErrorException e) {
             String message = getMessage(e.getResponseBodyAsString());
             throw new Exception(message);
@@ -120,6 +140,20 @@ public class RestApiClient implements RestApiClient_Interface {
         }
     }
 
+    /**
+     * Erzeugt die Header einer bedingten Anfrage.
+     * @param eTag ETag der zwischengespeicherten Liste, null wenn noch keine geladen wurde.
+     * @return Die Anfrage mit dem Header "If-None-Match", oder null ohne ETag.
+     */
+    private static HttpEntity<Void> ifNoneMatch(String eTag) {
+        if(eTag == null)
+            return null;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return new HttpEntity<>(headers);
+    }
+
     /**
      * Extrahiert die Fehlermessage aus dem Body der JSON-Rückmeldung
      * @param body body der Rückmeldung des RestApiContorllers in JSON
@@ -0,0 +1,42 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zählt die Anfragen einer Liste und wie viele davon mit "304 Not Modified" beantwortet wurden.
+ *
+ * @author Marvin Mai
+ */
+final class ConditionalGetStatistics
+{
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong notModified = new AtomicLong();
+
+	/**
+	 * Zählt eine Anfrage.
+	 * @param wasNotModified Ob die Anfrage ohne Daten mit "304 Not Modified" beantwortet wurde.
+	 */
+	void count(boolean wasNotModified)
+	{
+		requests.incrementAndGet();
+		if(wasNotModified)
+			notModified.incrementAndGet();
+	}
+
+	/**
+	 * @return Anzahl der Anfragen, davon mit "304 Not Modified" beantwortet und deren Anteil.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		long requestCount = requests.get();
+		long notModifiedCount = notModified.get();
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("requests", requestCount);
+		statistics.put("notModified", notModifiedCount);
+		statistics.put("notModifiedRatio", requestCount == 0 ? 0 : (double) notModifiedCount / requestCount);
+		return statistics;
+	}
+}
@@ -0,0 +1,238 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderedItemEvents;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Verteilt die Ereignisse zu bestellten Artikeln als Server-Sent Events an die verbundenen Küchen- und
+ * Barbildschirme.
+ *
+ * Jedes Ereignis wird mit seiner Nummer als "id", seinem Typ als Namen und dem Ereignis als JSON gesendet. Baut ein
+ * Bildschirm die Verbindung neu auf, sendet er die Nummer des letzten empfangenen Ereignisses im Header
+ * "Last-Event-ID" und erhält nur die verpassten Ereignisse. Sind diese nicht mehr vorhanden, wird stattdessen ein
+ * Ereignis "snapshot" mit allen nicht produzierten Artikeln gesendet.
+ *
+ * Das Senden übernimmt ein eigener Thread, damit langsame Bildschirme die schreibenden Anfragen nicht aufhalten.
+ * Die maximale Dauer einer Verbindung in Sekunden wird über die System-Property "kassensystem.events.timeout"
+ * festgelegt, danach baut der Browser die Verbindung selbstständig neu auf.
+ *
+ * @author Marvin Mai
+ */
+final class OrderedItemEventStream implements Consumer<OrderedItemEvents.Event>
+{
+	private static final long timeoutSeconds = Long.getLong("kassensystem.events.timeout", 30 * 60);
+	// Abstand der Kommentare, die Proxies davon abhalten, eine ruhende Verbindung zu schließen
+	private static final long heartbeatSeconds = 20;
+
+	private final OrderedItemEvents events;
+	private final ScheduledExecutorService sender;
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong connects = new AtomicLong();
+	private final AtomicLong replays = new AtomicLong();
+	private final AtomicLong snapshots = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+
+	OrderedItemEventStream(OrderedItemEvents events)
+	{
+		this.events = events;
+		this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ordered-item-events");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sender.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+		events.subscribe(this);
+	}
+
+	/**
+	 * Öffnet eine neue Verbindung.
+	 * @param lastEventID Die Nummer des zuletzt empfangenen Ereignisses, null bei der ersten Verbindung.
+	 * @param snapshot Liefert die nicht produzierten Artikel, wenn die verpassten Ereignisse nicht mehr vorhanden
+	 *                 sind.
+	 * @return Die Verbindung, über die die Ereignisse gesendet werden.
+	 */
+	SseEmitter connect(String lastEventID, Supplier<List<OrderedItem>> snapshot)
+	{
+		connects.incrementAndGet();
+
+		// Verpasste Ereignisse bzw. den aktuellen Stand noch im Thread der Anfrage ermitteln
+		List<OrderedItemEvents.Event> missed = null;
+		if(lastEventID != null)
+		{
+			try
+			{
+				missed = events.getEventsAfter(Long.parseLong(lastEventID.trim()));
+			} catch (NumberFormatException e)
+			{
+				missed = null;
+			}
+		}
+
+		long lastSequence;
+		List<OrderedItem> orderedItems = null;
+		if(missed == null)
+		{
+			lastSequence = events.getLastSequence();
+			orderedItems = snapshot.get();
+			snapshots.incrementAndGet();
+		}
+		else
+		{
+			lastSequence = missed.isEmpty() ? events.getLastSequence() : missed.get(missed.size() - 1).getSequence();
+			replays.incrementAndGet();
+		}
+
+		SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+		Subscriber subscriber = new Subscriber(emitter, lastSequence);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+
+		List<OrderedItemEvents.Event> replay = missed;
+		List<OrderedItem> initial = orderedItems;
+		sender.execute(() -> {
+			try
+			{
+				if(initial != null)
+					emitter.send(SseEmitter.event()
+							.id(Long.toString(lastSequence))
+							.name("snapshot")
+							.data(initial, MediaType.APPLICATION_JSON));
+				else
+					for(OrderedItemEvents.Event event: replay)
+						send(emitter, event);
+
+				// Ereignisse, die seit der Ermittlung im Thread der Anfrage ausgelöst wurden, wurden bereits ohne
+				// diesen Bildschirm verteilt und werden daher vor dem Anmelden nachgeholt. Spätere Ereignisse
+				// werden erst nach dieser Aufgabe verteilt, doppelte überspringt broadcast anhand der Nummer.
+				List<OrderedItemEvents.Event> published = events.getEventsAfter(lastSequence);
+				if(published == null)
+				{
+					// Nicht mehr vorhanden, der Browser baut die Verbindung neu auf und erhält den aktuellen Stand
+					emitter.complete();
+					return;
+				}
+				for(OrderedItemEvents.Event event: published)
+				{
+					send(emitter, event);
+					subscriber.lastSequence = event.getSequence();
+				}
+				subscribers.add(subscriber);
+			} catch (IOException | IllegalStateException e)
+			{
+				emitter.completeWithError(e);
+			}
+		});
+		return emitter;
+	}
+
+	/**
+	 * Nimmt ein Ereignis aus dem DatabaseService entgegen und übergibt es an den Thread zum Senden.
+	 */
+	@Override
+	public void accept(OrderedItemEvents.Event event)
+	{
+		sender.execute(() -> broadcast(event));
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen der Verbindungen.
+	 * @return Anzahl der verbundenen Bildschirme, Verbindungen, nachgeholten Ereignisse, gesendeten Zustände und
+	 * Ereignisse sowie die Nummer des letzten Ereignisses.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("subscribers", subscribers.size());
+		statistics.put("connects", connects.get());
+		statistics.put("replays", replays.get());
+		statistics.put("snapshots", snapshots.get());
+		statistics.put("sent", sent.get());
+		statistics.put("lastSequence", events.getLastSequence());
+		return statistics;
+	}
+
+	/**
+	 * Meldet sich vom DatabaseService ab und schließt alle Verbindungen.
+	 */
+	void close()
+	{
+		events.unsubscribe(this);
+		sender.shutdownNow();
+		for(Subscriber subscriber: subscribers)
+			subscriber.emitter.complete();
+		subscribers.clear();
+	}
+
+	private void broadcast(OrderedItemEvents.Event event)
+	{
+		for(Subscriber subscriber: subscribers)
+		{
+			// Bereits mit den verpassten Ereignissen gesendet
+			if(event.getSequence() <= subscriber.lastSequence)
+				continue;
+
+			try
+			{
+				send(subscriber.emitter, event);
+				subscriber.lastSequence = event.getSequence();
+			} catch (IOException | IllegalStateException e)
+			{
+				// Der Bildschirm hat die Verbindung getrennt
+				subscribers.remove(subscriber);
+				subscriber.emitter.completeWithError(e);
+			}
+		}
+	}
+
+	private void heartbeat()
+	{
+		for(Subscriber subscriber: subscribers)
+		{
+			try
+			{
+				subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+			} catch (IOException | IllegalStateException e)
+			{
+				subscribers.remove(subscriber);
+				subscriber.emitter.completeWithError(e);
+			}
+		}
+	}
+
+	private void send(SseEmitter emitter, OrderedItemEvents.Event event) throws IOException
+	{
+		emitter.send(SseEmitter.event()
+				.id(Long.toString(event.getSequence()))
+				.name(event.getType().name())
+				.data(event, MediaType.APPLICATION_JSON));
+		sent.incrementAndGet();
+	}
+
+	private static final class Subscriber
+	{
+		private final SseEmitter emitter;
+		// Wird nur im Thread zum Senden gelesen und geschrieben
+		private long lastSequence;
+
+		private Subscriber(SseEmitter emitter, long lastSequence)
+		{
+			this.emitter = emitter;
+			this.lastSequence = lastSequence;
+		}
+	}
+}
@@ -1,19 +1,42 @@
 package dhbw.sa.kassensystem_rest.restApi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dhbw.sa.kassensystem_rest.database.databaseservice.BulkUpdateResult;
+import dhbw.sa.kassensystem_rest.database.databaseservice.ChangeLog;
+import dhbw.sa.kassensystem_rest.database.databaseservice.CreatedOrder;
 import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.Delta;
+import dhbw.sa.kassensystem_rest.database.databaseservice.NewOrder;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderFilter;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderedItemSelector;
+import dhbw.sa.kassensystem_rest.database.databaseservice.Page;
 import dhbw.sa.kassensystem_rest.database.entity.*;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintServiceCache;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
 import dhbw.sa.kassensystem_rest.exceptions.MySQLServerConnectionException;
 import dhbw.sa.kassensystem_rest.exceptions.NotAuthentificatedException;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Der RestApiController stellt einen Server dar, über den Funktionen des DatabaseServices angesprochen werden können.
@@ -27,65 +50,267 @@ import java.util.ArrayList;
 @RequestMapping("/api")
 public class RestApiController {
 
+	// Header, in dem ein Session-Token übergeben wird
+	static final String SESSION_TOKEN_HEADER = "sessiontoken";
+
     @Autowired
     DatabaseService databaseService;
+    @Autowired
+    PrinterService printerService;
+	@Autowired
+	ObjectMapper objectMapper;
+
+	private OrderedItemEventStream orderedItemEventStream;
+	// Fertig serialisierte Artikel- und Tischlisten, siehe ".../api/items"
+	private SerializedResponseCache itemsResponseCache;
+	private SerializedResponseCache tablesResponseCache;
+	// Anteil der mit "304 Not Modified" beantworteten Abfragen der Artikel und Tische, siehe ".../api/status"
+	final ConditionalGetStatistics itemsConditionalGets = new ConditionalGetStatistics();
+	final ConditionalGetStatistics tablesConditionalGets = new ConditionalGetStatistics();
+
+	@PostConstruct
+	void init()
+	{
+		orderedItemEventStream = new OrderedItemEventStream(databaseService.getOrderedItemEvents());
+		itemsResponseCache = new SerializedResponseCache(objectMapper, databaseService.getListTtlMillis());
+		tablesResponseCache = new SerializedResponseCache(objectMapper, databaseService.getListTtlMillis());
+	}
+
+	@PreDestroy
+	void closeOrderedItemEventStream()
+	{
+		orderedItemEventStream.close();
+	}
 
     /*GET*/
 
     /**
      * Durch das ansprechen des Pfades ".../api/items" können die Artikel der Datenbank abgefragt werden.
-     * @return Liste aller Artikel der Datenbank.
+     * Die Liste erhält ein ETag. Hat sie sich seitdem nicht geändert, wird eine Anfrage mit dem ETag im Header
+     * "If-None-Match" ohne Datenbankzugriff mit "304 Not Modified" beantwortet. Ansonsten wird die bereits
+     * serialisierte Liste geliefert, bei "Accept-Encoding: gzip" komprimiert. Sie wird nur nach einer Änderung an
+     * den Artikeln oder nach Ablauf der Gültigkeitsdauer der Speisekarte neu aus der Datenbank geladen.
+     * @param since Die Version der letzten Abfrage. Ist sie gesetzt, werden nur die Änderungen seitdem geliefert.
+     * @return Liste aller Artikel der Datenbank, bzw. {@link Delta} wenn since gesetzt ist.
      */
     @RequestMapping("/items")
-    public ArrayList<Item> getAllItems
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+    public Object getAllItems
+			(@RequestParam(value = "since", required = false) Long since,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken,
+			 WebRequest request)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getAllAvailableItems() : null;
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		if(since != null)
+			return databaseService.getAvailableItemsSince(since);
+
+		long version = databaseService.getListVersion(ChangeLog.Entity.ITEM);
+		boolean gzip = acceptsGzip(request);
+		if(isNotModified(request, "items", version, gzip, itemsConditionalGets))
+			return null;
+		return serializedResponse(itemsResponseCache.get(version, databaseService::getAllAvailableItems), gzip);
     }
 
     /**
      * Durch das ansprechen des Pfades ".../api/orders" können die Bestellungen der Datenbank abgefragt werden.
-     * @return Liste aller Bestellungen der Datenbank.
+     * Ist limit, cursor oder einer der Filter gesetzt, wird eine {@link Page} geliefert, deren nextCursor für die
+     * nächste Seite als cursor übergeben wird.
+     * @param since Die Version der letzten Abfrage. Ist sie gesetzt, werden nur die Änderungen seitdem geliefert.
+     * @param open true für offene, false für bezahlte Bestellungen.
+     * @param from Frühestes Datum der Bestellungen im ISO-8601-Format.
+     * @param to Spätestes Datum der Bestellungen im ISO-8601-Format.
+     * @return Liste aller Bestellungen der Datenbank, bzw. {@link Delta} wenn since gesetzt ist.
      */
     @RequestMapping("/orders")
-    public ArrayList<Order> getAllOrders
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+    public Object getAllOrders
+			(@RequestParam(value = "since", required = false) Long since,
+			 @RequestParam(value = "limit", required = false) Integer limit,
+			 @RequestParam(value = "cursor", required = false) String cursor,
+			 @RequestParam(value = "open", required = false) Boolean open,
+			 @RequestParam(value = "tableID", required = false) Integer tableID,
+			 @RequestParam(value = "waiterID", required = false) Integer waiterID,
+			 @RequestParam(value = "from", required = false) String from,
+			 @RequestParam(value = "to", required = false) String to,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getAllOrders() : null;
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		if(since != null)
+			return databaseService.getOrdersSince(since);
+		if(isPaged(limit, cursor, open, tableID, waiterID, from, to))
+			return databaseService.getOrders(new OrderFilter(open, tableID, waiterID, parseDate(from), parseDate(to)),
+					cursor, limit == null ? 0 : limit);
+		return databaseService.getAllOrders();
     }
 
     /**
      * Durch das ansprechen des Pfades ".../api/tables" können die Tische der Datenbank abgefragt werden.
-     * @return Liste aller Tische der Datenbank.
+     * Wie bei ".../api/items" wird eine Anfrage mit aktuellem ETag mit "304 Not Modified" beantwortet und die
+     * Liste ansonsten bereits serialisiert geliefert.
+     * @param since Die Version der letzten Abfrage. Ist sie gesetzt, werden nur die Änderungen seitdem geliefert.
+     * @return Liste aller Tische der Datenbank, bzw. {@link Delta} wenn since gesetzt ist.
      */
     @RequestMapping("/tables")
-    public ArrayList<Table> getAllTables
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+    public Object getAllTables
+			(@RequestParam(value = "since", required = false) Long since,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken,
+			 WebRequest request)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getAllAvailableTables() : null;
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		if(since != null)
+			return databaseService.getAvailableTablesSince(since);
+
+		long version = databaseService.getListVersion(ChangeLog.Entity.TABLE);
+		boolean gzip = acceptsGzip(request);
+		if(isNotModified(request, "tables", version, gzip, tablesConditionalGets))
+			return null;
+		return serializedResponse(tablesResponseCache.get(version, databaseService::getAllAvailableTables), gzip);
     }
 
 
+    /**
+     * Durch das ansprechen des Pfades ".../api/orderedItems" können die bestellten Artikel abgefragt werden.
+     * Die Parameter entsprechen denen von ".../api/orders", open bezieht sich auf die Bezahlung des Artikels, die
+     * übrigen Filter auf die zugehörige Bestellung.
+     * @return Liste aller bestellten Artikel, bzw. {@link Page} wenn limit, cursor oder ein Filter gesetzt ist.
+     */
     @RequestMapping("/orderedItems")
-    public ArrayList<OrderedItem> getAllOrderedItems
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+    public Object getAllOrderedItems
+			(@RequestParam(value = "limit", required = false) Integer limit,
+			 @RequestParam(value = "cursor", required = false) String cursor,
+			 @RequestParam(value = "open", required = false) Boolean open,
+			 @RequestParam(value = "tableID", required = false) Integer tableID,
+			 @RequestParam(value = "waiterID", required = false) Integer waiterID,
+			 @RequestParam(value = "from", required = false) String from,
+			 @RequestParam(value = "to", required = false) String to,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getAllOrderedItems() : null;
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		if(isPaged(limit, cursor, open, tableID, waiterID, from, to))
+			return databaseService.getOrderedItems(
+					new OrderFilter(open, tableID, waiterID, parseDate(from), parseDate(to)),
+					cursor, limit == null ? 0 : limit);
+		return databaseService.getAllOrderedItems();
     }
 
+    /**
+     * Durch das ansprechen des Pfades ".../api/orders/export" werden alle Bestellungen geliefert. Anders als bei
+     * ".../api/orders" werden sie direkt beim Lesen aus der Datenbank in die Antwort geschrieben, sodass auch große
+     * Exporte den Speicher des Servers nicht füllen.
+     * @return JSON-Array aller Bestellungen, sortiert nach orderID.
+     */
+    @RequestMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders
+			(@RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		return StreamingJsonResponse.of(objectMapper, databaseService::streamAllOrders);
+	}
+
+    /**
+     * Wie ".../api/orders/export" für die bestellten Artikel.
+     * @return JSON-Array aller bestellten Artikel, sortiert nach orderedItemID.
+     */
+    @RequestMapping("/orderedItems/export")
+    public ResponseEntity<StreamingResponseBody> exportOrderedItems
+			(@RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		return StreamingJsonResponse.of(objectMapper, databaseService::streamAllOrderedItems);
+	}
+
+    /**
+     * Wie ".../api/orders/export" für die Wareneingänge.
+     * @return JSON-Array aller Wareneingänge, sortiert nach itemdeliveryID.
+     */
+    @RequestMapping("/itemdeliveries/export")
+    public ResponseEntity<StreamingResponseBody> exportItemdeliveries
+			(@RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+		return StreamingJsonResponse.of(objectMapper, databaseService::streamAllItemdeliveries);
+	}
+
+	private static boolean isPaged(Object... parameters)
+	{
+		for(Object parameter: parameters)
+			if(parameter != null)
+				return true;
+		return false;
+	}
+
+	private static DateTime parseDate(String date)
+	{
+		if(date == null)
+			return null;
+		try
+		{
+			return DateTime.parse(date);
+		} catch (IllegalArgumentException e)
+		{
+			throw new DataException("Ungültiges Datum: " + date);
+		}
+	}
+
     @RequestMapping("/unproducedOrderedItems")
 	public ArrayList<OrderedItem> getAllUnproducedOrderedItems
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			(@RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getAllUnproducedOrderedItems() : null;
+		return authentificate(loginname, passwordhash, sessiontoken) ? databaseService.getAllUnproducedOrderedItems() : null;
+	}
+
+	/**
+	 * Durch das Ansprechen des Pfades ".../api/orderedItemEvents" werden neue, geänderte und gelöschte bestellte
+	 * Artikel als Server-Sent Events übertragen, sobald sie gespeichert wurden. Küchen- und Barbildschirme müssen
+	 * dadurch nicht mehr regelmäßig ".../api/unproducedOrderedItems" abfragen.
+	 * Da ein EventSource im Browser keine Header setzen kann, darf das Session-Token auch als Parameter
+	 * "sessiontoken" übergeben werden.
+	 * @param lastEventID Die Nummer des zuletzt empfangenen Ereignisses, wird vom Browser beim erneuten Verbinden
+	 *                    gesetzt.
+	 * @return Die Verbindung, über die die Ereignisse gesendet werden.
+	 */
+	@RequestMapping(value = "/orderedItemEvents", method = RequestMethod.GET,
+			produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getOrderedItemEvents
+			(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventID,
+			 @RequestParam(value = SESSION_TOKEN_HEADER, required = false) String sessiontokenParam,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		authentificate(loginname, passwordhash, sessiontoken != null ? sessiontoken : sessiontokenParam);
+		return orderedItemEventStream.connect(lastEventID, databaseService::getAllUnproducedOrderedItems);
 	}
 
     @RequestMapping("/orderedItems/{orderID}")
     public ArrayList<OrderedItem> getOrderedItemsByOrderId
 			(@PathVariable("orderID") int orderId,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		return authentificate(loginname, passwordhash) ? databaseService.getOrderedItemsByOrderId(orderId) : null;
+		return authentificate(loginname, passwordhash, sessiontoken) ? databaseService.getOrderedItemsByOrderId(orderId) : null;
     }
   
     /*POST/PUT*/
@@ -98,15 +323,17 @@ public class RestApiController {
     @RequestMapping(value = "/order", method = RequestMethod.POST)
     public ResponseEntity<Integer> createOrder
 			(@RequestBody Order order,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		if(authentificate(loginname, passwordhash))
+		if(authentificate(loginname, passwordhash, sessiontoken))
 		{
 			try
 			{
 				order.setDate(DateTime.now());
-				// Anhand der Logindaten die waiterID des zugehörigen waiters ermitteln
-				int waiterID = databaseService.getWaiterIdByLoginData(loginname, passwordhash);
+				// Die waiterID ist im Session-Token enthalten oder wird anhand der Logindaten ermittelt
+				int waiterID = getWaiterID(loginname, passwordhash, sessiontoken);
 				order.setWaiterID(waiterID);
 				Integer orderID = databaseService.addOrder(order);
 
@@ -120,12 +347,48 @@ public class RestApiController {
 		return null;
     }
 
+    /**
+     * Legt eine Bestellung zusammen mit ihren bestellten Artikeln an und druckt die Küchenbelege. Ersetzt beim
+     * Öffnen eines Tisches die Anfragen an ".../api/order" und ".../api/orderedItem". Hat der Tisch bereits eine
+     * offene Bestellung, werden die Artikel zu dieser hinzugefügt.
+     * @param newOrder {"order": {"tableID": ...}, "orderedItems": [{"itemID": ..., "comment": ...}, ...]}
+     * @return {@link CreatedOrder} mit orderID, orderedItemIDs und den IDs der Druckaufträge.
+     */
+    @RequestMapping(value = "/orderWithItems", method = RequestMethod.POST)
+    public ResponseEntity<?> createOrderWithItems
+			(@RequestBody NewOrder newOrder,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(authentificate(loginname, passwordhash, sessiontoken))
+		{
+			try
+			{
+				if(newOrder.getOrder() != null)
+				{
+					newOrder.getOrder().setDate(DateTime.now());
+					// Die waiterID ist im Session-Token enthalten oder wird anhand der Logindaten ermittelt
+					newOrder.getOrder().setWaiterID(getWaiterID(loginname, passwordhash, sessiontoken));
+				}
+				return new ResponseEntity<>(databaseService.addOrderWithItems(newOrder), HttpStatus.OK);
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				return new ResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+			}
+		}
+		return null;
+	}
+
     @RequestMapping(value = "/orderedItem", method = RequestMethod.POST)
     public ResponseEntity<?> createOrderedItems
 			(@RequestBody ArrayList<OrderedItem> orderedItems,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		if(authentificate(loginname, passwordhash))
+		if(authentificate(loginname, passwordhash, sessiontoken))
 		{
 			try
 			{
@@ -133,19 +396,18 @@ public class RestApiController {
 
 				for (OrderedItem o : orderedItems)
 				{
-					// alle noch nicht existierenden OrderedItems der DB hinzufügen
-					if (!databaseService.existsOrderedItemWithID(o.getOrderedItemID()))
-					{
-						databaseService.addOrderedItem(o);
+					// OrderedItems mit einer ID existieren bereits in der DB, alle anderen werden hinzugefügt
+					if (o.getOrderedItemID() == 0)
 						newOrderedItems.add(o);
-					}
 				}
 
+				ArrayList<Integer> orderedItemIDs = databaseService.addOrderedItems(newOrderedItems);
+
 				// Ausdrucken der hinzugefügten OrderedItems
 				if (!newOrderedItems.isEmpty())
 					databaseService.printOrder(newOrderedItems.get(0).getOrderID(), newOrderedItems);
 
-				return new ResponseEntity(HttpStatus.OK);
+				return new ResponseEntity(orderedItemIDs, HttpStatus.OK);
 			} catch (Exception e)
 			{
 				e.printStackTrace();
@@ -155,15 +417,38 @@ public class RestApiController {
 		return null;
 	}
 
+	/**
+	 * Durch das Ansprechen des Pfades ".../api/printJob/{jobID}" kann der Status eines Druckauftrags abgefragt werden.
+	 * @param jobID Die ID des Druckauftrags.
+	 * @return Der Druckauftrag mit Status, Anzahl der Versuche und ggf. Fehlermeldung.
+	 */
+	@RequestMapping(value = "/printJob/{jobID}", method = RequestMethod.GET)
+	public ResponseEntity<PrintJob> getPrintJob
+			(@PathVariable("jobID") long jobID,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+
+		PrintJob printJob = PrintSpooler.getJob(jobID);
+		if(printJob == null)
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		return new ResponseEntity<>(printJob, HttpStatus.OK);
+	}
+
 	@RequestMapping(value = "/printOrder/{orderID}", method = RequestMethod.POST)
 	public ResponseEntity<?> printReceipe
 			(@PathVariable("orderID") int orderID,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		if(authentificate(loginname, passwordhash))
+		if(authentificate(loginname, passwordhash, sessiontoken))
 		{
-			databaseService.printReceipt(orderID);
-			return new ResponseEntity(HttpStatus.OK);
+			PrintJob printJob = databaseService.printReceipt(orderID);
+			return new ResponseEntity(printJob.getJobID(), HttpStatus.OK);
 		}
 		return null;
 	}
@@ -177,9 +462,11 @@ public class RestApiController {
     @RequestMapping(value = "/order/{orderID}", method = RequestMethod.PUT)
     public ResponseEntity<?> updateOrder
 			(@PathVariable("orderID") int orderID, @RequestBody Order order,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		if(authentificate(loginname, passwordhash))
+		if(authentificate(loginname, passwordhash, sessiontoken))
 		{
 			try
 			{
@@ -195,20 +482,76 @@ public class RestApiController {
 		return null;
     }
 
+    /**
+     * Ändert mehrere bestellte Artikel mit einem Batch-Update. Unvollständige oder nicht existierende Artikel
+     * verhindern nicht die Änderung der übrigen, sondern werden in der Antwort mit ihrer Position gemeldet.
+     * @return {@link BulkUpdateResult} mit den geänderten und den fehlgeschlagenen Artikeln.
+     */
     @RequestMapping(value = "/orderedItem", method = RequestMethod.PUT)
 	public ResponseEntity<?> updateOrderedItems
 			(@RequestBody ArrayList<OrderedItem> orderedItems,
-			 @RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
 	{
-		if(authentificate(loginname, passwordhash))
+		if(authentificate(loginname, passwordhash, sessiontoken))
 		{
 			try
 			{
-				for (OrderedItem o : orderedItems)
-				{
-					databaseService.updateOrderedItem(o.getOrderedItemID(), o);
-				}
-				return new ResponseEntity(HttpStatus.OK);
+				return new ResponseEntity<>(databaseService.updateOrderedItems(orderedItems), HttpStatus.OK);
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				return new ResponseEntity(e, HttpStatus.NOT_FOUND);
+			}
+		}
+		return null;
+	}
+
+    /**
+     * Markiert bestellte Artikel an der Kasse als bezahlt, ohne die vollständigen Artikel zu senden.
+     * @param selector Entweder {"orderedItemIDs": [...]} oder {"orderID": ..., "itemID": ...}, wobei itemID
+     *                 entfallen kann.
+     * @return Die orderedItemIDs der Artikel, die durch diese Anfrage bezahlt wurden.
+     */
+    @RequestMapping(value = "/orderedItems/pay", method = RequestMethod.PUT)
+	public ResponseEntity<?> payOrderedItems
+			(@RequestBody OrderedItemSelector selector,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(authentificate(loginname, passwordhash, sessiontoken))
+		{
+			try
+			{
+				return new ResponseEntity<>(databaseService.payOrderedItems(selector), HttpStatus.OK);
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				return new ResponseEntity(e, HttpStatus.NOT_FOUND);
+			}
+		}
+		return null;
+	}
+
+    /**
+     * Markiert bestellte Artikel in der Küche bzw. an der Theke als produziert.
+     * @param selector Wie bei ".../api/orderedItems/pay".
+     * @return Die orderedItemIDs der Artikel, die durch diese Anfrage produziert wurden.
+     */
+    @RequestMapping(value = "/orderedItems/produce", method = RequestMethod.PUT)
+	public ResponseEntity<?> produceOrderedItems
+			(@RequestBody OrderedItemSelector selector,
+			 @RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(authentificate(loginname, passwordhash, sessiontoken))
+		{
+			try
+			{
+				return new ResponseEntity<>(databaseService.produceOrderedItems(selector), HttpStatus.OK);
 			} catch (Exception e)
 			{
 				e.printStackTrace();
@@ -222,7 +565,8 @@ public class RestApiController {
 	public boolean updateLogindata(@RequestBody String newPassword,
 			@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
 	{
-		if (authentificate(loginname, passwordhash))
+		// Zum Ändern des Passworts müssen immer die aktuellen Logindaten angegeben werden
+		if (databaseService.authentificate(loginname, passwordhash))
 		{
 			int waiterID = databaseService.getWaiterIdByLoginData(loginname, passwordhash);
 			databaseService.updateLogindata(new Logindata(waiterID, loginname, newPassword));
@@ -232,17 +576,132 @@ public class RestApiController {
 		return false;
 	}
 
+	/**
+	 * Überprüft die Logindaten einer Bedienung. Bei Erfolg wird im Header "sessiontoken" der Antwort ein
+	 * Session-Token geliefert, das bei allen weiteren Anfragen anstelle der Logindaten übergeben werden kann.
+	 * @return Ob der Login erfolgreich war.
+	 */
 	@RequestMapping(value = "/login", method = RequestMethod.GET)
 	public boolean login
-			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash)
+			(@RequestHeader("loginname") String loginname, @RequestHeader("passwordhash") String passwordhash,
+			 HttpServletResponse response)
+	{
+		if(!databaseService.authentificate(loginname, passwordhash))
+			return false;
+
+		int waiterID = databaseService.getWaiterIdByLoginData(loginname, passwordhash);
+		response.setHeader(SESSION_TOKEN_HEADER, SessionToken.issue(waiterID));
+		return true;
+	}
+
+	/**
+	 * Durch das Ansprechen des Pfades ".../api/status" können Kennzahlen des Servers abgefragt werden,
+	 * z.B. die Auslastung des Connection-Pools, die Trefferquoten der Caches, die Druckerwarteschlangen und die
+	 * erreichbaren Drucker.
+	 * @return Die Kennzahlen gruppiert nach Bereich.
+	 */
+	@RequestMapping(value = "/status", method = RequestMethod.GET)
+	public Map<String, Object> getStatus
+			(@RequestHeader(value = "loginname", required = false) String loginname,
+			 @RequestHeader(value = "passwordhash", required = false) String passwordhash,
+			 @RequestHeader(value = SESSION_TOKEN_HEADER, required = false) String sessiontoken)
+	{
+		if(!authentificate(loginname, passwordhash, sessiontoken))
+			return null;
+
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("connectionPool", databaseService.getConnectionPoolStatistics());
+		status.put("statementCache", databaseService.getStatementCacheStatistics());
+		status.put("itemCache", databaseService.getItemCacheStatistics());
+		status.put("authCache", databaseService.getAuthCacheStatistics());
+		status.put("changeLog", databaseService.getChangeLogStatistics());
+		Map<String, Object> conditionalGets = new LinkedHashMap<>();
+		conditionalGets.put("items", itemsConditionalGets.getStatistics());
+		conditionalGets.put("tables", tablesConditionalGets.getStatistics());
+		status.put("conditionalGet", conditionalGets);
+		Map<String, Object> responseCaches = new LinkedHashMap<>();
+		responseCaches.put("items", itemsResponseCache.getStatistics());
+		responseCaches.put("tables", tablesResponseCache.getStatistics());
+		status.put("responseCache", responseCaches);
+		status.put("printSpooler", PrintSpooler.getAllStatistics());
+		status.put("printRoutes", printerService.getRouteStatistics());
+		status.put("ticketCoalescing", printerService.getCoalescingStatistics());
+		status.put("orderedItemEvents", orderedItemEventStream.getStatistics());
+		status.put("printServiceCache", PrintServiceCache.getDefaultStatistics());
+		return status;
+	}
+
+	/**
+	 * Prüft, ob der Client die aktuelle Version einer Liste bereits besitzt. Das ETag wird aus der Version der
+	 * Liste gebildet und im Header der Antwort gesetzt. Sie ändert sich mit jeder Änderung an der Tabelle und
+	 * spätestens nach der Gültigkeitsdauer der Speisekarte, damit auch Änderungen direkt in der Datenbank ankommen. Die Version wird vor dem Laden der
+	 * Liste ermittelt, sodass eine gleichzeitige Änderung spätestens bei der nächsten Anfrage geliefert wird.
+	 * @param gzip Ob die komprimierte Variante geliefert wird, diese erhält ein eigenes ETag.
+	 * @return Ob die Anfrage mit "304 Not Modified" beantwortet wird.
+	 */
+	private boolean isNotModified(WebRequest request, String resource, long version, boolean gzip,
+								  ConditionalGetStatistics statistics)
+	{
+		String eTag = "\"" + resource + "-" + version + (gzip ? "-gzip" : "") + "\"";
+		boolean notModified = request.checkNotModified(eTag);
+		statistics.count(notModified);
+		return notModified;
+	}
+
+	private static boolean acceptsGzip(WebRequest request)
 	{
-		return authentificate(loginname, passwordhash);
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
 	}
 
-	private boolean authentificate(String loginname, String passwordHash)
+	/**
+	 * Schreibt eine bereits serialisierte Liste unverändert in die Antwort.
+	 */
+	private static ResponseEntity<byte[]> serializedResponse(SerializedResponseCache.Response response,
+															 boolean gzip)
+	{
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON_UTF8)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if(!gzip)
+			return builder.body(response.json);
+		return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip);
+	}
+
+	/**
+	 * Authentifiziert eine Anfrage anhand eines Session-Tokens oder, falls keines übergeben wurde, anhand der
+	 * Logindaten.
+	 * @return Ob die Anfrage authentifiziert ist.
+	 * @throws NotAuthentificatedException Wenn weder ein gültiges Token noch gültige Logindaten übergeben wurden.
+	 */
+	private boolean authentificate(String loginname, String passwordHash, String sessiontoken)
 			throws NotAuthentificatedException
 	{
-		return databaseService.authentificate(loginname, passwordHash);
+		getWaiterID(loginname, passwordHash, sessiontoken);
+		return true;
+	}
+
+	/**
+	 * Ermittelt die waiterID einer Anfrage. Ein gültiges Session-Token wird ohne Datenbankzugriff geprüft.
+	 * @return Die waiterID der angemeldeten Bedienung.
+	 * @throws NotAuthentificatedException Wenn weder ein gültiges Token noch gültige Logindaten übergeben wurden.
+	 */
+	private int getWaiterID(String loginname, String passwordHash, String sessiontoken)
+			throws NotAuthentificatedException
+	{
+		if(sessiontoken != null)
+		{
+			int waiterID = SessionToken.validate(sessiontoken);
+			if(waiterID == 0)
+				throw new NotAuthentificatedException("Session-Token ungültig oder abgelaufen!");
+			return waiterID;
+		}
+
+		if(loginname == null || passwordHash == null)
+			throw new NotAuthentificatedException("Es wurden keine Logindaten übergeben!");
+
+		databaseService.authentificate(loginname, passwordHash);
+		return databaseService.getWaiterIdByLoginData(loginname, passwordHash);
 	}
 
     // Exception-Handling
@@ -0,0 +1,143 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Hält die fertig serialisierte JSON-Antwort einer Liste, z.B. der Speisekarte, als byte[] bereit.
+ *
+ * Die Antwort wird zusammen mit einer gzip-komprimierten Variante nur neu erzeugt, wenn sich die Version der
+ * zugrunde liegenden Tabelle geändert hat oder die Antwort älter als die Gültigkeitsdauer ist, damit auch Änderungen
+ * direkt in der Datenbank ausgeliefert werden. Alle anderen Anfragen schreiben die vorhandenen Bytes ohne
+ * Datenbankzugriff und ohne Jackson direkt in die Antwort.
+ *
+ * @author Marvin Mai
+ */
+final class SerializedResponseCache
+{
+	private final ObjectMapper objectMapper;
+	private final long ttlMillis;
+	private volatile Response response;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong rebuilds = new AtomicLong();
+	private volatile long lastRebuildMillis;
+
+	/**
+	 * @param ttlMillis Zeit in Millisekunden, nach der eine Antwort auch ohne neue Version neu erzeugt wird.
+	 */
+	SerializedResponseCache(ObjectMapper objectMapper, long ttlMillis)
+	{
+		this.objectMapper = objectMapper;
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Liefert die Antwort zu einer Version und erzeugt sie neu, wenn die vorhandene veraltet ist.
+	 * @param version Die aktuelle Version der Tabelle. Sie muss vor dem Laden der Daten ermittelt werden, damit
+	 *                eine gleichzeitige Änderung zu einer neuen Version und damit zum erneuten Laden führt.
+	 * @param loader Lädt die Daten aus der Datenbank.
+	 */
+	Response get(long version, Supplier<?> loader)
+	{
+		Response current = response;
+		if(isValid(current, version))
+		{
+			hits.incrementAndGet();
+			return current;
+		}
+
+		synchronized (this)
+		{
+			// Eventuell hat eine gleichzeitige Anfrage die Antwort bereits erzeugt
+			current = response;
+			if(isValid(current, version))
+			{
+				hits.incrementAndGet();
+				return current;
+			}
+
+			long start = System.nanoTime();
+			byte[] json = serialize(loader.get());
+			current = new Response(version, System.currentTimeMillis() + ttlMillis, json, gzip(json));
+			response = current;
+			rebuilds.incrementAndGet();
+			lastRebuildMillis = (System.nanoTime() - start) / 1000000;
+			return current;
+		}
+	}
+
+	/**
+	 * Ermittelt die Kennzahlen des Zwischenspeichers.
+	 * @return Anzahl der Treffer und Neuerzeugungen, Dauer der letzten Neuerzeugung und Größe der Antworten.
+	 */
+	Map<String, Number> getStatistics()
+	{
+		Response current = response;
+
+		Map<String, Number> statistics = new LinkedHashMap<>();
+		statistics.put("hits", hits.get());
+		statistics.put("rebuilds", rebuilds.get());
+		statistics.put("lastRebuildMillis", lastRebuildMillis);
+		statistics.put("jsonBytes", current == null ? 0 : current.json.length);
+		statistics.put("gzipBytes", current == null ? 0 : current.gzip.length);
+		return statistics;
+	}
+
+	private static boolean isValid(Response response, long version)
+	{
+		return response != null && response.version == version && System.currentTimeMillis() < response.expiresAt;
+	}
+
+	private byte[] serialize(Object value)
+	{
+		try
+		{
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] gzip(byte[] data)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+		try(GZIPOutputStream out = new GZIPOutputStream(bytes))
+		{
+			out.write(data);
+		} catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Eine serialisierte Antwort, die Version, zu der sie gehört, und der Zeitpunkt, ab dem sie neu erzeugt wird.
+	 */
+	static final class Response
+	{
+		final long version;
+		final long expiresAt;
+		final byte[] json;
+		final byte[] gzip;
+
+		private Response(long version, long expiresAt, byte[] json, byte[] gzip)
+		{
+			this.version = version;
+			this.expiresAt = expiresAt;
+			this.json = json;
+			this.gzip = gzip;
+		}
+	}
+}
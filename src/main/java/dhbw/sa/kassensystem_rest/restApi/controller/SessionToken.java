@@ -0,0 +1,186 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Selbsttragende, mit HMAC-SHA256 signierte Session-Tokens für die REST-Schnittstelle.
+ *
+ * Ein Token hat die Form "waiterID.ablaufzeitpunkt.signatur". Der Ablaufzeitpunkt wird in Sekunden seit 1970
+ * angegeben, die Signatur ist Base64url-kodiert. Da alle Informationen im Token enthalten sind, kann jeder Server
+ * mit demselben Schlüssel ein Token ohne Datenbankzugriff und ohne gemeinsamen Zustand prüfen.
+ *
+ * Der Schlüssel wird über die System-Property "kassensystem.session.secret" festgelegt. Ist diese nicht gesetzt,
+ * wird beim Start ein zufälliger Schlüssel erzeugt. Die Tokens sind dann nur bis zum Neustart des Servers gültig.
+ * Die Gültigkeitsdauer in Sekunden wird über "kassensystem.session.ttl" festgelegt.
+ *
+ * @author Marvin Mai
+ */
+final class SessionToken
+{
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int SIGNATURE_LENGTH = 32;
+
+	private static final long ttlSeconds = Long.getLong("kassensystem.session.ttl", 12 * 60 * 60);
+	private static final SecretKeySpec key = new SecretKeySpec(getSecret(), ALGORITHM);
+
+	// Mac-Instanzen und Puffer sind nicht threadsicher und werden daher je Thread wiederverwendet.
+	private static final ThreadLocal<Mac> macs = ThreadLocal.withInitial(SessionToken::createMac);
+	private static final ThreadLocal<byte[][]> buffers =
+			ThreadLocal.withInitial(() -> new byte[][]{new byte[SIGNATURE_LENGTH], new byte[SIGNATURE_LENGTH]});
+
+	private SessionToken() {}
+
+	/**
+	 * Erzeugt ein neues Token für eine Bedienung.
+	 * @param waiterID Die ID der angemeldeten Bedienung.
+	 * @return Das signierte Token.
+	 */
+	static String issue(int waiterID)
+	{
+		long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+		String payload = waiterID + "." + expiresAt;
+
+		byte[] signature = macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+		return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+	}
+
+	/**
+	 * Prüft ein Token, ohne dafür Zeichenketten zu zerlegen oder Objekte zu erzeugen.
+	 * @param token Das zu prüfende Token.
+	 * @return Die waiterID aus dem Token, 0 wenn das Token ungültig oder abgelaufen ist.
+	 */
+	static int validate(String token)
+	{
+		if(token == null)
+			return 0;
+
+		int length = token.length();
+		int firstDot = token.indexOf('.');
+		int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+		if(secondDot < 0)
+			return 0;
+
+		long waiterID = parseNumber(token, 0, firstDot);
+		long expiresAt = parseNumber(token, firstDot + 1, secondDot);
+		if(waiterID <= 0 || waiterID > Integer.MAX_VALUE || expiresAt < System.currentTimeMillis() / 1000)
+			return 0;
+
+		byte[][] buffer = buffers.get();
+		byte[] expected = buffer[0];
+		byte[] actual = buffer[1];
+		if(!decodeSignature(token, secondDot + 1, length, actual))
+			return 0;
+
+		Mac mac = macs.get();
+		for(int i = 0; i < secondDot; i++)
+			mac.update((byte) token.charAt(i));
+		try
+		{
+			mac.doFinal(expected, 0);
+		} catch (ShortBufferException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		// Vergleich in konstanter Zeit
+		int difference = 0;
+		for(int i = 0; i < SIGNATURE_LENGTH; i++)
+			difference |= expected[i] ^ actual[i];
+
+		return difference == 0 ? (int) waiterID : 0;
+	}
+
+	/**
+	 * Liest eine nicht-negative Dezimalzahl aus einem Abschnitt des Tokens.
+	 * @return Die Zahl, -1 wenn der Abschnitt keine gültige Zahl ist.
+	 */
+	private static long parseNumber(String token, int from, int to)
+	{
+		if(from >= to || to - from > 18)
+			return -1;
+
+		long number = 0;
+		for(int i = from; i < to; i++)
+		{
+			char c = token.charAt(i);
+			if(c < '0' || c > '9')
+				return -1;
+			number = number * 10 + (c - '0');
+		}
+		return number;
+	}
+
+	/**
+	 * Dekodiert die Base64url-kodierte Signatur (ohne Padding) eines Tokens in einen Puffer.
+	 * @return Ob die Signatur gültig kodiert ist und die erwartete Länge hat.
+	 */
+	private static boolean decodeSignature(String token, int from, int to, byte[] output)
+	{
+		// 32 Bytes entsprechen 43 Zeichen ohne Padding
+		if(to - from != (SIGNATURE_LENGTH * 4 + 2) / 3)
+			return false;
+
+		int bits = 0;
+		int bitCount = 0;
+		int position = 0;
+		for(int i = from; i < to; i++)
+		{
+			int value = decodeBase64url(token.charAt(i));
+			if(value < 0)
+				return false;
+			bits = (bits << 6) | value;
+			bitCount += 6;
+			if(bitCount >= 8)
+			{
+				bitCount -= 8;
+				output[position++] = (byte) (bits >> bitCount);
+			}
+		}
+		return position == SIGNATURE_LENGTH;
+	}
+
+	private static int decodeBase64url(char c)
+	{
+		if(c >= 'A' && c <= 'Z')
+			return c - 'A';
+		if(c >= 'a' && c <= 'z')
+			return c - 'a' + 26;
+		if(c >= '0' && c <= '9')
+			return c - '0' + 52;
+		if(c == '-')
+			return 62;
+		if(c == '_')
+			return 63;
+		return -1;
+	}
+
+	private static byte[] getSecret()
+	{
+		String secret = System.getProperty("kassensystem.session.secret");
+		if(secret != null && !secret.isEmpty())
+			return secret.getBytes(StandardCharsets.UTF_8);
+
+		byte[] randomSecret = new byte[SIGNATURE_LENGTH];
+		new SecureRandom().nextBytes(randomSecret);
+		return randomSecret;
+	}
+
+	private static Mac createMac()
+	{
+		try
+		{
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Schreibt eine Liste als JSON-Array direkt in die Antwort, während die Datensätze aus der Datenbank gelesen werden.
+ *
+ * Anders als bei den übrigen Listen wird die Liste weder gesammelt noch vollständig serialisiert, sondern jeder
+ * Datensatz wird sofort nach dem Lesen geschrieben. Der Speicherbedarf hängt dadurch nicht von der Anzahl der
+ * Datensätze ab, was bei Exporten der Bestellungen, bestellten Artikel und Wareneingänge eines ganzen Jahres zählt.
+ * Das Ergebnis entspricht Byte für Byte der Serialisierung der Liste durch Jackson.
+ *
+ * @author Marvin Mai
+ */
+final class StreamingJsonResponse
+{
+	private StreamingJsonResponse()
+	{
+	}
+
+	/**
+	 * Erzeugt die Antwort. Die Datenbankabfrage wird erst ausgeführt, wenn Spring die Antwort schreibt.
+	 * @param source Liest die Datensätze und übergibt jeden einzeln an den Consumer.
+	 */
+	static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, Consumer<Consumer<T>> source)
+	{
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON_UTF8)
+				.body(out -> write(objectMapper, source, out));
+	}
+
+	static <T> void write(ObjectMapper objectMapper, Consumer<Consumer<T>> source, OutputStream out)
+			throws IOException
+	{
+		// Nicht nach jedem Datensatz flushen, sonst wird jeder Datensatz als eigenes Paket versendet
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+		try(JsonGenerator generator = objectMapper.getFactory().createGenerator(out))
+		{
+			// Den Ausgabestrom schließt Spring nach dem Schreiben selbst
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.writeStartArray();
+			source.accept(value -> {
+				try
+				{
+					writer.writeValue(generator, value);
+				} catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.writeEndArray();
+		} catch (UncheckedIOException e)
+		{
+			// z.B. Abbruch der Verbindung durch den Client, die Datenbankabfrage wurde dadurch bereits beendet
+			throw e.getCause();
+		}
+	}
+}
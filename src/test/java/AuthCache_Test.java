@@ -0,0 +1,27 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test des {@link dhbw.sa.kassensystem_rest.database.databaseservice.AuthCache}s: Wiederholte Authentifizierungen
+ * mit denselben Logindaten fragen die Datenbank nur einmal ab.
+ */
+public class AuthCache_Test
+{
+	@Test
+	public void testRepeatedAuthentificationUsesCache()
+	{
+		// Die Test-DataSource liefert für jede Zeichenkette "value" + Zeilennummer
+		CountingDataSource dataSource = new CountingDataSource(1);
+		DatabaseService dbs = new DatabaseService(dataSource);
+
+		for(int i = 0; i < 10; i++)
+			assertTrue(dbs.authentificate("waiter", "value1"));
+		assertEquals(1, dbs.getWaiterIdByLoginData("waiter", "value1"));
+
+		assertEquals(1, dataSource.getConnectionCount());
+		assertEquals(1, dataSource.getStatementCount());
+	}
+}
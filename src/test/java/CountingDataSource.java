@@ -0,0 +1,189 @@
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * DataSource ohne MySQL-Server für Tests. Jede Abfrage liefert eine vorgegebene Anzahl von Zeilen mit
+ * Platzhalterwerten. Dabei wird gezählt, wie viele Verbindungen geliehen und wie viele Statements an
+ * die Datenbank gesendet wurden.
+ */
+public class CountingDataSource implements DataSource
+{
+	private int rows;
+	private int batchUpdateCount = 1;
+	private int connections = 0;
+	private int statements = 0;
+
+	/**
+	 * @param rows Anzahl der Zeilen, die jede Abfrage liefert bzw. jede Änderung betrifft.
+	 */
+	public CountingDataSource(int rows)
+	{
+		this.rows = rows;
+	}
+
+	public void setRows(int rows)
+	{
+		this.rows = rows;
+	}
+
+	/**
+	 * @param batchUpdateCount Anzahl der Zeilen, die jede Anweisung eines Batches betrifft, solange Abfragen Zeilen liefern.
+	 */
+	public void setBatchUpdateCount(int batchUpdateCount)
+	{
+		this.batchUpdateCount = batchUpdateCount;
+	}
+
+	public int getConnectionCount()
+	{
+		return connections;
+	}
+
+	public int getStatementCount()
+	{
+		return statements;
+	}
+
+	public void reset()
+	{
+		connections = 0;
+		statements = 0;
+	}
+
+	@Override
+	public Connection getConnection()
+	{
+		connections++;
+		return proxy(Connection.class, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "prepareStatement":
+				case "createStatement":
+					statements++;
+					return statement();
+				case "isClosed":
+				case "isWrapperFor":
+					return false;
+				case "getAutoCommit":
+					return true;
+				default:
+					return null;
+			}
+		});
+	}
+
+	@Override
+	public Connection getConnection(String username, String password)
+	{
+		return getConnection();
+	}
+
+	private PreparedStatement statement()
+	{
+		int[] batchSize = {0};
+		return proxy(PreparedStatement.class, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "addBatch":
+					batchSize[0]++;
+					return null;
+				case "executeQuery":
+				case "getGeneratedKeys":
+				case "getResultSet":
+					return resultSet(rows);
+				case "executeUpdate":
+					return rows;
+				case "executeBatch":
+					int[] counts = new int[batchSize[0]];
+					Arrays.fill(counts, rows > 0 ? batchUpdateCount : 0);
+					batchSize[0] = 0;
+					return counts;
+				case "execute":
+				case "isClosed":
+					return false;
+				default:
+					return null;
+			}
+		});
+	}
+
+	private ResultSet resultSet(int rowCount)
+	{
+		int[] row = {0};
+		return proxy(ResultSet.class, (proxy, method, args) -> {
+			switch(method.getName()) {
+				case "next":
+					return ++row[0] <= rowCount;
+				case "getInt":
+					return row[0];
+				case "getLong":
+					return (long) row[0];
+				case "getFloat":
+					return 1.5f;
+				case "getDouble":
+					return 1.5d;
+				case "getBoolean":
+					return true;
+				case "getString":
+					return "value" + row[0];
+				case "getTimestamp":
+					return new Timestamp(0);
+				case "wasNull":
+				case "isClosed":
+					return false;
+				default:
+					return null;
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface)
+	{
+		return null;
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface)
+	{
+		return false;
+	}
+
+	@Override
+	public PrintWriter getLogWriter()
+	{
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {}
+
+	@Override
+	public void setLoginTimeout(int seconds) {}
+
+	@Override
+	public int getLoginTimeout()
+	{
+		return 0;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+}
@@ -0,0 +1,61 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.Delta;
+import dhbw.sa.kassensystem_rest.database.entity.Order;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.database.entity.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test der Abfrage von Änderungen: Nach einer Änderung werden nur die geänderten Datensätze mit einer Abfrage
+ * geladen, ohne Änderungen wird die Datenbank nicht abgefragt und eine zu alte Version liefert die vollständige
+ * Liste.
+ */
+public class DeltaSync_Test
+{
+	@Test
+	public void testOnlyChangedRowsAreLoaded()
+	{
+		CountingDataSource dataSource = new CountingDataSource(1);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		long start = dbs.getChangeVersion();
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		orderedItems.add(new OrderedItem(1, 1, null));
+		dbs.addOrderedItems(orderedItems);
+		dbs.updateTable(1, new Table(1, "Tisch 1", 4, true));
+
+		dataSource.reset();
+		Delta<Order> orders = dbs.getOrdersSince(start);
+		assertFalse(orders.isFull());
+		assertEquals(1, orders.getChanged().size());
+		assertEquals(1, orders.getChanged().get(0).getOrderID());
+		assertTrue(orders.getDeleted().isEmpty());
+		assertEquals(1, dataSource.getStatementCount());
+
+		// Seit der letzten Abfrage hat sich nichts geändert
+		dataSource.reset();
+		Delta<Order> unchanged = dbs.getOrdersSince(orders.getVersion());
+		assertTrue(unchanged.getChanged().isEmpty());
+		assertEquals(orders.getVersion(), unchanged.getVersion());
+		assertEquals(0, dataSource.getConnectionCount());
+
+		// Nicht gefundene bzw. nicht mehr verfügbare Datensätze werden als gelöscht gemeldet
+		dbs.updateTable(1, new Table(1, "Tisch 1", 4, false));
+		dataSource.setRows(0);
+		Delta<Table> tables = dbs.getAvailableTablesSince(orders.getVersion());
+		assertFalse(tables.isFull());
+		assertEquals(1, tables.getDeleted().size());
+		assertEquals(1, (int) tables.getDeleted().get(0));
+
+		// Eine Version vor dem Start des Servers liefert die vollständige Liste
+		assertTrue(dbs.getOrdersSince(start - 1).isFull());
+
+		dbs.disconnect();
+	}
+}
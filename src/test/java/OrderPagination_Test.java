@@ -0,0 +1,54 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderFilter;
+import dhbw.sa.kassensystem_rest.database.databaseservice.Page;
+import dhbw.sa.kassensystem_rest.database.entity.Order;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test der seitenweisen Abfrage von Bestellungen und bestellten Artikeln: Jede Seite wird mit genau einer Abfrage
+ * geladen, und nur ein gültiger Cursor derselben Liste wird akzeptiert.
+ */
+public class OrderPagination_Test
+{
+	@Test
+	public void testPagesAreLoadedWithOneStatement()
+	{
+		CountingDataSource dataSource = new CountingDataSource(5);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		OrderFilter filter = new OrderFilter(true, 3, null, new DateTime(2018, 1, 1, 0, 0), null);
+
+		// Die Abfrage liefert einen Datensatz mehr als die Seitengröße, es gibt also eine nächste Seite
+		dataSource.reset();
+		Page<Order> orders = dbs.getOrders(filter, null, 4);
+		assertEquals(1, dataSource.getStatementCount());
+		assertEquals(4, orders.getItems().size());
+		assertEquals(4, orders.getItems().get(3).getOrderID());
+		assertNotNull(orders.getNextCursor());
+
+		dataSource.setRows(2);
+		dataSource.reset();
+		Page<Order> lastPage = dbs.getOrders(filter, orders.getNextCursor(), 4);
+		assertEquals(1, dataSource.getStatementCount());
+		assertEquals(2, lastPage.getItems().size());
+		assertNull(lastPage.getNextCursor());
+
+		dataSource.setRows(5);
+		Page<OrderedItem> orderedItems = dbs.getOrderedItems(new OrderFilter(null, null, null, null, null), null, 4);
+		assertEquals(4, orderedItems.getItems().size());
+		assertNotNull(orderedItems.getNextCursor());
+
+		// Ein Cursor gehört nur zu seiner Liste
+		assertThrows(DataException.class, () -> dbs.getOrderedItems(filter, orders.getNextCursor(), 4));
+		assertThrows(DataException.class, () -> dbs.getOrders(filter, "kein Cursor", 4));
+
+		dbs.disconnect();
+	}
+}
@@ -0,0 +1,33 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Das Abfragen aller Bestellungen sendet unabhängig von der Anzahl der Bestellungen eine konstante Anzahl an
+ * Statements an die Datenbank.
+ */
+public class OrderStatementCount_Test
+{
+	@Test
+	public void testGetAllOrdersStatementCountIsConstant()
+	{
+		CountingDataSource dataSource = new CountingDataSource(1);
+		DatabaseService dbs = new DatabaseService(dataSource);
+
+		ArrayList<Order> orders = dbs.getAllOrders();
+		int statementsForOneOrder = dataSource.getStatementCount();
+		assertEquals(1, orders.size());
+
+		dataSource.reset();
+		dataSource.setRows(5000);
+		orders = dbs.getAllOrders();
+		assertEquals(5000, orders.size());
+
+		assertEquals(statementsForOneOrder, dataSource.getStatementCount(),
+				"Anzahl der Statements darf nicht mit der Anzahl der Bestellungen wachsen.");
+	}
+}
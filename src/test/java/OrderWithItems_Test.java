@@ -0,0 +1,72 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.CreatedOrder;
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.NewOrder;
+import dhbw.sa.kassensystem_rest.database.entity.Order;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test von addOrderWithItems: Eine Bestellung mit ihren Artikeln wird über eine Verbindung mit drei Statements
+ * angelegt, und die IDs der Artikel und Druckaufträge werden in einer Antwort geliefert.
+ */
+public class OrderWithItems_Test
+{
+	@Test
+	public void testOrderWithItemsUsesOneConnection()
+	{
+		CountingDataSource dataSource = new CountingDataSource(1);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		PrintSpooler spooler = new PrintSpooler(new PrinterDevice()
+		{
+			@Override
+			public String getName()
+			{
+				return "Testdrucker";
+			}
+
+			@Override
+			public void print(byte[] data) {}
+		}, 10, 1, 1);
+		dbs.setPrinterService(new PrinterService(dbs, spooler));
+
+		// Speisekarte in den Cache laden
+		dbs.getCatalogItem(1);
+		dataSource.reset();
+
+		// Tisch 1 hat in der Testdatenbank bereits die offene Bestellung 1
+		NewOrder newOrder = new NewOrder(new Order(1, 0, DateTime.now(), false, 2),
+				Collections.singletonList(new OrderedItem(0, 1, "ohne Eis")));
+		CreatedOrder createdOrder = dbs.addOrderWithItems(newOrder);
+		spooler.close();
+
+		assertEquals(1, createdOrder.getOrderID());
+		assertFalse(createdOrder.isNewOrder());
+		assertEquals(Collections.singletonList(1), createdOrder.getOrderedItemIDs());
+		assertEquals(1, createdOrder.getPrintJobIDs().size());
+		assertEquals(1, dbs.getOrderedItemEvents().getLastSequence());
+
+		// Gesperrter Tisch, offene Bestellung und Batch-Insert der Artikel
+		assertEquals(1, dataSource.getConnectionCount());
+		assertEquals(3, dataSource.getStatementCount());
+
+		// Existiert der Tisch nicht, wird nichts hinzugefügt
+		dataSource.setRows(0);
+		dataSource.reset();
+		assertThrows(DataException.class, () -> dbs.addOrderWithItems(newOrder));
+		assertEquals(1, dataSource.getStatementCount());
+		assertEquals(1, dbs.getOrderedItemEvents().getLastSequence());
+
+		dbs.disconnect();
+	}
+}
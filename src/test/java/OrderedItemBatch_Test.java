@@ -0,0 +1,34 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test des Batch-Inserts: Mehrere bestellte Artikel werden mit einem einzigen Statement auf einer Verbindung
+ * hinzugefügt und die vergebenen IDs in Reihenfolge zurückgegeben.
+ */
+public class OrderedItemBatch_Test
+{
+	@Test
+	public void testAddOrderedItemsUsesOneStatement()
+	{
+		CountingDataSource dataSource = new CountingDataSource(15);
+		DatabaseService dbs = new DatabaseService(dataSource);
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		for(int i = 0; i < 15; i++)
+			orderedItems.add(new OrderedItem(1, 2, null));
+
+		ArrayList<Integer> orderedItemIDs = dbs.addOrderedItems(orderedItems);
+
+		assertEquals(15, orderedItemIDs.size());
+		for(int i = 0; i < orderedItemIDs.size(); i++)
+			assertEquals(i + 1, (int) orderedItemIDs.get(i));
+
+		assertEquals(1, dataSource.getConnectionCount());
+		assertEquals(1, dataSource.getStatementCount());
+	}
+}
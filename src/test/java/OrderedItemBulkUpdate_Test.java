@@ -0,0 +1,67 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.BulkUpdateResult;
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test der Änderung mehrerer bestellter Artikel: Je eine Existenzprüfung der orderedItemIDs, orderIDs und itemIDs
+ * und ein Batch-Update in einer Transaktion. Fehlerhafte Artikel werden gemeldet, ohne die Änderung der übrigen zu
+ * verhindern.
+ */
+public class OrderedItemBulkUpdate_Test
+{
+	@Test
+	public void testUpdateOrderedItemsUsesFourStatements()
+	{
+		// Die Existenzprüfungen liefern jeweils die IDs 1 bis 20
+		CountingDataSource dataSource = new CountingDataSource(20);
+		DatabaseService dbs = new DatabaseService(dataSource);
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		for(int i = 1; i <= 20; i++)
+			orderedItems.add(new OrderedItem(i, 3, 2, true, true, null));
+		orderedItems.add(5, new OrderedItem(99, 3, 2, true, true, null));
+		orderedItems.add(10, new OrderedItem(7, 3, 0, true, true, null));
+		// Verweise auf eine nicht existierende Bestellung bzw. einen nicht existierenden Artikel
+		orderedItems.add(12, new OrderedItem(8, 77, 2, true, true, null));
+		orderedItems.add(15, new OrderedItem(9, 3, 88, true, true, null));
+
+		dataSource.reset();
+		BulkUpdateResult result = dbs.updateOrderedItems(orderedItems);
+
+		assertEquals(20, result.getUpdated().size());
+		assertEquals(4, result.getFailed().size());
+		assertEquals(5, result.getFailed().get(0).getIndex());
+		assertEquals(99, result.getFailed().get(0).getId());
+		assertEquals(10, result.getFailed().get(1).getIndex());
+		assertEquals(12, result.getFailed().get(2).getIndex());
+		assertEquals(8, result.getFailed().get(2).getId());
+		assertEquals(15, result.getFailed().get(3).getIndex());
+		assertEquals(9, result.getFailed().get(3).getId());
+		assertEquals(20, dbs.getOrderedItemEvents().getLastSequence());
+
+		assertEquals(1, dataSource.getConnectionCount());
+		assertEquals(4, dataSource.getStatementCount());
+
+		// Ohne gültige Artikel werden nur die IDs geprüft
+		dataSource.reset();
+		result = dbs.updateOrderedItems(Arrays.asList(new OrderedItem(99, 3, 2, true, true, null)));
+		assertEquals(0, result.getUpdated().size());
+		assertEquals(3, dataSource.getStatementCount());
+
+		// Ein nach der Existenzprüfung gelöschter Artikel wird über die Anzahl der geänderten Zeilen erkannt
+		dataSource.setBatchUpdateCount(0);
+		result = dbs.updateOrderedItems(Arrays.asList(new OrderedItem(4, 3, 2, true, true, null)));
+		assertEquals(0, result.getUpdated().size());
+		assertEquals(1, result.getFailed().size());
+		assertEquals(4, result.getFailed().get(0).getId());
+		assertEquals(20, dbs.getOrderedItemEvents().getLastSequence());
+
+		dbs.disconnect();
+	}
+}
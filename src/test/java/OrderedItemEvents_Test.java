@@ -0,0 +1,57 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderedItemEvents;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test der Ereignisse zu bestellten Artikeln: Die schreibenden Methoden des DatabaseService melden jede Änderung
+ * genau einmal und in Reihenfolge, ohne dass die Empfänger die Datenbank erneut abfragen müssen.
+ */
+public class OrderedItemEvents_Test
+{
+	@Test
+	public void testWritesPublishEvents()
+	{
+		CountingDataSource dataSource = new CountingDataSource(2);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		OrderedItemEvents events = dbs.getOrderedItemEvents();
+
+		List<OrderedItemEvents.Event> received = new ArrayList<>();
+		events.subscribe(received::add);
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		orderedItems.add(new OrderedItem(7, 1, "ohne Zwiebeln"));
+		orderedItems.add(new OrderedItem(7, 2, null));
+		dbs.addOrderedItems(orderedItems);
+		dbs.updateOrderedItem(2, new OrderedItem(2, 7, 2, false, true, null));
+		dbs.deleteOrderedItem(1);
+
+		assertEquals(4, received.size());
+		assertEquals(OrderedItemEvents.Type.ADDED, received.get(0).getType());
+		assertEquals(1, received.get(0).getOrderedItemID());
+		assertEquals("ohne Zwiebeln", received.get(0).getOrderedItem().getComment());
+		assertEquals(2, received.get(1).getOrderedItemID());
+		assertEquals(OrderedItemEvents.Type.UPDATED, received.get(2).getType());
+		assertTrue(received.get(2).getOrderedItem().isItemProduced());
+		assertEquals(OrderedItemEvents.Type.DELETED, received.get(3).getType());
+		assertEquals(1, received.get(3).getOrderedItemID());
+
+		for(int i = 0; i < received.size(); i++)
+			assertEquals(i + 1, received.get(i).getSequence());
+
+		// Ein Bildschirm, der nach dem ersten Ereignis getrennt wurde, erhält genau die verpassten Ereignisse
+		assertEquals(received.subList(1, 4), events.getEventsAfter(1));
+		assertTrue(events.getEventsAfter(4).isEmpty());
+		assertNull(events.getEventsAfter(99));
+		assertEquals(4, events.getLastSequence());
+
+		dbs.disconnect();
+	}
+}
@@ -0,0 +1,58 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderedItemEvents;
+import dhbw.sa.kassensystem_rest.database.databaseservice.OrderedItemSelector;
+import dhbw.sa.kassensystem_rest.exceptions.DataException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Das Bezahlen bzw. Produzieren ausgewählter bestellter Artikel benötigt unabhängig von ihrer
+ * Anzahl nur eine Abfrage der noch nicht markierten Artikel und, wenn solche vorhanden sind, ein UPDATE.
+ */
+public class OrderedItemFlags_Test
+{
+	@Test
+	public void testSelectedItemsAreUpdatedWithOneStatement() throws IOException
+	{
+		CountingDataSource dataSource = new CountingDataSource(40);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		List<OrderedItemEvents.Event> events = new ArrayList<>();
+		dbs.getOrderedItemEvents().subscribe(events::add);
+
+		OrderedItemSelector byOrder =
+				new ObjectMapper().readValue("{\"orderID\": 5, \"itemID\": 2}", OrderedItemSelector.class);
+		dataSource.reset();
+		ArrayList<Integer> paid = dbs.payOrderedItems(byOrder);
+		assertEquals(40, paid.size());
+		assertEquals(2, dataSource.getStatementCount());
+		assertEquals(40, events.size());
+		assertTrue(events.get(0).getOrderedItem().isItemPaid());
+
+		ArrayList<Integer> orderedItemIDs = new ArrayList<>();
+		for(int i = 1; i <= 600; i++)
+			orderedItemIDs.add(i);
+		dataSource.reset();
+		dbs.produceOrderedItems(new OrderedItemSelector(orderedItemIDs, 0, 0));
+		assertEquals(2, dataSource.getStatementCount());
+		assertTrue(events.get(40).getOrderedItem().isItemProduced());
+
+		// Sind alle Artikel bereits bezahlt, wird nur die Abfrage ausgeführt
+		dataSource.setRows(0);
+		dataSource.reset();
+		assertTrue(dbs.payOrderedItems(new OrderedItemSelector(Arrays.asList(1, 2), 0, 0)).isEmpty());
+		assertEquals(1, dataSource.getStatementCount());
+
+		assertThrows(DataException.class, () -> dbs.payOrderedItems(new OrderedItemSelector(null, 0, 0)));
+
+		dbs.disconnect();
+	}
+}
@@ -0,0 +1,117 @@
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJournal;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test des Druckjournals: Ein Auftrag, der wegen eines ausgeschalteten Druckers nicht gedruckt werden konnte,
+ * wird nach einem Neustart gedruckt. Volle Segmente werden nach dem Druck gelöscht. Solange der Server läuft, werden
+ * fehlgeschlagene Aufträge in festen Abständen erneut versucht.
+ */
+public class PrintJournal_Test
+{
+	@Test
+	public void testUnprintedJobIsReplayedAfterRestart() throws IOException, InterruptedException
+	{
+		Path directory = Files.createTempDirectory("print-journal");
+		byte[] ticket = {1, 2, 3};
+
+		// Erster Start: Der Drucker ist ausgeschaltet
+		PrintSpooler offline = new PrintSpooler(new TestDevice(null), PrintJournal.open(directory, 64), 10, 1, 1);
+		PrintJob failedJob = offline.submit(ticket);
+		waitFor(failedJob, PrintJob.Status.FAILED);
+		offline.close();
+
+		// Zweiter Start: Der Drucker ist wieder erreichbar
+		List<byte[]> printedData = new ArrayList<>();
+		PrintJournal journal = PrintJournal.open(directory, 64);
+		PrintSpooler online = new PrintSpooler(new TestDevice(printedData), journal, 10, 1, 1);
+		// Mehrere Segmente füllen, damit das Journal rollt
+		List<PrintJob> jobs = new ArrayList<>();
+		for(int i = 0; i < 10; i++)
+			jobs.add(online.submit(new byte[40]));
+		for(PrintJob job: jobs)
+			waitFor(job, PrintJob.Status.DONE);
+
+		assertEquals(1L, online.getStatistics().get("replayed"));
+		assertArrayEquals(ticket, printedData.get(0));
+		assertEquals(11, printedData.size());
+		assertEquals(0, journal.getStatistics().get("pending"));
+		assertEquals(1, journal.getStatistics().get("segments"));
+		online.close();
+
+		// Dritter Start: Es ist nichts mehr zu drucken
+		PrintJournal reopened = PrintJournal.open(directory, 64);
+		assertEquals(0, reopened.getRecovered().size());
+		reopened.close();
+	}
+
+	@Test
+	public void testFailedJobIsRetriedWhilePrinterIsOffline() throws IOException, InterruptedException
+	{
+		Path directory = Files.createTempDirectory("print-journal");
+		List<byte[]> printedData = new ArrayList<>();
+		TestDevice device = new TestDevice(printedData);
+		device.offline = true;
+		PrintJournal journal = PrintJournal.open(directory, 64);
+		PrintSpooler spooler = new PrintSpooler(device, journal, 10, 1, 1, 50);
+
+		PrintJob job = spooler.submit(new byte[]{4, 5, 6});
+		waitFor(job, PrintJob.Status.FAILED);
+		assertEquals(1, journal.getStatistics().get("pending"));
+
+		// Der Drucker wird wieder eingeschaltet, ohne dass der Server neu gestartet wird
+		device.offline = false;
+		waitFor(job, PrintJob.Status.DONE);
+		assertEquals(1, printedData.size());
+		assertEquals(0, journal.getStatistics().get("pending"));
+		assertEquals(1L, spooler.getStatistics().get("failed"));
+		spooler.close();
+	}
+
+	private static void waitFor(PrintJob job, PrintJob.Status status) throws InterruptedException
+	{
+		for(int i = 0; i < 500 && job.getStatus() != status; i++)
+			Thread.sleep(10);
+		assertEquals(status, job.getStatus());
+	}
+
+	/**
+	 * Simulierter Drucker, der ausgeschaltet ist, wenn keine Liste für die gedruckten Daten übergeben oder er ausgeschaltet wird.
+	 */
+	private static class TestDevice implements PrinterDevice
+	{
+		private final List<byte[]> printedData;
+		volatile boolean offline;
+
+		TestDevice(List<byte[]> printedData)
+		{
+			this.printedData = printedData;
+			this.offline = printedData == null;
+		}
+
+		@Override
+		public String getName()
+		{
+			return "Testdrucker";
+		}
+
+		@Override
+		public void print(byte[] data) throws Exception
+		{
+			if(offline)
+				throw new Exception("Drucker ausgeschaltet");
+			printedData.add(data);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintRoutes;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test der Druckerrouten: Ein Küchenbeleg wird nach Artikeln auf Küchen- und Bardrucker aufgeteilt, geänderte
+ * Routen werden ohne Neustart übernommen.
+ */
+public class PrintRoutes_Test
+{
+	@Test
+	public void testOrderIsSplitByRoute() throws IOException, InterruptedException
+	{
+		Path file = Files.createTempFile("printer-routes", ".properties");
+		write(file, "route.kueche.printer=Kueche", "route.kueche.items=*",
+				"route.bar.printer=Bar", "route.bar.items=2-3", "route.bar.title=BAR");
+
+		Map<String, PrintSpooler> spoolers = new ConcurrentHashMap<>();
+		PrintRoutes routes = PrintRoutes.fromFile(file, name ->
+				spoolers.computeIfAbsent(name, n -> new PrintSpooler(new TestDevice(n), 10, 1, 1)));
+		DatabaseService dbs = new DatabaseService(new CountingDataSource(1));
+		PrinterService printerService = new PrinterService(dbs, routes);
+		dbs.setPrinterService(printerService);
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		for(int itemID: new int[]{1, 2, 3, 4})
+			orderedItems.add(new OrderedItem(1, itemID, ""));
+
+		List<PrintJob> printJobs = dbs.printOrder(1, orderedItems);
+		assertEquals(Arrays.asList("Kueche", "Bar"), Arrays.asList(printJobs.get(0).getPrinterName(),
+				printJobs.get(1).getPrinterName()));
+		assertEquals(2L, printerService.getRouteStatistics().get("bar").get("items"));
+		assertEquals(2L, printerService.getRouteStatistics().get("kueche").get("items"));
+
+		// Die Bar übernimmt alle Artikel, die Datei wird höchstens einmal je Sekunde geprüft
+		write(file, "route.bar.printer=Bar", "route.bar.items=*");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+		Thread.sleep(1100);
+
+		printJobs = dbs.printOrder(1, orderedItems);
+		assertEquals(1, printJobs.size());
+		assertEquals("Bar", printJobs.get(0).getPrinterName());
+		assertEquals(6L, printerService.getRouteStatistics().get("bar").get("items"));
+
+		for(PrintSpooler spooler: spoolers.values())
+			spooler.close();
+		Files.delete(file);
+	}
+
+	private static void write(Path file, String... lines) throws IOException
+	{
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+	private static class TestDevice implements PrinterDevice
+	{
+		private final String name;
+
+		TestDevice(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String getName()
+		{
+			return name;
+		}
+
+		@Override
+		public void print(byte[] data) {}
+	}
+}
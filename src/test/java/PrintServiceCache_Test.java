@@ -0,0 +1,66 @@
+import dhbw.sa.kassensystem_rest.database.printer.FilePrinterDevice;
+import dhbw.sa.kassensystem_rest.database.printer.PrintServiceCache;
+import org.junit.jupiter.api.Test;
+
+import javax.print.PrintService;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test des Zwischenspeichers der Drucker: Die Drucker werden nur beim ersten Zugriff und nach einem Fehler
+ * ermittelt. Zusätzlich wird der Ersatzdrucker getestet, der die Druckaufträge in Dateien schreibt.
+ */
+public class PrintServiceCache_Test
+{
+	@Test
+	public void testLookupIsCachedUntilInvalidated() throws IOException
+	{
+		AtomicInteger lookups = new AtomicInteger();
+		PrintServiceCache cache = new PrintServiceCache(() -> {
+			lookups.incrementAndGet();
+			return new PrintService[]{createPrintService("EPSON TM-T88V Receipt")};
+		}, 0);
+
+		for(int i = 0; i < 10; i++)
+			assertNotNull(cache.get("epson tm-t88v receipt"));
+		assertNull(cache.get("Bar"));
+		assertEquals(1, lookups.get());
+
+		// Nach einem fehlgeschlagenen Druck werden die Drucker erneut ermittelt
+		cache.invalidate();
+		assertNotNull(cache.get("EPSON TM-T88V Receipt"));
+		assertEquals(2, lookups.get());
+		assertEquals(2L, cache.getStatistics().get("lookups"));
+		cache.close();
+
+		Path directory = Files.createTempDirectory("printer");
+		new FilePrinterDevice("Testdrucker", directory).print(new byte[]{27, 64, 'A'});
+		File[] files = directory.toFile().listFiles();
+		assertEquals(1, files.length);
+		assertArrayEquals(new byte[]{27, 64, 'A'}, Files.readAllBytes(files[0].toPath()));
+		Files.delete(files[0].toPath());
+		Files.delete(directory);
+	}
+
+	/**
+	 * Erzeugt einen simulierten Printer-Service, der nur seinen Namen kennt.
+	 */
+	private static PrintService createPrintService(String name)
+	{
+		return (PrintService) Proxy.newProxyInstance(PrintService.class.getClassLoader(),
+				new Class<?>[]{PrintService.class}, (proxy, method, args) -> {
+					if(method.getName().equals("getName"))
+						return name;
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
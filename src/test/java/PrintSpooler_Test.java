@@ -0,0 +1,47 @@
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test der Druckerwarteschlange mit einem simulierten Drucker, der den ersten Druck ablehnt.
+ */
+public class PrintSpooler_Test
+{
+	@Test
+	public void testFailedPrintIsRetried() throws InterruptedException
+	{
+		AtomicInteger calls = new AtomicInteger();
+		PrinterDevice device = new PrinterDevice()
+		{
+			@Override
+			public String getName()
+			{
+				return "Testdrucker";
+			}
+
+			@Override
+			public void print(byte[] data) throws Exception
+			{
+				if(calls.incrementAndGet() == 1)
+					throw new Exception("Papierstau");
+			}
+		};
+
+		PrintSpooler spooler = new PrintSpooler(device, 10, 3, 1);
+		PrintJob job = spooler.submit(new byte[]{1, 2, 3});
+
+		for(int i = 0; i < 500 && job.getStatus() != PrintJob.Status.DONE; i++)
+			Thread.sleep(10);
+		spooler.close();
+
+		assertEquals(PrintJob.Status.DONE, job.getStatus());
+		assertEquals(2, job.getAttempts());
+		assertEquals(1L, spooler.getStatistics().get("retries"));
+		assertEquals(1L, spooler.getStatistics().get("printed"));
+	}
+}
@@ -0,0 +1,51 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Ein Küchenbeleg leiht unabhängig von der Anzahl der bestellten Artikel nur eine Verbindung aus dem Pool.
+ */
+public class PrinterConnectionCount_Test
+{
+	@Test
+	public void testPrintOrderUsesOneConnection()
+	{
+		CountingDataSource dataSource = new CountingDataSource(1);
+		DatabaseService dbs = new DatabaseService(dataSource);
+		PrinterDevice device = new PrinterDevice()
+		{
+			@Override
+			public String getName()
+			{
+				return "Testdrucker";
+			}
+
+			@Override
+			public void print(byte[] data) {}
+		};
+		PrintSpooler spooler = new PrintSpooler(device, 10, 1, 1);
+		dbs.setPrinterService(new PrinterService(dbs, spooler));
+
+		// Speisekarte in den Cache laden
+		dbs.getCatalogItem(1);
+		dataSource.reset();
+
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		for(int i = 0; i < 5; i++)
+			orderedItems.add(new OrderedItem(1, 1, ""));
+		PrintJob job = dbs.printOrder(1, orderedItems).get(0);
+		spooler.close();
+
+		assertNotEquals(PrintJob.Status.FAILED, job.getStatus());
+		assertEquals(1, dataSource.getConnectionCount());
+	}
+}
@@ -0,0 +1,117 @@
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJob;
+import dhbw.sa.kassensystem_rest.database.printer.PrintJournal;
+import dhbw.sa.kassensystem_rest.database.printer.PrintRoutes;
+import dhbw.sa.kassensystem_rest.database.printer.PrintSpooler;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterDevice;
+import dhbw.sa.kassensystem_rest.database.printer.PrinterService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test der zusammengefassten Küchenbelege: Mehrere Runden derselben Order innerhalb des Zeitfensters werden als
+ * ein Beleg gedruckt. Jede Runde ist bereits vor dem Ende des Zeitfensters im Journal gesichert.
+ */
+public class TicketCoalescing_Test
+{
+	@Test
+	public void testRoundsWithinWindowArePrintedOnce() throws IOException, InterruptedException
+	{
+		Path file = Files.createTempFile("printer-routes", ".properties");
+		Files.write(file, Arrays.asList("route.kueche.printer=Kueche", "route.kueche.items=*",
+				"route.kueche.coalesceMillis=300"), StandardCharsets.UTF_8);
+
+		AtomicInteger prints = new AtomicInteger();
+		PrintSpooler spooler = new PrintSpooler(new PrinterDevice()
+		{
+			@Override
+			public String getName()
+			{
+				return "Kueche";
+			}
+
+			@Override
+			public void print(byte[] data)
+			{
+				prints.incrementAndGet();
+			}
+		}, 10, 1, 1);
+		DatabaseService dbs = new DatabaseService(new CountingDataSource(1));
+		PrinterService printerService = new PrinterService(dbs, PrintRoutes.fromFile(file, name -> spooler));
+		dbs.setPrinterService(printerService);
+
+		PrintJob first = null;
+		for(int round = 0; round < 3; round++)
+		{
+			ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+			orderedItems.add(new OrderedItem(1, 1, ""));
+			PrintJob job = dbs.printOrder(1, orderedItems).get(0);
+			if(first == null)
+				first = job;
+			assertSame(first, job);
+		}
+
+		for(int i = 0; i < 200 && first.getStatus() != PrintJob.Status.DONE; i++)
+			Thread.sleep(10);
+		assertEquals(PrintJob.Status.DONE, first.getStatus());
+		assertEquals(1, prints.get());
+		assertEquals(2L, printerService.getCoalescingStatistics().get("merged"));
+		assertEquals(1L, printerService.getCoalescingStatistics().get("flushed"));
+		assertEquals(3L, printerService.getRouteStatistics().get("kueche").get("items"));
+
+		printerService.close();
+		spooler.close();
+		Files.delete(file);
+	}
+
+	@Test
+	public void testRoundsAreJournaledBeforeTheyAreAcknowledged() throws IOException, InterruptedException
+	{
+		Path file = Files.createTempFile("printer-routes", ".properties");
+		Files.write(file, Arrays.asList("route.kueche.printer=Kueche", "route.kueche.items=*",
+				"route.kueche.coalesceMillis=60000"), StandardCharsets.UTF_8);
+		Path directory = Files.createTempDirectory("print-journal");
+
+		PrintSpooler spooler = new PrintSpooler(new PrinterDevice()
+		{
+			@Override
+			public String getName()
+			{
+				return "Kueche";
+			}
+
+			@Override
+			public void print(byte[] data) {}
+		}, PrintJournal.open(directory, 1 << 16), 10, 1, 1);
+		DatabaseService dbs = new DatabaseService(new CountingDataSource(1));
+		PrinterService printerService = new PrinterService(dbs, PrintRoutes.fromFile(file, name -> spooler));
+		dbs.setPrinterService(printerService);
+
+		for(int round = 0; round < 2; round++)
+		{
+			ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+			orderedItems.add(new OrderedItem(1, 1, ""));
+			dbs.printOrder(1, orderedItems);
+		}
+
+		// Der Server endet innerhalb des Zeitfensters, die bestätigten Belege werden nach dem Neustart gedruckt
+		spooler.close();
+		PrintJournal reopened = PrintJournal.open(directory, 1 << 16);
+		assertEquals(2, reopened.getRecovered().size());
+		reopened.close();
+
+		printerService.close();
+		Files.delete(file);
+	}
+}
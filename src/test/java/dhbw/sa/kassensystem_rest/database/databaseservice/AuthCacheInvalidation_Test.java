@@ -0,0 +1,46 @@
+package dhbw.sa.kassensystem_rest.database.databaseservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test des {@link AuthCache}s: Logindaten, die geladen wurden, während die Bedienung aus dem Cache entfernt wurde,
+ * werden nicht gespeichert.
+ */
+public class AuthCacheInvalidation_Test
+{
+	@Test
+	public void testLoadOverlappingInvalidationIsNotCached()
+	{
+		AuthCache cache = new AuthCache(60000);
+		AtomicInteger loads = new AtomicInteger();
+
+		// Die Bedienung wird entlassen, während ihre alten Logindaten noch geladen werden
+		AuthCache.Credentials stale = cache.get("waiter", loginname -> {
+			loads.incrementAndGet();
+			cache.invalidateWaiter(1);
+			return new AuthCache.Credentials("hash", 1, true);
+		});
+		assertTrue(stale.matches("hash"));
+
+		// Die nächste Anfrage lädt den aktuellen Stand, statt die alten Logindaten zu verwenden
+		AuthCache.Credentials current = cache.get("waiter", loginname -> {
+			loads.incrementAndGet();
+			return new AuthCache.Credentials("hash", 1, false);
+		});
+		assertFalse(current.matches("hash"));
+		assertEquals(2, loads.get());
+
+		// Ohne gleichzeitiges Entfernen wird der Eintrag gespeichert
+		cache.get("waiter", loginname -> {
+			loads.incrementAndGet();
+			return null;
+		});
+		assertEquals(2, loads.get());
+	}
+}
@@ -0,0 +1,143 @@
+package dhbw.sa.kassensystem_rest.database.printer;
+
+import dhbw.sa.kassensystem_rest.database.Gastronomy;
+import org.junit.jupiter.api.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test des {@link EscPosRenderer}s. Über {@link #main(String[])} wird zusätzlich der Durchsatz und die Anzahl der
+ * allokierten Bytes je Kundenbeleg mit der bisherigen Formatierung über Strings verglichen.
+ */
+public class EscPosRenderer_Test
+{
+	private static final Charset CP437 = Charset.forName("IBM437");
+	private static final byte[] CUT = {29, 86, 65, 0, 0};
+
+	@Test
+	public void testReceiptColumnsAreAligned()
+	{
+		byte[] data = new EscPosRenderer().renderReceipt(createReceipt());
+
+		assertArrayEquals(CUT, Arrays.copyOfRange(data, data.length - CUT.length, data.length));
+
+		String text = new String(data, 0, data.length - CUT.length, CP437);
+		for(String line: text.split("\n"))
+		{
+			assertTrue(line.length() <= EscPosRenderer.WIDTH, line);
+			if(line.endsWith(" EUR"))
+				assertEquals(EscPosRenderer.WIDTH, line.length(), line);
+		}
+		assertTrue(text.contains("Käsespätzle"));
+		assertTrue(text.contains("Sie saßen an Tisch T3."));
+		assertTrue(text.contains("35,40 EUR"));
+	}
+
+	private static PrintableReceipt createReceipt()
+	{
+		ArrayList<PrintableOrderedItem> items = new ArrayList<>();
+		items.add(new PrintableOrderedItem("Käsespätzle", 11.9, "ohne Zwiebeln"));
+		items.add(new PrintableOrderedItem("Schnitzel Wiener Art mit Pommes frites und Salat", 14.5, null));
+		items.add(new PrintableOrderedItem("Apfelschorle", 3.5, null));
+		items.add(new PrintableOrderedItem("Espresso", 2.5, null));
+		items.add(new PrintableOrderedItem("Tiramisu", 3.0, ""));
+		return new PrintableReceipt("18.10.2026 12:30:00", "T3", items, 35.4);
+	}
+
+	/**
+	 * Bisherige Formatierung des Kundenbelegs über einen String, zum Vergleich im Benchmark.
+	 */
+	private static byte[] renderReceiptAsString(PrintableReceipt printableReceipt) throws UnsupportedEncodingException
+	{
+		StringBuilder formattedReceiptText = new StringBuilder("");
+
+		formattedReceiptText.append("----------Kundenbeleg-------------\n\n");
+
+		formattedReceiptText
+				.append(Gastronomy.getName()).append("\n")
+				.append(Gastronomy.getAdress()).append("\n")
+				.append(Gastronomy.getTelephonenumber()).append("\n")
+				.append("\n").append("Ihre Bestellung:\n");
+
+		DecimalFormat df = new DecimalFormat("#0.00");
+		for(PrintableOrderedItem o: printableReceipt.getPrintableOrderedItems())
+		{
+			formattedReceiptText
+					.append(o.getName())
+					.append("\t\t")
+					.append(df.format(o.getPrice()))
+					.append(" EUR\n");
+
+			if(o.getComment() != null)
+				formattedReceiptText.append("\t").append(o.getComment()).append("\n");
+		}
+
+		double mwst = Math.round(printableReceipt.getPrice()*0.199 * 100d) / 100d;
+
+		formattedReceiptText
+				.append("________________________\n")
+				.append("Summe\t\t").append(df.format(printableReceipt.getPrice())).append(" EUR\n")
+				.append("inkl. MWST 19%\t").append(df.format(mwst)).append(" EUR\n")
+				.append("\n")
+				.append("Sie saßen an Tisch ").append(printableReceipt.getTableName()).append(".\n")
+				.append("Vielen Dank für Ihren Besuch!\n")
+				.append(printableReceipt.getDate()).append("\n\n");
+
+		byte[] textBytes = formattedReceiptText.toString().getBytes("CP437");
+		byte[] bytes = new byte[textBytes.length + CUT.length];
+		System.arraycopy(textBytes, 0, bytes, 0, textBytes.length);
+		System.arraycopy(CUT, 0, bytes, textBytes.length, CUT.length);
+		return bytes;
+	}
+
+	private interface Renderer
+	{
+		byte[] render(PrintableReceipt receipt) throws Exception;
+	}
+
+	private static void benchmark(String name, Renderer renderer, PrintableReceipt receipt, int iterations)
+			throws Exception
+	{
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadID = Thread.currentThread().getId();
+
+		// Aufwärmen, damit der JIT-Compiler beide Varianten übersetzt hat
+		for(int i = 0; i < iterations; i++)
+			renderer.render(receipt);
+
+		long bytes = 0;
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadID);
+		long start = System.nanoTime();
+		for(int i = 0; i < iterations; i++)
+			bytes += renderer.render(receipt).length;
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+		System.out.printf("%-8s %10.1f MB/s %8d Bytes allokiert je Beleg%n", name,
+				bytes * 1000d / nanos, allocated / iterations);
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		new EscPosRenderer_Test().testReceiptColumnsAreAligned();
+
+		PrintableReceipt receipt = createReceipt();
+		EscPosRenderer renderer = new EscPosRenderer();
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		for(int round = 0; round < 3; round++)
+		{
+			benchmark("String", EscPosRenderer_Test::renderReceiptAsString, receipt, iterations);
+			benchmark("ESC/POS", renderer::renderReceipt, receipt, iterations);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test der bedingten Abfrage der Tische: Mit aktuellem ETag wird ohne Datenbankzugriff "304 Not Modified"
+ * geliefert, nach einer Änderung ändert sich das ETag.
+ */
+public class ConditionalGet_Test
+{
+	@Test
+	public void testMatchingETagSkipsDatabase()
+	{
+		AtomicInteger connections = new AtomicInteger();
+		RestApiController controller = new RestApiController();
+		controller.databaseService = new DatabaseService(emptyDatabase(connections));
+		controller.objectMapper = new ObjectMapper();
+		controller.init();
+		String token = SessionToken.issue(1);
+
+		Map<String, String> first = new HashMap<>();
+		assertNotNull(controller.getAllTables(null, null, null, token, request(null, first)));
+		String eTag = first.get("ETag");
+		assertNotNull(eTag);
+
+		connections.set(0);
+		Map<String, String> second = new HashMap<>();
+		assertNull(controller.getAllTables(null, null, null, token, request(eTag, second)));
+		assertEquals("304", second.get("status"));
+		assertEquals(0, connections.get());
+
+		controller.databaseService.addTable(new Table("Tisch 1", 4, true));
+		Map<String, String> third = new HashMap<>();
+		assertNotNull(controller.getAllTables(null, null, null, token, request(eTag, third)));
+		assertNotEquals(eTag, third.get("ETag"));
+
+		assertEquals(3L, controller.tablesConditionalGets.getStatistics().get("requests"));
+		assertEquals(1L, controller.tablesConditionalGets.getStatistics().get("notModified"));
+
+		controller.closeOrderedItemEventStream();
+		controller.databaseService.disconnect();
+	}
+
+	/**
+	 * Erzeugt eine leere Datenbank, die die geliehenen Verbindungen zählt.
+	 */
+	private static DataSource emptyDatabase(AtomicInteger connections)
+	{
+		return proxy(DataSource.class, (proxy, method, args) -> {
+			if(!method.getName().equals("getConnection"))
+				return defaultValue(method.getReturnType());
+			connections.incrementAndGet();
+			return proxy(Connection.class, (connection, connectionMethod, connectionArgs) -> {
+				if(!connectionMethod.getName().equals("prepareStatement"))
+					return defaultValue(connectionMethod.getReturnType());
+				return proxy(PreparedStatement.class, (statement, statementMethod, statementArgs) ->
+						statementMethod.getReturnType() == ResultSet.class
+								? proxy(ResultSet.class, (rs, rsMethod, rsArgs) -> defaultValue(rsMethod.getReturnType()))
+								: defaultValue(statementMethod.getReturnType()));
+			});
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(ConditionalGet_Test.class.getClassLoader(), new Class[]{type}, handler);
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if(type == boolean.class)
+			return false;
+		if(type == int.class)
+			return 0;
+		if(type == long.class)
+			return 0L;
+		return null;
+	}
+
+	/**
+	 * Erzeugt eine GET-Anfrage, deren Antwort-Header und Status in response geschrieben werden.
+	 */
+	private static ServletWebRequest request(String ifNoneMatch, Map<String, String> response)
+	{
+		HttpServletRequest servletRequest = proxy(HttpServletRequest.class, (proxy, method, args) -> {
+					switch(method.getName()) {
+						case "getMethod":
+							return "GET";
+						case "getHeader":
+							return "If-None-Match".equalsIgnoreCase((String) args[0]) ? ifNoneMatch : null;
+						case "getHeaders":
+							return "If-None-Match".equalsIgnoreCase((String) args[0]) && ifNoneMatch != null
+									? Collections.enumeration(Collections.singletonList(ifNoneMatch))
+									: Collections.emptyEnumeration();
+						case "getDateHeader":
+							return -1L;
+						default:
+							return defaultValue(method.getReturnType());
+					}
+				});
+		HttpServletResponse servletResponse = proxy(HttpServletResponse.class, (proxy, method, args) -> {
+					switch(method.getName()) {
+						case "setHeader":
+						case "addHeader":
+							response.put((String) args[0], (String) args[1]);
+							return null;
+						case "setStatus":
+							response.put("status", String.valueOf(args[0]));
+							return null;
+						case "getStatus":
+							return 200;
+						case "getHeader":
+							return response.get((String) args[0]);
+						case "containsHeader":
+							return response.containsKey((String) args[0]);
+						default:
+							return defaultValue(method.getReturnType());
+					}
+				});
+		return new ServletWebRequest(servletRequest, servletResponse);
+	}
+}
@@ -0,0 +1,87 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import dhbw.sa.kassensystem_rest.database.databaseservice.DatabaseService;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test der Server-Sent Events: Ein Ereignis, das ausgelöst wird, während ein Bildschirm die Verbindung aufbaut,
+ * wird diesem Bildschirm trotzdem gesendet.
+ */
+public class OrderedItemEventStream_Test
+{
+	@Test
+	public void testEventDuringConnectIsSent() throws InterruptedException
+	{
+		DatabaseService dbs = new DatabaseService(emptyDatabase());
+		OrderedItemEventStream stream = new OrderedItemEventStream(dbs.getOrderedItemEvents());
+
+		// Das Ereignis wird ausgelöst, nachdem der aktuelle Stand ermittelt, aber bevor der Bildschirm angemeldet wurde
+		stream.connect(null, () -> {
+			dbs.deleteOrderedItemByOrderId(7);
+			return new ArrayList<OrderedItem>();
+		});
+
+		for(int i = 0; i < 500 && stream.getStatistics().get("sent").longValue() == 0; i++)
+			Thread.sleep(10);
+		assertEquals(1, stream.getStatistics().get("subscribers"));
+		assertEquals(1L, stream.getStatistics().get("sent"));
+
+		// Spätere Ereignisse werden genau einmal gesendet
+		dbs.deleteOrderedItemByOrderId(8);
+		for(int i = 0; i < 500 && stream.getStatistics().get("sent").longValue() == 1; i++)
+			Thread.sleep(10);
+		Thread.sleep(50);
+		assertEquals(2L, stream.getStatistics().get("sent"));
+
+		stream.close();
+		dbs.disconnect();
+	}
+
+	/**
+	 * Erzeugt eine leere Datenbank.
+	 */
+	private static DataSource emptyDatabase()
+	{
+		return proxy(DataSource.class, (proxy, method, args) -> {
+			if(!method.getName().equals("getConnection"))
+				return defaultValue(method.getReturnType());
+			return proxy(Connection.class, (connection, connectionMethod, connectionArgs) -> {
+				if(!connectionMethod.getName().equals("prepareStatement"))
+					return defaultValue(connectionMethod.getReturnType());
+				return proxy(PreparedStatement.class, (statement, statementMethod, statementArgs) ->
+						statementMethod.getReturnType() == ResultSet.class
+								? proxy(ResultSet.class, (rs, rsMethod, rsArgs) -> defaultValue(rsMethod.getReturnType()))
+								: defaultValue(statementMethod.getReturnType()));
+			});
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler)
+	{
+		return (T) Proxy.newProxyInstance(OrderedItemEventStream_Test.class.getClassLoader(), new Class[]{type},
+				handler);
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if(type == boolean.class)
+			return false;
+		if(type == int.class)
+			return 0;
+		if(type == long.class)
+			return 0L;
+		return null;
+	}
+}
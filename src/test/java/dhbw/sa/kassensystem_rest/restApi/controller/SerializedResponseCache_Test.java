@@ -0,0 +1,145 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dhbw.sa.kassensystem_rest.database.entity.Item;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test des {@link SerializedResponseCache}s. Über {@link #main(String[])} wird zusätzlich die Dauer einer Anfrage
+ * mit Serialisierung durch Jackson und mit der zwischengespeicherten Antwort verglichen.
+ */
+public class SerializedResponseCache_Test
+{
+	@Test
+	public void testResponseIsRebuiltOnlyForNewVersion() throws IOException
+	{
+		ObjectMapper objectMapper = new ObjectMapper();
+		SerializedResponseCache cache = new SerializedResponseCache(objectMapper, 60000);
+		ArrayList<Item> items = createItems(20);
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<ArrayList<Item>> loader = () -> {
+			loads.incrementAndGet();
+			return items;
+		};
+
+		SerializedResponseCache.Response first = cache.get(1, loader);
+		assertSame(first, cache.get(1, loader));
+		assertEquals(1, loads.get());
+
+		// Die Bytes entsprechen der Serialisierung durch Jackson, die gzip-Variante enthält dieselben Bytes
+		assertArrayEquals(objectMapper.writeValueAsBytes(items), first.json);
+		assertArrayEquals(first.json, gunzip(first.gzip));
+
+		cache.get(2, loader);
+		assertEquals(2, loads.get());
+		assertEquals(1L, cache.getStatistics().get("hits"));
+		assertEquals(2L, cache.getStatistics().get("rebuilds"));
+	}
+
+	@Test
+	public void testResponseIsRebuiltAfterTtl() throws InterruptedException
+	{
+		SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), 20);
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<ArrayList<Item>> loader = () -> {
+			loads.incrementAndGet();
+			return createItems(1);
+		};
+
+		// Ohne neue Version wird eine Änderung direkt in der Datenbank nach Ablauf der Gültigkeitsdauer geliefert
+		SerializedResponseCache.Response first = cache.get(1, loader);
+		Thread.sleep(40);
+		assertNotSame(first, cache.get(1, loader));
+		assertEquals(2, loads.get());
+	}
+
+	private static ArrayList<Item> createItems(int count)
+	{
+		ArrayList<Item> items = new ArrayList<>();
+		for(int i = 1; i <= count; i++)
+			items.add(new Item(i, "Artikel Nummer " + i, 2.5 + i, 100 - i, true));
+		return items;
+	}
+
+	private static byte[] gunzip(byte[] data) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data)))
+		{
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = in.read(buffer)) > 0)
+				out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private interface Request
+	{
+		byte[] respond() throws Exception;
+	}
+
+	private static void benchmark(String name, Request request, int iterations) throws Exception
+	{
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadID = Thread.currentThread().getId();
+
+		// Aufwärmen, damit der JIT-Compiler alle Varianten übersetzt hat
+		for(int i = 0; i < iterations; i++)
+			request.respond();
+
+		long bytes = 0;
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadID);
+		long start = System.nanoTime();
+		for(int i = 0; i < iterations; i++)
+			bytes += request.respond().length;
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+		System.out.printf("%-14s %10.2f µs je Anfrage %8d Bytes Antwort %10d Bytes allokiert je Anfrage%n", name,
+				nanos / 1000d / iterations, bytes / iterations, allocated / iterations);
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		new SerializedResponseCache_Test().testResponseIsRebuiltOnlyForNewVersion();
+
+		// Die Speisekarte wird bei jeder Anfrage neu erzeugt, wie beim Laden aus der Datenbank
+		int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		Supplier<ArrayList<Item>> loader = () -> createItems(itemCount);
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		SerializedResponseCache cache = new SerializedResponseCache(objectMapper, 60000);
+		for(int round = 0; round < 3; round++)
+		{
+			benchmark("Jackson", () -> objectMapper.writeValueAsBytes(loader.get()), iterations);
+			benchmark("Jackson+gzip", () -> {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try(GZIPOutputStream out = new GZIPOutputStream(bytes))
+				{
+					objectMapper.writeValue(out, loader.get());
+				}
+				return bytes.toByteArray();
+			}, iterations);
+			benchmark("Cache", () -> cache.get(1, loader).json, iterations);
+			benchmark("Cache gzip", () -> cache.get(1, loader).gzip, iterations);
+		}
+	}
+}
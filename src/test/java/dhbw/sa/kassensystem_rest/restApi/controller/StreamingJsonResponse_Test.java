@@ -0,0 +1,117 @@
+package dhbw.sa.kassensystem_rest.restApi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dhbw.sa.kassensystem_rest.database.entity.OrderedItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test der {@link StreamingJsonResponse}: Die Datensätze werden bereits während des Lesens geschrieben, und das
+ * Ergebnis entspricht der Serialisierung der vollständigen Liste. Über {@link #main(String[])} wird zusätzlich der
+ * Speicherbedarf eines Exports mit und ohne Streaming verglichen.
+ */
+public class StreamingJsonResponse_Test
+{
+	@Test
+	public void testRowsAreWrittenWhileReading() throws IOException
+	{
+		ObjectMapper objectMapper = new ObjectMapper();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] writtenWhileReading = {0};
+
+		StreamingJsonResponse.<OrderedItem>write(objectMapper, consumer -> {
+			for(int i = 1; i <= 10000; i++)
+				consumer.accept(createOrderedItem(i));
+			writtenWhileReading[0] = out.size();
+		}, out);
+
+		// Vor dem letzten Datensatz wurde bereits ein Großteil der Antwort geschrieben
+		assertTrue(writtenWhileReading[0] > out.size() / 2);
+		assertArrayEquals(objectMapper.writeValueAsBytes(readAll(10000)), out.toByteArray());
+
+		out.reset();
+		StreamingJsonResponse.<OrderedItem>write(objectMapper, consumer -> {}, out);
+		assertArrayEquals("[]".getBytes(), out.toByteArray());
+	}
+
+	private static OrderedItem createOrderedItem(int orderedItemID)
+	{
+		return new OrderedItem(orderedItemID, orderedItemID / 4, orderedItemID % 50, false, true, "ohne Zwiebeln");
+	}
+
+	private static ArrayList<OrderedItem> readAll(int count)
+	{
+		ArrayList<OrderedItem> orderedItems = new ArrayList<>();
+		for(int i = 1; i <= count; i++)
+			orderedItems.add(createOrderedItem(i));
+		return orderedItems;
+	}
+
+	private interface Export
+	{
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static void benchmark(String name, Export export)
+			throws IOException
+	{
+		OutputStream discard = new OutputStream()
+		{
+			@Override
+			public void write(int b) {}
+
+			@Override
+			public void write(byte[] b, int off, int len) {}
+		};
+
+		System.gc();
+		List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+		for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+			if(pool.getType() == MemoryType.HEAP)
+			{
+				pool.resetPeakUsage();
+				heapPools.add(pool);
+			}
+
+		long start = System.nanoTime();
+		export.write(discard);
+		long nanos = System.nanoTime() - start;
+
+		// Die Summe der Spitzen der einzelnen Bereiche ist eine obere Schranke der gleichzeitigen Belegung
+		long peak = 0;
+		for(MemoryPoolMXBean pool: heapPools)
+			peak += pool.getPeakUsage().getUsed();
+
+		System.out.printf("%-10s %8d ms %8d MB Heap-Spitze%n", name, nanos / 1000000, peak / (1024 * 1024));
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		new StreamingJsonResponse_Test().testRowsAreWrittenWhileReading();
+
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		ObjectMapper objectMapper = new ObjectMapper();
+		Consumer<Consumer<OrderedItem>> source = consumer -> {
+			for(int i = 1; i <= rows; i++)
+				consumer.accept(createOrderedItem(i));
+		};
+
+		for(int round = 0; round < 3; round++)
+		{
+			benchmark("Liste", out -> objectMapper.writeValue(out, readAll(rows)));
+			benchmark("Streaming", out -> StreamingJsonResponse.write(objectMapper, source, out));
+		}
+	}
+}